@@ -0,0 +1,81 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SigmoidActivation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Activation and backpropagation through the activation function for a batch of 32 rows of 200 nodes, with the bulk
+ * methods of {@link ActivationFunction} against a loop over the element-wise derivative. Every invocation starts from
+ * the same gradients, so they do not shrink into subnormal numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ActivationBenchmark {
+
+    private static final int LENGTH = 32 * 200;
+
+    @Param({"RELU", "SIGMOID"})
+    public String activation;
+
+    private ActivationFunction activationFunction;
+
+    private double[] weightedInputs;
+    private double[] activations;
+    private double[] initialGradients;
+    private double[] gradients;
+
+    @Setup
+    public void setUp() {
+        activationFunction = activation.equals("SIGMOID") ? new SigmoidActivation() : new ReLuActivation();
+
+        weightedInputs = SyntheticData.values(1, LENGTH, 1);
+        for (int i = 0; i < LENGTH; i++) {
+            weightedInputs[i] = weightedInputs[i] * 8 - 4;
+        }
+        activations = new double[LENGTH];
+        activationFunction.activate(weightedInputs, activations, 0, LENGTH);
+
+        initialGradients = SyntheticData.values(1, LENGTH, 2);
+        gradients = new double[LENGTH];
+    }
+
+    @Benchmark
+    public double[] activate() {
+        activationFunction.activate(weightedInputs, activations, 0, LENGTH);
+        return activations;
+    }
+
+    @Benchmark
+    public double[] multiplyDerivatives() {
+        System.arraycopy(initialGradients, 0, gradients, 0, LENGTH);
+        activationFunction.multiplyDerivatives(weightedInputs, activations, gradients, 0, LENGTH);
+        return gradients;
+    }
+
+    @Benchmark
+    public double[] elementWiseDerivatives() {
+        System.arraycopy(initialGradients, 0, gradients, 0, LENGTH);
+        for (int i = 0; i < LENGTH; i++) {
+            gradients[i] *= activationFunction.derivative(weightedInputs[i]);
+        }
+        return gradients;
+    }
+}
@@ -0,0 +1,95 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.LayerTrainingInstance;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+import de.jonathanebeling.neuralnetwork.optimizers.AdamOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.MomentumOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.RmsPropOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.SgdOptimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying gradients with an optimizer to a layer that all benchmark threads share, so runs with several threads
+ * measure the contention of the layer lock against the row locks used by Hogwild training.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ApplyGradientsBenchmark {
+
+    // Klein genug, dass die Gewichte über alle Iterationen stabil bleiben
+    private static final double LEARNING_RATE = 1e-9;
+
+    /**
+     * Nodes in x nodes out.
+     */
+    @Param({"784x200", "200x200", "200x10"})
+    public String shape;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    @Param({"SGD", "MOMENTUM", "RMSPROP", "ADAM"})
+    public String optimizerName;
+
+    private Layer layer;
+    private Optimizer optimizer;
+
+    /**
+     * Gradients of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Gradients {
+        private LayerTrainingInstance instance;
+
+        @Setup
+        public void setUp(ApplyGradientsBenchmark benchmark) {
+            instance = new LayerTrainingInstance(benchmark.layer);
+
+            double[] values = SyntheticData.values(1, instance.getCostGradientW().length + instance.getCostGradientB().length, 4);
+            int weights = instance.getCostGradientW().length;
+            System.arraycopy(values, 0, instance.getCostGradientW(), 0, weights);
+            System.arraycopy(values, weights, instance.getCostGradientB(), 0, instance.getCostGradientB().length);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        int[] size = LayerShape.parse(shape);
+        layer = LayerShape.createLayer(size[0], size[1], precision, 1);
+        optimizer = switch (optimizerName) {
+            case "MOMENTUM" -> new MomentumOptimizer();
+            case "RMSPROP" -> new RmsPropOptimizer();
+            case "ADAM" -> new AdamOptimizer();
+            default -> new SgdOptimizer();
+        };
+    }
+
+    @Benchmark
+    public Layer applyGradients(Gradients gradients) {
+        layer.applyGradients(optimizer, LEARNING_RATE, 1, gradients.instance);
+        return layer;
+    }
+
+    @Benchmark
+    public int applyGradientsByRow(Gradients gradients) {
+        return layer.applyGradientsByRow(optimizer, LEARNING_RATE, 1, gradients.instance);
+    }
+}
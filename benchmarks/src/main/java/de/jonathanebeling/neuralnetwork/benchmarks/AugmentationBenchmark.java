@@ -0,0 +1,94 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.data.ImageAugmenter;
+import de.jonathanebeling.neuralnetwork.data.MiniBatch;
+import de.jonathanebeling.neuralnetwork.data.TrainingDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The augmentations of the training data on one 28x28 image each, and a whole augmented mini batch as filled by the
+ * {@link TrainingDataManager}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class AugmentationBenchmark {
+
+    private static final int SIZE = SyntheticData.IMAGE_SIZE;
+    private static final double ROTATION_ANGLE = 15;
+    private static final int TRANSLATION = 3;
+    private static final double NOISE_FACTOR = 0.05;
+    private static final int BATCH_SIZE = 32;
+
+    private final ImageAugmenter augmenter = new ImageAugmenter(SIZE, SIZE, ROTATION_ANGLE, TRANSLATION, NOISE_FACTOR);
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    private double[] image;
+    private double[] target;
+
+    private TrainingDataManager dataManager;
+    private MiniBatch batch;
+
+    @Setup
+    public void setUp() {
+        image = SyntheticData.image(SIZE, SIZE, 1);
+        target = new double[SIZE * SIZE];
+
+        DataPoint[] dataPoints = SyntheticData.dataPoints(1024, SIZE * SIZE, 2);
+        dataManager = new TrainingDataManager(dataPoints, 0, 3);
+        dataManager.setMaxRandomTrainingDataRotationAngle(ROTATION_ANGLE);
+        dataManager.setMaxRandomTrainingDataTranslation(TRANSLATION);
+        dataManager.setTrainingDataNoiseFactor(NOISE_FACTOR);
+        dataManager.startEpoch();
+        batch = new MiniBatch(dataManager.getInputSize(), dataManager.getOutputSize(), BATCH_SIZE);
+    }
+
+    @Benchmark
+    public double[] rotate() {
+        augmenter.transform(image, 0, target, 0, Math.toRadians(ROTATION_ANGLE), 0, 0, 0, null);
+        return target;
+    }
+
+    @Benchmark
+    public double[] translate() {
+        augmenter.transform(image, 0, target, 0, 0, TRANSLATION, -TRANSLATION, 0, null);
+        return target;
+    }
+
+    @Benchmark
+    public double[] noise() {
+        augmenter.transform(image, 0, target, 0, 0, 0, 0, NOISE_FACTOR, random);
+        return target;
+    }
+
+    /**
+     * Random rotation, translation and noise in one pass.
+     */
+    @Benchmark
+    public double[] augment() {
+        augmenter.augment(image, 0, target, 0, random);
+        return target;
+    }
+
+    @Benchmark
+    public MiniBatch fillBatch() {
+        dataManager.fillBatch(0, BATCH_SIZE, batch);
+        return batch;
+    }
+}
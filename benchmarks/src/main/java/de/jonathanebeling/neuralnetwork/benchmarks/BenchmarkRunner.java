@@ -0,0 +1,73 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Runs all benchmarks once per thread count and writes the results of each run as JSON, so runs before and after a
+ * change can be compared. Options are system properties:
+ * <pre>
+ * benchmarks.threads  comma separated thread counts, default "1,&lt;available processors&gt;"
+ * benchmarks.include  regular expression of the benchmarks to run, default all
+ * benchmarks.results  directory for the JSON files, default "results"
+ * </pre>
+ * The {@link EpochBenchmark} starts its own worker threads and is only run once with a single benchmark thread.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = Arrays.stream(System.getProperty("benchmarks.threads", "1," + processors).split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .distinct()
+                .toArray();
+        String include = System.getProperty("benchmarks.include", ".*");
+        Path results = Path.of(System.getProperty("benchmarks.results", "results"));
+        Files.createDirectories(results);
+
+        String prefix = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String epochBenchmark = EpochBenchmark.class.getSimpleName();
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .exclude(epochBenchmark)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve(prefix + "-threads-" + threads + ".json").toString())
+                    .build();
+            run(options);
+        }
+
+        // JMH vergleicht die Filter mit dem vollen Namen der Benchmark-Methode
+        if (Pattern.compile(include).matcher(EpochBenchmark.class.getName() + ".trainEpoch").find()) {
+            Options options = new OptionsBuilder()
+                    .include(epochBenchmark)
+                    .threads(1)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve(prefix + "-epoch.json").toString())
+                    .build();
+            run(options);
+        }
+    }
+
+    private static void run(Options options) throws RunnerException {
+        // JMH bricht mit einer Exception ab, wenn kein Benchmark auf den Filter passt
+        try {
+            new Runner(options).run();
+        } catch (RunnerException e) {
+            if (!String.valueOf(e.getMessage()).contains("No matching benchmarks")) throw e;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.network.Conv2DLayer;
+import de.jonathanebeling.neuralnetwork.network.PoolingLayer;
+import de.jonathanebeling.neuralnetwork.network.PoolingType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched forward and backward passes of a convolution and the max pooling behind it, the time of one call for the
+ * whole batch. The shapes are the two convolutions of the small LeNet of the convolutional training example.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ConvolutionBenchmark {
+
+    /**
+     * Input width x height x channels, kernel size x filters.
+     */
+    @Param({"28x28x1-5x4", "12x12x4-5x8"})
+    public String shape;
+
+    @Param({"1", "32"})
+    public int batchSize;
+
+    private Conv2DLayer convolution;
+    private PoolingLayer pooling;
+    private double[] inputs;
+    private double[] outputs;
+    private double[] nodeValues;
+    private double[] previousNodeValues;
+    private double[] pooled;
+    private double[] pooledNodeValues;
+    private double[] costGradientW;
+    private double[] costGradientB;
+
+    @Setup
+    public void setUp() {
+        String[] parts = shape.split("-");
+        int[] input = parse(parts[0]);
+        int[] kernel = parse(parts[1]);
+
+        convolution = new Conv2DLayer(input[0], input[1], input[2], kernel[1], kernel[0], 1, 0, new Random(1), new ReLuActivation());
+        pooling = new PoolingLayer(PoolingType.MAX, convolution.getOutputWidth(), convolution.getOutputHeight(), kernel[1], 2);
+
+        inputs = SyntheticData.values(batchSize, convolution.getNodesIn(), 2);
+        outputs = new double[batchSize * convolution.getNodesOut()];
+        nodeValues = SyntheticData.values(batchSize, convolution.getNodesOut(), 3);
+        previousNodeValues = new double[batchSize * convolution.getNodesIn()];
+        pooled = new double[batchSize * pooling.getNodesOut()];
+        pooledNodeValues = SyntheticData.values(batchSize, pooling.getNodesOut(), 4);
+        costGradientW = new double[convolution.getWeightCount()];
+        costGradientB = new double[convolution.getBiasCount()];
+
+        convolution.calculateWeightedInputs(inputs, outputs, batchSize);
+    }
+
+    private static int[] parse(String value) {
+        String[] parts = value.split("x");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double[] calculateWeightedInputs() {
+        convolution.calculateWeightedInputs(inputs, outputs, batchSize);
+        return outputs;
+    }
+
+    @Benchmark
+    public double[] accumulateGradients() {
+        convolution.accumulateGradients(inputs, nodeValues, costGradientW, costGradientB, batchSize);
+        return costGradientW;
+    }
+
+    @Benchmark
+    public double[] backpropagateNodeValues() {
+        convolution.backpropagateNodeValues(nodeValues, previousNodeValues, batchSize);
+        return previousNodeValues;
+    }
+
+    @Benchmark
+    public double[] maxPooling() {
+        pooling.calculateWeightedInputs(outputs, pooled, batchSize);
+        return pooled;
+    }
+
+    @Benchmark
+    public double[] maxPoolingBackpropagation() {
+        pooling.backpropagateNodeValues(outputs, pooledNodeValues, nodeValues, batchSize);
+        return nodeValues;
+    }
+}
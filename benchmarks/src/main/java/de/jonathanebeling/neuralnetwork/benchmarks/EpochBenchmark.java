@@ -0,0 +1,85 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.data.DataPointSource;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+import de.jonathanebeling.neuralnetwork.network.TrainingMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full epoch of {@link NeuralNetwork#trainMiniBatchAsync} on synthetic data, including the validation pass and
+ * the checkpoint written after it. The network trains its own worker threads, so this benchmark is run with a single
+ * benchmark thread and the parallelism is set with workerCount.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EpochBenchmark {
+
+    private static final int[] LAYERS = {784, 100, 10};
+    private static final int TRAINING_SIZE = 2048;
+    private static final int VALIDATION_SIZE = 256;
+    private static final int MINIBATCH_SIZE = 32;
+
+    @Param({"ASYNCHRONOUS", "SYNCHRONOUS", "HOGWILD"})
+    public TrainingMode trainingMode;
+
+    @Param({"1", "4"})
+    public int workerCount;
+
+    private Path saveDirectory;
+    private NeuralNetwork network;
+    private DataPointSource trainingData;
+    private DataPointSource validationData;
+
+    @Setup(Level.Trial)
+    public void setUpData() {
+        trainingData = new DataPointSource(SyntheticData.dataPoints(TRAINING_SIZE, LAYERS[0], 1));
+        validationData = new DataPointSource(SyntheticData.dataPoints(VALIDATION_SIZE, LAYERS[0], 2));
+    }
+
+    /**
+     * Every epoch starts from the same freshly initialized network.
+     */
+    @Setup(Level.Iteration)
+    public void setUpNetwork() throws IOException {
+        saveDirectory = Files.createTempDirectory("epoch-benchmark");
+
+        network = LayerShape.createNetwork(LAYERS, Precision.DOUBLE, saveDirectory, 3);
+        network.setTrainingMode(trainingMode);
+        network.setWorkerCount(workerCount);
+        network.setEarlyStopping(false);
+        network.setKeptCheckpoints(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        SyntheticData.delete(saveDirectory);
+    }
+
+    @Benchmark
+    public NeuralNetwork trainEpoch() {
+        network.trainMiniBatchAsync(trainingData, validationData, 0.01, MINIBATCH_SIZE, 1);
+        return network;
+    }
+}
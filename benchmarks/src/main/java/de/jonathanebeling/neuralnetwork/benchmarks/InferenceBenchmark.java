@@ -0,0 +1,79 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.inference.InferenceModel;
+import de.jonathanebeling.neuralnetwork.inference.Predictor;
+import de.jonathanebeling.neuralnetwork.inference.QuantizedInferenceModel;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched predictions of the compiled inference models, the time of one call for the whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class InferenceBenchmark {
+
+    public enum Model {
+        DOUBLE, FLOAT, INT8
+    }
+
+    @Param({"784-200-200-10"})
+    public String layers;
+
+    @Param({"1", "64", "256"})
+    public int batchSize;
+
+    @Param({"DOUBLE", "FLOAT", "INT8"})
+    public Model model;
+
+    private Path saveDirectory;
+    private Predictor predictor;
+    private double[] inputs;
+    private double[] outputs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int[] layerSizes = LayerShape.parse(layers);
+        saveDirectory = Files.createTempDirectory("inference-benchmark");
+
+        Precision precision = model == Model.FLOAT ? Precision.FLOAT : Precision.DOUBLE;
+        NeuralNetwork network = LayerShape.createNetwork(layerSizes, precision, saveDirectory, 1);
+        predictor = model == Model.INT8 ? QuantizedInferenceModel.quantize(network) : InferenceModel.compile(network);
+
+        inputs = SyntheticData.values(batchSize, predictor.getInputSize(), 2);
+        outputs = new double[batchSize * predictor.getOutputSize()];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticData.delete(saveDirectory);
+    }
+
+    @Benchmark
+    public double[] predict() {
+        predictor.predict(inputs, outputs, batchSize);
+        return outputs;
+    }
+}
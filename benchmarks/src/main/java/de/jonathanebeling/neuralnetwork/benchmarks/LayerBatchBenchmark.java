@@ -0,0 +1,80 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched forward and backward products of a single layer, the time of one call for the whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LayerBatchBenchmark {
+
+    /**
+     * Nodes in x nodes out.
+     */
+    @Param({"784x200", "200x200", "200x10"})
+    public String shape;
+
+    @Param({"1", "32", "256"})
+    public int batchSize;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private Layer layer;
+    private double[] inputs;
+    private double[] nodeValues;
+    private double[] outputs;
+    private double[] previousNodeValues;
+    private double[] costGradientW;
+    private double[] costGradientB;
+
+    @Setup
+    public void setUp() {
+        int[] size = LayerShape.parse(shape);
+        layer = LayerShape.createLayer(size[0], size[1], precision, 1);
+
+        inputs = SyntheticData.values(batchSize, size[0], 2);
+        nodeValues = SyntheticData.values(batchSize, size[1], 3);
+        outputs = new double[batchSize * size[1]];
+        previousNodeValues = new double[batchSize * size[0]];
+        costGradientW = new double[size[0] * size[1]];
+        costGradientB = new double[size[1]];
+    }
+
+    @Benchmark
+    public double[] calculateWeightedInputs() {
+        layer.calculateWeightedInputs(inputs, outputs, batchSize);
+        return outputs;
+    }
+
+    @Benchmark
+    public double[] backpropagateNodeValues() {
+        layer.backpropagateNodeValues(nodeValues, previousNodeValues, batchSize);
+        return previousNodeValues;
+    }
+
+    @Benchmark
+    public double[] accumulateGradients() {
+        layer.accumulateGradients(inputs, nodeValues, costGradientW, costGradientB, batchSize);
+        return costGradientW;
+    }
+}
@@ -0,0 +1,53 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward pass of a single layer for one input, see {@link Layer#calculateOutputActivations(double[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LayerForwardBenchmark {
+
+    /**
+     * Nodes in x nodes out.
+     */
+    @Param({"784x200", "200x200", "200x10"})
+    public String shape;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private Layer layer;
+    private double[] input;
+
+    @Setup
+    public void setUp() {
+        int[] size = LayerShape.parse(shape);
+        layer = LayerShape.createLayer(size[0], size[1], precision, 1);
+        input = SyntheticData.values(1, size[0], 2);
+    }
+
+    @Benchmark
+    public double[] calculateOutputActivations() {
+        return layer.calculateOutputActivations(input);
+    }
+}
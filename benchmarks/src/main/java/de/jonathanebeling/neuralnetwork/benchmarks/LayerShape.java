@@ -0,0 +1,44 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.SumOfSquaredErrorsCost;
+import de.jonathanebeling.neuralnetwork.network.FloatLayer;
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.Precision;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Parses the layer parameters of the benchmarks.
+ */
+public final class LayerShape {
+
+    private LayerShape() {
+    }
+
+    /**
+     * @param shape Sizes separated by "x" or "-", e.g. "784x200" for a layer or "784-200-10" for a network.
+     */
+    public static int[] parse(String shape) {
+        return Arrays.stream(shape.split("[x-]")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    public static Layer createLayer(int nodesIn, int nodesOut, Precision precision, long seed) {
+        Random random = new Random(seed);
+        if (precision == Precision.FLOAT) {
+            return new FloatLayer(nodesIn, nodesOut, random, new ReLuActivation(), new SumOfSquaredErrorsCost());
+        }
+        return new Layer(nodesIn, nodesOut, random, new ReLuActivation(), new SumOfSquaredErrorsCost());
+    }
+
+    /**
+     * @param saveDirectory Directory the network creates its save directory in, delete it after the benchmark.
+     */
+    public static NeuralNetwork createNetwork(int[] layerSizes, Precision precision, Path saveDirectory, long seed) {
+        return new NeuralNetwork(layerSizes, new ReLuActivation(), new SumOfSquaredErrorsCost(),
+                saveDirectory.resolve("network").toString(), seed, precision);
+    }
+}
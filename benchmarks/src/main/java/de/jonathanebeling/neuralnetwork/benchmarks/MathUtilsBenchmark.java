@@ -0,0 +1,46 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dot product of {@link MathUtils#sumMultipliedArrays}. Add the JVM option -Dneuralnetwork.kernels=scalar to
+ * measure the scalar kernels instead of the Vector API kernels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class MathUtilsBenchmark {
+
+    @Param({"10", "200", "784", "4096"})
+    public int length;
+
+    private double[] a;
+    private double[] b;
+
+    @Setup
+    public void setUp() {
+        a = SyntheticData.values(1, length, 1);
+        b = SyntheticData.values(1, length, 2);
+    }
+
+    @Benchmark
+    public double sumMultipliedArrays() {
+        return MathUtils.sumMultipliedArrays(a, b);
+    }
+}
@@ -0,0 +1,79 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.data.CompactDataSet;
+import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.data.MnistDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading synthetic IDX files from a temporary directory, plain and gzipped. Reads right after the setup come from
+ * the page cache, so the results show the parsing cost rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class MnistReaderBenchmark {
+
+    @Param({"1000", "10000"})
+    public int count;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private final MnistDataReader reader = new MnistDataReader();
+
+    private Path directory;
+    private String images;
+    private String labels;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mnist-benchmark");
+        Path[] files = SyntheticData.writeIdxFiles(directory, count, compressed, 1);
+        images = files[0].toString();
+        labels = files[1].toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticData.delete(directory);
+    }
+
+    @Benchmark
+    public DataPoint[] readData() throws IOException {
+        return reader.readData(images, labels);
+    }
+
+    @Benchmark
+    public CompactDataSet readCompactData() throws IOException {
+        return reader.readCompactData(images, labels);
+    }
+
+    /**
+     * Gzipped files can't be mapped and are read like in {@link #readCompactData()}.
+     */
+    @Benchmark
+    public CompactDataSet mapCompactData() throws IOException {
+        return reader.mapCompactData(images, labels);
+    }
+}
@@ -0,0 +1,132 @@
+package de.jonathanebeling.neuralnetwork.benchmarks;
+
+import de.jonathanebeling.neuralnetwork.data.DataPoint;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reproducible random data for the benchmarks, so they run without the MNIST files.
+ */
+public final class SyntheticData {
+
+    public static final int IMAGE_SIZE = 28;
+    public static final int LABEL_COUNT = 10;
+
+    private static final int IMAGE_MAGIC = 0x00000803;
+    private static final int LABEL_MAGIC = 0x00000801;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * @return Data points with inputs in [0, 1) and one-hot labels, the same for the same seed.
+     */
+    public static DataPoint[] dataPoints(int count, int inputSize, long seed) {
+        Random random = new Random(seed);
+        DataPoint[] dataPoints = new DataPoint[count];
+        for (int i = 0; i < count; i++) {
+            double[] inputs = new double[inputSize];
+            for (int j = 0; j < inputSize; j++) {
+                inputs[j] = random.nextDouble();
+            }
+            dataPoints[i] = new DataPoint(inputs, random.nextInt(LABEL_COUNT));
+        }
+        return dataPoints;
+    }
+
+    /**
+     * @return count * length values in [0, 1).
+     */
+    public static double[] values(int count, int length, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count * length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+        return values;
+    }
+
+    /**
+     * @return Width * height pixels of a blurry, MNIST-like stroke in [0, 1].
+     */
+    public static double[] image(int width, int height, long seed) {
+        Random random = new Random(seed);
+        double[] image = new double[width * height];
+
+        double x = width / 2.0, y = height / 2.0;
+        for (int step = 0; step < 60; step++) {
+            x = Math.clamp(x + random.nextGaussian(), 2, width - 3);
+            y = Math.clamp(y + random.nextGaussian(), 2, height - 3);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int index = ((int) y + dy) * width + (int) x + dx;
+                    image[index] = Math.min(1, image[index] + (dx == 0 && dy == 0 ? 0.8 : 0.3));
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes an IDX image file and its label file with random 28x28 images to the directory.
+     *
+     * @param compressed Whether to gzip both files, their names then end with ".gz".
+     * @return The paths of the image file and the label file.
+     */
+    public static Path[] writeIdxFiles(Path directory, int count, boolean compressed, long seed) throws IOException {
+        String suffix = compressed ? ".gz" : "";
+        Path images = directory.resolve("images.idx3-ubyte" + suffix);
+        Path labels = directory.resolve("labels.idx1-ubyte" + suffix);
+        Random random = new Random(seed);
+
+        try (DataOutputStream output = new DataOutputStream(open(images, compressed))) {
+            output.writeInt(IMAGE_MAGIC);
+            output.writeInt(count);
+            output.writeInt(IMAGE_SIZE);
+            output.writeInt(IMAGE_SIZE);
+
+            byte[] pixels = new byte[IMAGE_SIZE * IMAGE_SIZE];
+            for (int i = 0; i < count; i++) {
+                random.nextBytes(pixels);
+                output.write(pixels);
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(open(labels, compressed))) {
+            output.writeInt(LABEL_MAGIC);
+            output.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                output.writeByte(random.nextInt(LABEL_COUNT));
+            }
+        }
+
+        return new Path[]{images, labels};
+    }
+
+    private static OutputStream open(Path path, boolean compressed) throws IOException {
+        OutputStream output = Files.newOutputStream(path);
+        return compressed ? new GZIPOutputStream(output, 1 << 16) : new BufferedOutputStream(output, 1 << 16);
+    }
+
+    /**
+     * Deletes the directory with everything in it.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.benchmarks.LayerShape;
+import de.jonathanebeling.neuralnetwork.benchmarks.SyntheticData;
+import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward and backward pass of one training instance, without applying the gradients. Lives in the network package
+ * because the training methods are protected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class TrainingInstanceBenchmark {
+
+    @Param({"784-200-200-10", "784-100-10"})
+    public String layers;
+
+    @Param({"1", "32", "256"})
+    public int batchSize;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public Precision precision;
+
+    private Path saveDirectory;
+    private NetworkTrainingInstance instance;
+    private DataPoint[] dataPoints;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int[] layerSizes = LayerShape.parse(layers);
+        saveDirectory = Files.createTempDirectory("training-benchmark");
+
+        NeuralNetwork network = LayerShape.createNetwork(layerSizes, precision, saveDirectory, 1);
+        instance = new NetworkTrainingInstance(network);
+        dataPoints = SyntheticData.dataPoints(batchSize, layerSizes[0], 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticData.delete(saveDirectory);
+    }
+
+    /**
+     * One data point per call, the path of the classic per-sample training.
+     */
+    @Benchmark
+    public double trainOnDatapoint() {
+        DataPoint dataPoint = dataPoints[next];
+        next = (next + 1) % dataPoints.length;
+
+        double cost = instance.trainOnDatapoint(dataPoint);
+        instance.clearAllGradients();
+        return cost;
+    }
+
+    /**
+     * The whole batch per call.
+     */
+    @Benchmark
+    public double trainOnBatch() {
+        double cost = instance.trainOnBatch(dataPoints, 0, dataPoints.length);
+        instance.clearAllGradients();
+        return cost;
+    }
+}
@@ -6,4 +6,50 @@ public interface ActivationFunction extends Serializable {
 
     double activation(double weightedInput);
     double derivative(double weightedInput);
+
+    /**
+     * Applies the activation function to weightedInputs[offset .. offset + length) and stores the results in the same
+     * range of activations. Both arrays may be the same.
+     */
+    default void activate(double[] weightedInputs, double[] activations, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            activations[i] = activation(weightedInputs[i]);
+        }
+    }
+
+    /**
+     * Applies the activation function to a batch of rows * rowLength weighted inputs starting at index 0.
+     * Element-wise functions treat the batch as one range, functions that normalize each row override this.
+     */
+    default void activateRows(double[] weightedInputs, double[] activations, int rows, int rowLength) {
+        activate(weightedInputs, activations, 0, rows * rowLength);
+    }
+
+    /**
+     * Stores the derivatives at weightedInputs[offset .. offset + length) in the same range of derivatives. The
+     * activations of the same range, as computed by {@link #activate}, are passed as well, so functions whose
+     * derivative follows from their output do not evaluate themselves again. derivatives may be either input array.
+     */
+    default void derivatives(double[] weightedInputs, double[] activations, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            derivatives[i] = derivative(weightedInputs[i]);
+        }
+    }
+
+    /**
+     * Multiplies gradients[offset .. offset + length) with respect to the activations by the derivatives, in place,
+     * giving the gradients with respect to the weighted inputs. The inputs are the same as for {@link #derivatives}.
+     */
+    default void multiplyDerivatives(double[] weightedInputs, double[] activations, double[] gradients, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            gradients[i] *= derivative(weightedInputs[i]);
+        }
+    }
+
+    /**
+     * {@link #multiplyDerivatives} for a batch of rows * rowLength values starting at index 0, see {@link #activateRows}.
+     */
+    default void multiplyDerivativesRows(double[] weightedInputs, double[] activations, double[] gradients, int rows, int rowLength) {
+        multiplyDerivatives(weightedInputs, activations, gradients, 0, rows * rowLength);
+    }
 }
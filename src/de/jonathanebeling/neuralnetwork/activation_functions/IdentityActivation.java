@@ -0,0 +1,40 @@
+package de.jonathanebeling.neuralnetwork.activation_functions;
+
+import java.io.Serial;
+import java.util.Arrays;
+
+/**
+ * Passes the weighted inputs through unchanged, e.g. for pooling layers or a linear output layer.
+ */
+public class IdentityActivation implements ActivationFunction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public double activation(double weightedInput) {
+        return weightedInput;
+    }
+
+    @Override
+    public double derivative(double weightedInput) {
+        return 1;
+    }
+
+    @Override
+    public void activate(double[] weightedInputs, double[] activations, int offset, int length) {
+        if (weightedInputs != activations) {
+            System.arraycopy(weightedInputs, offset, activations, offset, length);
+        }
+    }
+
+    @Override
+    public void derivatives(double[] weightedInputs, double[] activations, double[] derivatives, int offset, int length) {
+        Arrays.fill(derivatives, offset, offset + length, 1);
+    }
+
+    @Override
+    public void multiplyDerivatives(double[] weightedInputs, double[] activations, double[] gradients, int offset, int length) {
+        // Die Ableitung ist überall 1
+    }
+}
@@ -1,13 +1,35 @@
 package de.jonathanebeling.neuralnetwork.activation_functions;
 
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
 public class ReLuActivation implements ActivationFunction{
+
+    private static final double NEGATIVE_SLOPE = 0.01;
+
     @Override
     public double activation(double weightedInput) {
-        return weightedInput > 0 ? weightedInput : 0.01 * weightedInput;
+        return weightedInput > 0 ? weightedInput : NEGATIVE_SLOPE * weightedInput;
     }
 
     @Override
     public double derivative(double weightedInput) {
-        return weightedInput > 0 ? 1 : 0.01;
+        return weightedInput > 0 ? 1 : NEGATIVE_SLOPE;
+    }
+
+    @Override
+    public void activate(double[] weightedInputs, double[] activations, int offset, int length) {
+        MathUtils.getKernels().leakyReLu(weightedInputs, activations, offset, length, NEGATIVE_SLOPE);
+    }
+
+    @Override
+    public void derivatives(double[] weightedInputs, double[] activations, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            derivatives[i] = weightedInputs[i] > 0 ? 1 : NEGATIVE_SLOPE;
+        }
+    }
+
+    @Override
+    public void multiplyDerivatives(double[] weightedInputs, double[] activations, double[] gradients, int offset, int length) {
+        MathUtils.getKernels().multiplyLeakyReLuDerivative(weightedInputs, gradients, offset, length, NEGATIVE_SLOPE);
     }
 }
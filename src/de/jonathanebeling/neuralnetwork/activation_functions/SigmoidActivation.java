@@ -1,5 +1,7 @@
 package de.jonathanebeling.neuralnetwork.activation_functions;
 
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
 public class SigmoidActivation implements ActivationFunction {
 
 
@@ -13,4 +15,25 @@ public class SigmoidActivation implements ActivationFunction {
         double activation = activation(weightedInput);
         return activation * (1 - activation);
     }
+
+    @Override
+    public void activate(double[] weightedInputs, double[] activations, int offset, int length) {
+        MathUtils.getKernels().sigmoid(weightedInputs, activations, offset, length);
+    }
+
+    /**
+     * Computes the derivatives from the activations as a * (1 - a), without evaluating exp again.
+     */
+    @Override
+    public void derivatives(double[] weightedInputs, double[] activations, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            double activation = activations[i];
+            derivatives[i] = activation * (1 - activation);
+        }
+    }
+
+    @Override
+    public void multiplyDerivatives(double[] weightedInputs, double[] activations, double[] gradients, int offset, int length) {
+        MathUtils.getKernels().multiplySigmoidDerivative(activations, gradients, offset, length);
+    }
 }
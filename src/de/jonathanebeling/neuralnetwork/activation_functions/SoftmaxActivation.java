@@ -0,0 +1,81 @@
+package de.jonathanebeling.neuralnetwork.activation_functions;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.Serial;
+
+/**
+ * Normalizes the weighted inputs of each data point to probabilities that sum up to 1, usually in the output layer of
+ * a classifier. Every activation depends on the whole row, so backpropagation goes through the full Jacobian in
+ * {@link #multiplyDerivatives}, which also trains hidden softmax layers and softmax with any cost function. Paired with
+ * {@link de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost} the output node values are simply p - y,
+ * see {@link de.jonathanebeling.neuralnetwork.network.LayerTrainingInstance}.
+ */
+public class SoftmaxActivation implements ActivationFunction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Softmax of a row that only holds this weighted input, which is always 1.
+     */
+    @Override
+    public double activation(double weightedInput) {
+        return 1;
+    }
+
+    /**
+     * Derivative of the softmax of a row that only holds this weighted input, which is always 0.
+     */
+    @Override
+    public double derivative(double weightedInput) {
+        return 0;
+    }
+
+    /**
+     * Treats weightedInputs[offset .. offset + length) as a single row.
+     */
+    @Override
+    public void activate(double[] weightedInputs, double[] activations, int offset, int length) {
+        MathUtils.getKernels().softmax(weightedInputs, activations, offset, length);
+    }
+
+    @Override
+    public void activateRows(double[] weightedInputs, double[] activations, int rows, int rowLength) {
+        for (int row = 0; row < rows; row++) {
+            MathUtils.getKernels().softmax(weightedInputs, activations, row * rowLength, rowLength);
+        }
+    }
+
+    /**
+     * Stores the diagonal of the Jacobian, p * (1 - p), computed from the activations. The other entries are not
+     * zero, so backpropagation has to use the exact {@link #multiplyDerivatives}.
+     */
+    @Override
+    public void derivatives(double[] weightedInputs, double[] activations, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            double activation = activations[i];
+            derivatives[i] = activation * (1 - activation);
+        }
+    }
+
+    /**
+     * Multiplies the gradients of the single row [offset, offset + length) by its Jacobian:
+     * g[i] = p[i] * (g[i] - sum(p[j] * g[j])).
+     */
+    @Override
+    public void multiplyDerivatives(double[] weightedInputs, double[] activations, double[] gradients, int offset, int length) {
+        double weightedSum = MathUtils.getKernels().dot(activations, offset, gradients, offset, length);
+
+        for (int i = offset; i < offset + length; i++) {
+            gradients[i] = activations[i] * (gradients[i] - weightedSum);
+        }
+    }
+
+    @Override
+    public void multiplyDerivativesRows(double[] weightedInputs, double[] activations, double[] gradients, int rows, int rowLength) {
+        for (int row = 0; row < rows; row++) {
+            multiplyDerivatives(weightedInputs, activations, gradients, row * rowLength, rowLength);
+        }
+    }
+}
@@ -11,13 +11,33 @@ public interface CostFunction extends Serializable {
     double derivative(double outputActivation, double expectedActivation);
 
     default double dataPointCost(DataPoint dataPoint, double[] outputs){
+        return dataPointCost(outputs, dataPoint.getExpectedOutputActivation(), 0, outputs.length);
+    }
+
+    /**
+     * Cost of a single data point whose outputs are stored as one row of a batch.
+     *
+     * @param offset Index of the first output of the data point in both arrays.
+     * @param length Number of outputs of the data point.
+     */
+    default double dataPointCost(double[] outputs, double[] expectedOutputs, int offset, int length){
 
         double cost = 0;
 
-        for (int nodeOut = 0; nodeOut < outputs.length; nodeOut++) {
-            cost += cost(outputs[nodeOut], dataPoint.getExpectedOutputActivation()[nodeOut]);
+        for (int nodeOut = offset; nodeOut < offset + length; nodeOut++) {
+            cost += cost(outputs[nodeOut], expectedOutputs[nodeOut]);
         }
 
         return cost;
     }
+
+    /**
+     * Stores the derivatives of the cost with respect to outputs[offset .. offset + length) in the same range of
+     * derivatives, which may be the outputs array.
+     */
+    default void derivatives(double[] outputs, double[] expectedOutputs, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            derivatives[i] = derivative(outputs[i], expectedOutputs[i]);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package de.jonathanebeling.neuralnetwork.cost_functions;
+
+import java.io.Serial;
+
+/**
+ * Categorical cross-entropy -sum(y * ln(p)) for one-hot expected outputs, meant for a
+ * {@link de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation} output layer. Together they form one
+ * fused step whose gradient with respect to the weighted inputs is p - y, so the element-wise derivative is only used
+ * with other output activations.
+ */
+public class CrossEntropyCost implements CostFunction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Untergrenze der Wahrscheinlichkeit, damit ln(0) nicht unendlich wird
+    private static final double MIN_PROBABILITY = 1e-15;
+
+    @Override
+    public double cost(double outputActivation, double expectedActivation) {
+        if (expectedActivation == 0) return 0;
+        return -expectedActivation * Math.log(Math.max(outputActivation, MIN_PROBABILITY));
+    }
+
+    @Override
+    public double derivative(double outputActivation, double expectedActivation) {
+        return -expectedActivation / Math.max(outputActivation, MIN_PROBABILITY);
+    }
+
+    @Override
+    public void derivatives(double[] outputs, double[] expectedOutputs, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            derivatives[i] = -expectedOutputs[i] / Math.max(outputs[i], MIN_PROBABILITY);
+        }
+    }
+}
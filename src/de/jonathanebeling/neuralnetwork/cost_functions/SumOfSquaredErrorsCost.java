@@ -13,4 +13,11 @@ public class SumOfSquaredErrorsCost implements CostFunction {
     public double derivative(double outputActivation, double expectedActivation) {
         return 2 * (outputActivation - expectedActivation);
     }
+
+    @Override
+    public void derivatives(double[] outputs, double[] expectedOutputs, double[] derivatives, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            derivatives[i] = 2 * (outputs[i] - expectedOutputs[i]);
+        }
+    }
 }
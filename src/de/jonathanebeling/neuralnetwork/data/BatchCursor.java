@@ -0,0 +1,44 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+/**
+ * Walks through the current epoch of a {@link DataSource} batch by batch. The last batch may be smaller than the batch size.
+ * A cursor is not thread-safe, use one per thread.
+ */
+public class BatchCursor {
+
+    private final DataSource source;
+    private final int batchSize;
+    private int position = 0;
+
+    public BatchCursor(DataSource source, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive!");
+        }
+
+        this.source = source;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Fills the batch with the next data points.
+     *
+     * @return False if the epoch is exhausted, the batch is not changed then.
+     */
+    public boolean next(MiniBatch batch) {
+        if (position >= source.size()) return false;
+
+        int to = Math.min(position + batchSize, source.size());
+        source.fillBatch(position, to, batch);
+        position = to;
+
+        return true;
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,231 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+import de.jonathanebeling.neuralnetwork.metrics.TrainingMetrics;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingPhase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the upcoming batches of a {@link DataSource}, including the augmentation, on background threads while the
+ * current batches are trained on. The batches are kept in a fixed pool of prefetch depth buffers: a producer waits
+ * until the trainer has released the buffer it needs, so at most prefetch depth batches exist at any time.
+ * Batches are handed out in their order within the epoch, no matter which producer filled them first.
+ */
+public class BatchPrefetcher implements AutoCloseable {
+
+    private final DataSource source;
+    private final int batchSize;
+    private final int producerCount;
+    private final ExecutorService producers;
+    private final TrainingMetrics metrics;
+
+    // Batch i wird immer in Slot i % Tiefe gefüllt
+    private final MiniBatch[] slots;
+    // Index des Batches, mit dem ein Slot als Nächstes gefüllt werden darf
+    private final int[] freeFor;
+    // Index des Batches, den ein Slot fertig gefüllt enthält, -1 wenn keiner
+    private final int[] readyWith;
+
+    private final AtomicInteger nextToFill = new AtomicInteger();
+    private final Future<?>[] running;
+    private int batchCount = 0;
+    private int nextToTake = 0;
+
+    private long waitNanos = 0;
+    private RuntimeException failure;
+    // Die Producer der laufenden Epoche sollen aufhören, z.B. nach einem Fehler oder vor der nächsten Epoche
+    private boolean aborted = false;
+    private boolean closed = false;
+
+    /**
+     * @param prefetchDepth Number of batch buffers, i.e. how many batches may be filled ahead or trained on at once.
+     * @param producerCount Number of threads filling batches.
+     */
+    public BatchPrefetcher(DataSource source, int batchSize, int prefetchDepth, int producerCount) {
+        this(source, batchSize, prefetchDepth, producerCount, new TrainingMetrics());
+    }
+
+    /**
+     * @param metrics Metrics the fill times and the waits for batches are recorded in.
+     */
+    public BatchPrefetcher(DataSource source, int batchSize, int prefetchDepth, int producerCount, TrainingMetrics metrics) {
+        if (prefetchDepth <= 0 || producerCount <= 0) {
+            throw new IllegalArgumentException("Prefetch depth and number of producers must be positive!");
+        }
+
+        this.source = source;
+        this.batchSize = batchSize;
+        this.producerCount = producerCount;
+        this.metrics = metrics;
+
+        slots = new MiniBatch[prefetchDepth];
+        for (int i = 0; i < prefetchDepth; i++) {
+            slots[i] = source.createBatch(batchSize);
+        }
+        freeFor = new int[prefetchDepth];
+        readyWith = new int[prefetchDepth];
+        running = new Future<?>[producerCount];
+
+        producers = Executors.newFixedThreadPool(producerCount, runnable -> {
+            Thread thread = new Thread(runnable, "batch-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts filling the first batchCount batches of the current epoch of the source. The order of the calls for every
+     * epoch is {@link #stopEpoch()}, then {@link DataSource#startEpoch()}, then this method, because the producers of
+     * the previous epoch read the order of the source while they fill batches.
+     */
+    public void startEpoch(int batchCount) {
+        stopEpoch();
+
+        synchronized (this) {
+            this.batchCount = batchCount;
+            nextToTake = 0;
+            waitNanos = 0;
+            failure = null;
+            aborted = false;
+            nextToFill.set(0);
+            for (int slot = 0; slot < slots.length; slot++) {
+                freeFor[slot] = slot;
+                readyWith[slot] = -1;
+            }
+        }
+
+        for (int i = 0; i < producerCount; i++) {
+            running[i] = producers.submit(this::produce);
+        }
+    }
+
+    /**
+     * Stops the producers of the current epoch, batches that are not filled yet are not filled anymore.
+     * Waiting {@link #take()} calls fail.
+     */
+    public synchronized void abortEpoch() {
+        aborted = true;
+        notifyAll();
+    }
+
+    /**
+     * Stops the producers of the current epoch and waits until none of them is filling a batch anymore, so the source
+     * may start its next epoch. An epoch that was aborted, e.g. by a failed batch or a failed training step, does not
+     * block the next one.
+     */
+    public void stopEpoch() {
+        abortEpoch();
+        awaitProducers();
+    }
+
+    private void awaitProducers() {
+        for (int i = 0; i < running.length; i++) {
+            if (running[i] == null) continue;
+            try {
+                running[i].get();
+            } catch (InterruptedException e) {
+                // Eine neue Epoche darf nicht neben noch laufenden Producern starten
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the producers of the last epoch", e);
+            } catch (Exception ignored) {
+                // Fehler wurden bereits in failure gemeldet
+            }
+            running[i] = null;
+        }
+    }
+
+    private void produce() {
+        try {
+            int index;
+            while ((index = nextToFill.getAndIncrement()) < batchCount) {
+                int slot = index % slots.length;
+
+                synchronized (this) {
+                    while (freeFor[slot] != index && !closed && !aborted) wait();
+                    if (closed || aborted) return;
+                }
+
+                int from = index * batchSize;
+                long startNanos = System.nanoTime();
+                source.fillBatch(from, Math.min(from + batchSize, source.size()), slots[slot]);
+                metrics.record(TrainingPhase.DATA_PREPARATION, System.nanoTime() - startNanos);
+
+                synchronized (this) {
+                    readyWith[slot] = index;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                if (failure == null) failure = e;
+                // Die übrigen Producer warten sonst auf Slots, die nie mehr freigegeben werden
+                aborted = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next batch of the epoch. The batch has to be given back with {@link #release} once it is not needed anymore.
+     *
+     * @return The next batch, or null if all batches of the epoch have been taken.
+     */
+    public synchronized MiniBatch take() throws InterruptedException {
+        if (nextToTake >= batchCount) return null;
+
+        int slot = nextToTake % slots.length;
+        long startNanos = System.nanoTime();
+        while (readyWith[slot] != nextToTake) {
+            if (failure != null) throw new IllegalStateException("Filling a batch failed", failure);
+            if (aborted) throw new IllegalStateException("Epoch was aborted");
+            if (closed) throw new IllegalStateException("Prefetcher is closed");
+            wait();
+        }
+        long waited = System.nanoTime() - startNanos;
+        waitNanos += waited;
+        metrics.record(TrainingPhase.DATA_WAIT, waited);
+
+        readyWith[slot] = -1;
+        nextToTake++;
+        return slots[slot];
+    }
+
+    /**
+     * Gives a batch returned by {@link #take()} back to the pool, so it can be filled with a later batch.
+     */
+    public synchronized void release(MiniBatch batch) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] == batch) {
+                freeFor[slot] += slots.length;
+                notifyAll();
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Batch does not belong to this prefetcher!");
+    }
+
+    /**
+     * @return The total time in milliseconds {@link #take()} had to wait for batches in the current epoch.
+     */
+    public synchronized double getWaitMillis() {
+        return waitNanos / 1_000_000.0;
+    }
+
+    public int getPrefetchDepth() {
+        return slots.length;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        producers.shutdownNow();
+    }
+}
@@ -0,0 +1,143 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Labeled images stored as raw unsigned bytes. All pixels are kept in one contiguous buffer, sample i occupies
+ * pixels[i * sampleSize .. (i + 1) * sampleSize), and the labels in one byte buffer. Pixels are normalized to [0, 1]
+ * only when they are copied into a batch, which needs an eighth of the memory of {@link DataPoint}s.
+ * The buffers may be memory mapped files, see {@link MnistDataReader#mapCompactData}, then the data is not held in the heap at all.
+ */
+public class CompactDataSet {
+
+    private static final double[] NORMALIZED_PIXELS = new double[256];
+
+    static {
+        for (int i = 0; i < NORMALIZED_PIXELS.length; i++) {
+            NORMALIZED_PIXELS[i] = i / 255.0;
+        }
+    }
+
+    private final ByteBuffer pixels;
+    private final ByteBuffer labels;
+    private final int sampleSize;
+    private final int labelCount;
+
+    /**
+     * @param pixels     Unsigned pixel values of all samples, sample after sample.
+     * @param labels     Label of every sample.
+     * @param sampleSize Number of pixels per sample.
+     * @param labelCount Number of different labels, i.e. the size of the expected output activation.
+     */
+    public CompactDataSet(byte[] pixels, byte[] labels, int sampleSize, int labelCount) {
+        this(ByteBuffer.wrap(pixels), ByteBuffer.wrap(labels), sampleSize, labelCount);
+    }
+
+    /**
+     * @param pixels     Unsigned pixel values of all samples, sample after sample, from position 0 to the limit of the buffer.
+     * @param labels     Label of every sample, from position 0 to the limit of the buffer.
+     * @param sampleSize Number of pixels per sample.
+     * @param labelCount Number of different labels, i.e. the size of the expected output activation.
+     */
+    public CompactDataSet(ByteBuffer pixels, ByteBuffer labels, int sampleSize, int labelCount) {
+        if ((long) labels.limit() * sampleSize != pixels.limit()) {
+            throw new IllegalArgumentException("Number of pixels does not match number of labels times sample size!");
+        }
+
+        // Nur absolute Zugriffe, daher können mehrere Threads gleichzeitig lesen
+        this.pixels = pixels.asReadOnlyBuffer();
+        this.labels = labels.asReadOnlyBuffer();
+        this.sampleSize = sampleSize;
+        this.labelCount = labelCount;
+    }
+
+    public int size() {
+        return labels.limit();
+    }
+
+    public int getLabel(int index) {
+        return labels.get(index) & 0xFF;
+    }
+
+    public int getPixel(int index, int pixel) {
+        return pixels.get(index * sampleSize + pixel) & 0xFF;
+    }
+
+    /**
+     * Writes the normalized pixels of a sample to target[offset .. offset + sampleSize).
+     */
+    public void copyInputActivation(int index, double[] target, int offset) {
+        int start = index * sampleSize;
+        for (int i = 0; i < sampleSize; i++) {
+            target[offset + i] = NORMALIZED_PIXELS[pixels.get(start + i) & 0xFF];
+        }
+    }
+
+    /**
+     * Writes the one-hot expected output of a sample to target[offset .. offset + labelCount).
+     */
+    public void copyExpectedOutputActivation(int index, double[] target, int offset) {
+        Arrays.fill(target, offset, offset + labelCount, 0);
+        target[offset + getLabel(index)] = 1;
+    }
+
+    /**
+     * Fills the batch with the samples indices[from] (inclusive) to indices[to] (exclusive).
+     */
+    public void fillBatch(int[] indices, int from, int to, MiniBatch batch) {
+        batch.setSize(to - from);
+
+        for (int row = 0; row < to - from; row++) {
+            copyInputActivation(indices[from + row], batch.getInputs(), row * sampleSize);
+            copyExpectedOutputActivation(indices[from + row], batch.getExpectedOutputs(), row * labelCount);
+        }
+    }
+
+    public DataPoint toDataPoint(int index) {
+        double[] inputActivation = new double[sampleSize];
+        double[] expectedOutputActivation = new double[labelCount];
+
+        copyInputActivation(index, inputActivation, 0);
+        copyExpectedOutputActivation(index, expectedOutputActivation, 0);
+
+        return new DataPoint(inputActivation, expectedOutputActivation);
+    }
+
+    /**
+     * @return All samples as separate {@link DataPoint}s, for code that still needs them.
+     */
+    public DataPoint[] toDataPoints() {
+        DataPoint[] dataPoints = new DataPoint[size()];
+        for (int i = 0; i < dataPoints.length; i++) {
+            dataPoints[i] = toDataPoint(i);
+        }
+        return dataPoints;
+    }
+
+    public MiniBatch createBatch(int capacity) {
+        return new MiniBatch(sampleSize, labelCount, capacity);
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getLabelCount() {
+        return labelCount;
+    }
+
+    /**
+     * @return A read-only view of the pixels of all samples.
+     */
+    public ByteBuffer getPixels() {
+        return pixels.duplicate();
+    }
+
+    /**
+     * @return A read-only view of the labels of all samples.
+     */
+    public ByteBuffer getLabels() {
+        return labels.duplicate();
+    }
+}
@@ -0,0 +1,131 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * {@link DataSource} over a range of a {@link CompactDataSet}. Only the sample order is stored per epoch, the samples
+ * themselves are decoded straight into the batches. Together with {@link MnistDataReader#mapCompactData} this trains
+ * from disk with memory bounded by the batch buffers.
+ */
+public class CompactDataSource implements DataSource {
+
+    private final CompactDataSet dataSet;
+    private final int[] indices;
+    private final Random random;
+
+    // Unveränderte Samples, bevor sie augmentiert in den Batch geschrieben werden
+    private final ThreadLocal<double[]> sampleBuffers;
+
+    private boolean shuffle = false;
+    private ImageAugmenter augmenter;
+    private long epochSeed;
+
+    public CompactDataSource(CompactDataSet dataSet) {
+        this(dataSet, 0, dataSet.size());
+    }
+
+    /**
+     * Uses the samples from index from (inclusive) to index to (exclusive), e.g. to split off validation data.
+     */
+    public CompactDataSource(CompactDataSet dataSet, int from, int to) {
+        this(dataSet, from, to, new Random());
+    }
+
+    /**
+     * @param seed Seed for shuffling the samples, for reproducible training runs.
+     */
+    public CompactDataSource(CompactDataSet dataSet, int from, int to, long seed) {
+        this(dataSet, from, to, new Random(seed));
+    }
+
+    private CompactDataSource(CompactDataSet dataSet, int from, int to, Random random) {
+        if (from < 0 || to > dataSet.size() || from > to) {
+            throw new IllegalArgumentException("Range " + from + " to " + to + " out of bounds for " + dataSet.size() + " samples!");
+        }
+
+        this.dataSet = dataSet;
+        this.random = random;
+        this.sampleBuffers = ThreadLocal.withInitial(() -> new double[dataSet.getSampleSize()]);
+
+        indices = new int[to - from];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = from + i;
+        }
+    }
+
+    @Override
+    public int size() {
+        return indices.length;
+    }
+
+    @Override
+    public int getInputSize() {
+        return dataSet.getSampleSize();
+    }
+
+    @Override
+    public int getOutputSize() {
+        return dataSet.getLabelCount();
+    }
+
+    @Override
+    public void startEpoch() {
+        // Ohne Augmenter wird kein Seed gezogen, damit die Reihenfolge bei gleichem Seed dieselbe bleibt
+        if (augmenter != null) epochSeed = random.nextLong();
+        if (!shuffle) return;
+
+        // Fisher-Yates auf den Indizes, die Samples selbst werden nicht bewegt
+        for (int i = indices.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int index = indices[i];
+            indices[i] = indices[j];
+            indices[j] = index;
+        }
+    }
+
+    @Override
+    public void fillBatch(int from, int to, MiniBatch batch) {
+        if (augmenter == null) {
+            dataSet.fillBatch(indices, from, to, batch);
+            return;
+        }
+
+        batch.setSize(to - from);
+        SplittableRandom batchRandom = new SplittableRandom(epochSeed + from * 0x9E3779B97F4A7C15L);
+        double[] sample = sampleBuffers.get();
+        int sampleSize = dataSet.getSampleSize();
+
+        for (int row = 0; row < to - from; row++) {
+            dataSet.copyInputActivation(indices[from + row], sample, 0);
+            augmenter.augment(sample, 0, batch.getInputs(), row * sampleSize, batchRandom);
+            dataSet.copyExpectedOutputActivation(indices[from + row], batch.getExpectedOutputs(), row * dataSet.getLabelCount());
+        }
+    }
+
+    /**
+     * @param shuffle Whether every epoch visits the samples in a new random order.
+     */
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    /**
+     * @param augmenter Augmentation applied to every sample copied into a batch, or null for none.
+     *                  The random values only depend on the epoch and the position of the batch.
+     */
+    public void setAugmenter(ImageAugmenter augmenter) {
+        if (augmenter != null && augmenter.getPixelCount() != dataSet.getSampleSize()) {
+            throw new IllegalArgumentException("Image size of the augmenter does not match the sample size of the data set!");
+        }
+        this.augmenter = augmenter;
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public CompactDataSet getDataSet() {
+        return dataSet;
+    }
+}
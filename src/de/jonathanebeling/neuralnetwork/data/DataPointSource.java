@@ -0,0 +1,37 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+/**
+ * {@link DataSource} over an array of {@link DataPoint}s in a fixed order, e.g. validation or test data.
+ */
+public class DataPointSource implements DataSource {
+
+    private final DataPoint[] dataPoints;
+
+    public DataPointSource(DataPoint[] dataPoints) {
+        this.dataPoints = dataPoints;
+    }
+
+    @Override
+    public int size() {
+        return dataPoints.length;
+    }
+
+    @Override
+    public int getInputSize() {
+        return dataPoints.length == 0 ? 0 : dataPoints[0].getInputActivation().length;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return dataPoints.length == 0 ? 0 : dataPoints[0].getExpectedOutputActivation().length;
+    }
+
+    @Override
+    public void startEpoch() {
+    }
+
+    @Override
+    public void fillBatch(int from, int to, MiniBatch batch) {
+        batch.fill(dataPoints, from, to);
+    }
+}
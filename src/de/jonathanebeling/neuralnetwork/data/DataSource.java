@@ -0,0 +1,41 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+/**
+ * Source of training or validation data that hands out mini batches instead of the whole data set, so the data does
+ * not have to be held in the heap as {@link DataPoint}s.
+ * An epoch is started with {@link #startEpoch()}, afterwards the batches of the epoch can be filled in any order and
+ * from several threads at once.
+ */
+public interface DataSource {
+
+    /**
+     * @return The number of data points per epoch.
+     */
+    int size();
+
+    int getInputSize();
+
+    int getOutputSize();
+
+    /**
+     * Prepares the order of the data points for the next epoch, e.g. shuffles them.
+     * Must not be called while batches of the current epoch are filled.
+     */
+    void startEpoch();
+
+    /**
+     * Fills the batch with the data points from position from (inclusive) to position to (exclusive) of the current epoch.
+     */
+    void fillBatch(int from, int to, MiniBatch batch);
+
+    default MiniBatch createBatch(int capacity) {
+        return new MiniBatch(getInputSize(), getOutputSize(), capacity);
+    }
+
+    /**
+     * @return A cursor over the current epoch that fills one batch of batchSize data points after the other.
+     */
+    default BatchCursor batches(int batchSize) {
+        return new BatchCursor(this, batchSize);
+    }
+}
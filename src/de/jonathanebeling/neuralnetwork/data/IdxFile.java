@@ -0,0 +1,182 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only view of an IDX file with unsigned byte data, like the MNIST image and label files.
+ * Uncompressed files are memory mapped, so opening them does not read the data. Files ending with ".gz" are
+ * decompressed by streaming them once into memory. The first dimension counts the samples, the product of
+ * the remaining dimensions is the size of one sample.
+ */
+public class IdxFile {
+
+    // Magic number: zwei Null-Bytes, Datentyp (0x08 = unsigned byte) und Anzahl der Dimensionen
+    private static final int UNSIGNED_BYTE_TYPE = 0x08;
+
+    private final Path path;
+    private final int[] dimensions;
+    private final int sampleSize;
+    private final ByteBuffer data;
+
+    private IdxFile(Path path, int[] dimensions, ByteBuffer data) {
+        this.path = path;
+        this.dimensions = dimensions;
+        this.data = data;
+
+        int size = 1;
+        for (int i = 1; i < dimensions.length; i++) {
+            size *= dimensions[i];
+        }
+        this.sampleSize = size;
+    }
+
+    /**
+     * Opens an IDX file and validates its header.
+     *
+     * @param expectedDimensions Number of dimensions the file must have, e.g. 3 for images and 1 for labels.
+     */
+    public static IdxFile open(String filePath, int expectedDimensions) throws IOException {
+        Path path = Path.of(filePath);
+
+        if (filePath.endsWith(".gz")) {
+            return readCompressed(path, expectedDimensions);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long headerSize = 4 + 4L * expectedDimensions;
+            if (fileSize < headerSize) {
+                throw new IOException(path + ": file too short for an IDX header");
+            }
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize);
+            int[] dimensions = readHeader(path, header.getInt(), header, expectedDimensions);
+
+            long dataSize = dataSize(dimensions);
+            if (fileSize != headerSize + dataSize) {
+                throw new IOException(path + ": expected " + (headerSize + dataSize) + " bytes but file has " + fileSize);
+            }
+            if (dataSize > Integer.MAX_VALUE) {
+                throw new IOException(path + ": data larger than 2 GB can not be mapped");
+            }
+
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, headerSize, dataSize);
+            return new IdxFile(path, dimensions, data);
+        }
+    }
+
+    private static IdxFile readCompressed(Path path, int expectedDimensions) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), 1 << 16)))) {
+            ByteBuffer header = ByteBuffer.allocate(4 * expectedDimensions);
+            int magicNumber = input.readInt();
+            input.readFully(header.array());
+
+            int[] dimensions = readHeader(path, magicNumber, header, expectedDimensions);
+            long dataSize = dataSize(dimensions);
+            if (dataSize > Integer.MAX_VALUE) {
+                throw new IOException(path + ": data larger than 2 GB can not be loaded");
+            }
+
+            byte[] data = new byte[(int) dataSize];
+            input.readFully(data);
+            if (readsMore(input)) {
+                throw new IOException(path + ": more data than announced in the header");
+            }
+
+            return new IdxFile(path, dimensions, ByteBuffer.wrap(data).asReadOnlyBuffer());
+        }
+    }
+
+    private static int[] readHeader(Path path, int magicNumber, ByteBuffer header, int expectedDimensions) throws IOException {
+        if ((magicNumber >>> 16) != 0 || ((magicNumber >>> 8) & 0xFF) != UNSIGNED_BYTE_TYPE) {
+            throw new IOException(path + ": not an unsigned byte IDX file, magic number " + Integer.toHexString(magicNumber));
+        }
+        if ((magicNumber & 0xFF) != expectedDimensions) {
+            throw new IOException(path + ": expected " + expectedDimensions + " dimensions but found " + (magicNumber & 0xFF));
+        }
+
+        int[] dimensions = new int[expectedDimensions];
+        for (int i = 0; i < expectedDimensions; i++) {
+            dimensions[i] = header.getInt();
+            if (dimensions[i] < 0) {
+                throw new IOException(path + ": negative size of dimension " + i);
+            }
+        }
+        return dimensions;
+    }
+
+    private static long dataSize(int[] dimensions) {
+        long size = 1;
+        for (int dimension : dimensions) {
+            size *= dimension;
+        }
+        return size;
+    }
+
+    private static boolean readsMore(InputStream input) throws IOException {
+        return input.read() != -1;
+    }
+
+    /**
+     * @return The number of samples, i.e. the size of the first dimension.
+     */
+    public int getCount() {
+        return dimensions[0];
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int[] getDimensions() {
+        return dimensions.clone();
+    }
+
+    /**
+     * @return The unsigned value at position index of sample sample.
+     */
+    public int getUnsigned(int sample, int index) {
+        return data.get(sample * sampleSize + index) & 0xFF;
+    }
+
+    /**
+     * @return A read-only view of the bytes of one sample, no data is copied.
+     */
+    public ByteBuffer sample(int sample) {
+        return data.slice(sample * sampleSize, sampleSize);
+    }
+
+    /**
+     * Copies the bytes of the samples from index from (inclusive) to index to (exclusive) into target, starting at offset.
+     * Safe to call from several threads at once.
+     */
+    public void copySamples(int from, int to, byte[] target, int offset) {
+        data.get(from * sampleSize, target, offset, (to - from) * sampleSize);
+    }
+
+    /**
+     * @return A read-only view of the data of all samples without the header, no data is copied.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path + " " + Arrays.toString(dimensions);
+    }
+}
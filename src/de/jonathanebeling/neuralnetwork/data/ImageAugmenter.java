@@ -0,0 +1,123 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+import java.util.SplittableRandom;
+
+/**
+ * Augments square or rectangular images stored row by row in flat arrays. Rotation around the image center and
+ * translation are combined into one affine transform, whose sine and cosine are computed once per image. Every output
+ * pixel is sampled from the source with bilinear interpolation, pixels outside the source are 0, and the noise is
+ * added in the same pass. The source is only read, the result is written into a separate target array.
+ * An instance holds no mutable state and can be shared between threads, each thread passes its own random generator.
+ */
+public class ImageAugmenter {
+
+    private final int width;
+    private final int height;
+    private final double maxRotationRadians;
+    private final double maxTranslation;
+    private final double noiseFactor;
+
+    /**
+     * @param maxRotationAngle The maximum angle (in degrees) for rotation. Rotations will be in the range [-maxRotationAngle, maxRotationAngle].
+     * @param maxTranslation   The maximum number of pixels to shift in any direction. Translations will be in the range [-maxTranslation, maxTranslation].
+     * @param noiseFactor      Standard deviation of the gaussian noise, lower than 0.1 for small noise and bigger than 0.1 for big noise.
+     */
+    public ImageAugmenter(int width, int height, double maxRotationAngle, double maxTranslation, double noiseFactor) {
+        this.width = width;
+        this.height = height;
+        this.maxRotationRadians = Math.toRadians(maxRotationAngle);
+        this.maxTranslation = maxTranslation;
+        this.noiseFactor = noiseFactor;
+    }
+
+    /**
+     * Augments one image with a random rotation, translation and noise drawn from random.
+     */
+    public void augment(double[] source, int sourceOffset, double[] target, int targetOffset, SplittableRandom random) {
+        double angle = maxRotationRadians == 0 ? 0 : random.nextDouble(-maxRotationRadians, maxRotationRadians);
+        double translateX = maxTranslation == 0 ? 0 : random.nextDouble(-maxTranslation, maxTranslation);
+        double translateY = maxTranslation == 0 ? 0 : random.nextDouble(-maxTranslation, maxTranslation);
+
+        transform(source, sourceOffset, target, targetOffset, angle, translateX, translateY, noiseFactor, random);
+    }
+
+    /**
+     * Writes the image rotated by angle (in radians) and shifted by translateX and translateY pixels to target.
+     * Output pixel (x, y) is sampled at the source position rotate(x + translateX, y + translateY) around the center.
+     *
+     * @param random Generator for the noise, may be null if noiseFactor is 0.
+     */
+    public void transform(double[] source, int sourceOffset, double[] target, int targetOffset,
+                          double angle, double translateX, double translateY, double noiseFactor, SplittableRandom random) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double centerX = (width - 1) / 2.0;
+        double centerY = (height - 1) / 2.0;
+
+        boolean identity = angle == 0 && translateX == 0 && translateY == 0;
+
+        for (int y = 0; y < height; y++) {
+            // Quellposition des ersten Pixels der Zeile, danach wächst sie pro Pixel um (cos, sin)
+            double relativeX = translateX - centerX;
+            double relativeY = y + translateY - centerY;
+            double sourceX = relativeX * cos - relativeY * sin + centerX;
+            double sourceY = relativeX * sin + relativeY * cos + centerY;
+
+            int row = targetOffset + y * width;
+            for (int x = 0; x < width; x++) {
+                double value = identity ? source[sourceOffset + y * width + x] : sample(source, sourceOffset, sourceX, sourceY);
+
+                if (noiseFactor != 0) {
+                    value = Math.min(1, Math.max(0, value + random.nextGaussian() * noiseFactor));
+                }
+
+                target[row + x] = value;
+                sourceX += cos;
+                sourceY += sin;
+            }
+        }
+    }
+
+    /**
+     * Bilinear interpolation of the four source pixels around (x, y), pixels outside the image count as 0.
+     */
+    private double sample(double[] source, int offset, double x, double y) {
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+
+        if (x0 < -1 || x0 >= width || y0 < -1 || y0 >= height) return 0;
+
+        double fractionX = x - x0;
+        double fractionY = y - y0;
+
+        double topLeft, topRight, bottomLeft, bottomRight;
+        if (x0 >= 0 && x0 + 1 < width && y0 >= 0 && y0 + 1 < height) {
+            int index = offset + y0 * width + x0;
+            topLeft = source[index];
+            topRight = source[index + 1];
+            bottomLeft = source[index + width];
+            bottomRight = source[index + width + 1];
+        } else {
+            topLeft = pixel(source, offset, x0, y0);
+            topRight = pixel(source, offset, x0 + 1, y0);
+            bottomLeft = pixel(source, offset, x0, y0 + 1);
+            bottomRight = pixel(source, offset, x0 + 1, y0 + 1);
+        }
+
+        double top = topLeft + (topRight - topLeft) * fractionX;
+        double bottom = bottomLeft + (bottomRight - bottomLeft) * fractionX;
+        return top + (bottom - top) * fractionY;
+    }
+
+    private double pixel(double[] source, int offset, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return 0;
+        return source[offset + y * width + x];
+    }
+
+    /**
+     * @return The number of pixels of an image, i.e. the length of one image in the flat arrays.
+     */
+    int getPixelCount() {
+        return width * height;
+    }
+}
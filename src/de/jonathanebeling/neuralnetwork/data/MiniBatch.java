@@ -0,0 +1,78 @@
+package de.jonathanebeling.neuralnetwork.data;
+
+/**
+ * Reusable buffer holding the inputs and expected outputs of a mini batch as flat, row-major matrices with one row
+ * per data point. The buffers grow to the largest batch size they have been used with and are never shrunk.
+ */
+public class MiniBatch {
+
+    private final int inputSize;
+    private final int outputSize;
+
+    private double[] inputs;
+    private double[] expectedOutputs;
+    private int size = 0;
+
+    public MiniBatch(int inputSize, int outputSize, int capacity) {
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+
+        inputs = new double[capacity * inputSize];
+        expectedOutputs = new double[capacity * outputSize];
+    }
+
+    /**
+     * Sets the number of data points in this batch, growing the buffers if necessary. The content of the rows is undefined afterwards.
+     */
+    public void setSize(int size) {
+        if (size * inputSize > inputs.length) {
+            inputs = new double[size * inputSize];
+            expectedOutputs = new double[size * outputSize];
+        }
+        this.size = size;
+    }
+
+    public void setDataPoint(int row, DataPoint dataPoint) {
+        System.arraycopy(dataPoint.getInputActivation(), 0, inputs, row * inputSize, inputSize);
+        System.arraycopy(dataPoint.getExpectedOutputActivation(), 0, expectedOutputs, row * outputSize, outputSize);
+    }
+
+    /**
+     * Fills this batch with the data points from index from (inclusive) to index to (exclusive).
+     */
+    public void fill(DataPoint[] dataPoints, int from, int to) {
+        setSize(to - from);
+        for (int i = from; i < to; i++) {
+            setDataPoint(i - from, dataPoints[i]);
+        }
+    }
+
+    /**
+     * Fills this batch with copies of the rows from index from (inclusive) to index to (exclusive) of another batch.
+     */
+    public void copyRows(MiniBatch source, int from, int to) {
+        setSize(to - from);
+        System.arraycopy(source.inputs, from * inputSize, inputs, 0, (to - from) * inputSize);
+        System.arraycopy(source.expectedOutputs, from * outputSize, expectedOutputs, 0, (to - from) * outputSize);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public double[] getInputs() {
+        return inputs;
+    }
+
+    public double[] getExpectedOutputs() {
+        return expectedOutputs;
+    }
+}
@@ -1,43 +1,105 @@
 package de.jonathanebeling.neuralnetwork.data;
 
-import java.io.*;
+import java.io.IOException;
+import java.util.stream.IntStream;
 
+/**
+ * Reads MNIST image and label files in the IDX format, uncompressed (memory mapped) or gzipped (".gz").
+ * Decoding into training buffers runs in parallel over chunks of samples.
+ */
 public class MnistDataReader  {
 
+    private static final int LABEL_COUNT = 10;
+    private static final int CHUNK_SIZE = 1024;
+
     public DataPoint[] readData(String dataFilePath, String labelFilePath) throws IOException {
+        IdxFile images = openImages(dataFilePath);
+        IdxFile labels = openLabels(labelFilePath, images);
 
-        DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(dataFilePath)));
-        int magicNumber = dataInputStream.readInt();
-        int numberOfItems = dataInputStream.readInt();
-        int nRows = dataInputStream.readInt();
-        int nCols = dataInputStream.readInt();
+        int numberOfItems = images.getCount();
+        int sampleSize = images.getSampleSize();
+        DataPoint[] data = new DataPoint[numberOfItems];
 
-        System.out.println("Amount of items found: " + numberOfItems);
+        forEachChunk(numberOfItems, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] inputActivation = new double[sampleSize];
+                for (int pixel = 0; pixel < sampleSize; pixel++) {
+                    inputActivation[pixel] = (double) images.getUnsigned(i, pixel) / 255;
+                }
+                data[i] = new DataPoint(inputActivation, labels.getUnsigned(i, 0));
+            }
+        });
 
-        DataInputStream labelInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(labelFilePath)));
-        int labelMagicNumber = labelInputStream.readInt();
-        int numberOfLabels = labelInputStream.readInt();
+        return data;
+    }
 
-        System.out.println("Amount of labels found: " + numberOfLabels);
-        System.out.println(" ");
+    /**
+     * Reads the images and labels into a {@link CompactDataSet} that keeps the raw pixel bytes instead of normalized doubles.
+     */
+    public CompactDataSet readCompactData(String dataFilePath, String labelFilePath) throws IOException {
+        IdxFile images = openImages(dataFilePath);
+        IdxFile labels = openLabels(labelFilePath, images);
 
+        int numberOfItems = images.getCount();
+        int sampleSize = images.getSampleSize();
+        byte[] pixels = new byte[numberOfItems * sampleSize];
+        byte[] labelBytes = new byte[numberOfItems];
 
-        DataPoint[] data = new DataPoint[numberOfItems];
+        forEachChunk(numberOfItems, (from, to) -> {
+            images.copySamples(from, to, pixels, from * sampleSize);
+            labels.copySamples(from, to, labelBytes, from);
+        });
 
-        assert numberOfItems == numberOfLabels;
+        return new CompactDataSet(pixels, labelBytes, sampleSize, LABEL_COUNT);
+    }
 
-        for(int i = 0; i < numberOfItems; i++) {
+    /**
+     * Creates a {@link CompactDataSet} directly on top of the image and label files without copying them into the heap.
+     * Uncompressed files stay memory mapped, so the operating system pages the samples in and out as they are used
+     * and data sets larger than the heap can be trained on.
+     */
+    public CompactDataSet mapCompactData(String dataFilePath, String labelFilePath) throws IOException {
+        IdxFile images = openImages(dataFilePath);
+        IdxFile labels = openLabels(labelFilePath, images);
 
-            double[] inputActivation = new double[nRows*nCols];
-            for (int r = 0; r < nRows; r++) {
-                for (int c = 0; c < nCols; c++) {
-                    inputActivation[r*nCols + c] = ((double) dataInputStream.readUnsignedByte() /255);
-                }
+        return new CompactDataSet(images.getData(), labels.getData(), images.getSampleSize(), LABEL_COUNT);
+    }
+
+    private IdxFile openImages(String dataFilePath) throws IOException {
+        IdxFile images = IdxFile.open(dataFilePath, 3);
+        System.out.println("Amount of items found: " + images.getCount());
+        return images;
+    }
+
+    private IdxFile openLabels(String labelFilePath, IdxFile images) throws IOException {
+        IdxFile labels = IdxFile.open(labelFilePath, 1);
+
+        System.out.println("Amount of labels found: " + labels.getCount());
+        System.out.println(" ");
+
+        if (labels.getCount() != images.getCount()) {
+            throw new IOException("Number of items (" + images.getCount() + ") does not match number of labels (" + labels.getCount() + ")!");
+        }
+
+        for (int i = 0; i < labels.getCount(); i++) {
+            if (labels.getUnsigned(i, 0) >= LABEL_COUNT) {
+                throw new IOException(labels.getPath() + ": label " + labels.getUnsigned(i, 0) + " of item " + i + " out of range!");
             }
-            data[i] = new DataPoint(inputActivation, labelInputStream.readUnsignedByte());
         }
-        dataInputStream.close();
-        labelInputStream.close();
-        return data;
+
+        return labels;
+    }
+
+    private interface ChunkDecoder {
+        void decode(int from, int to);
+    }
+
+    private void forEachChunk(int count, ChunkDecoder decoder) {
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            decoder.decode(from, Math.min(from + CHUNK_SIZE, count));
+        });
     }
-}
\ No newline at end of file
+}
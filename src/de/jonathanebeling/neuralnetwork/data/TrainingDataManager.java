@@ -5,14 +5,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.SplittableRandom;
 
-import static de.jonathanebeling.neuralnetwork.utils.MathUtils.from1dTo2d;
-import static de.jonathanebeling.neuralnetwork.utils.MathUtils.from2dTo1d;
-
-public class TrainingDataManager {
+/**
+ * In-memory {@link DataSource} of {@link DataPoint}s that splits off validation data, shuffles the training data at the
+ * start of every epoch and augments it with an {@link ImageAugmenter} while the batches are filled.
+ */
+public class TrainingDataManager implements DataSource {
 
     private final DataPoint[] totalData;
 
@@ -28,11 +27,30 @@ public class TrainingDataManager {
     private int maxRandomTrainingDataTranslation = 0;
     private double trainingDataNoiseFactor = 0;
 
+    private final Random random;
+    private long epochSeed;
+    private ImageAugmenter augmenter;
+
     /**
      * @param totalData                DataPoints to be used for training and perhaps part of it for cross validation.
      * @param validationDataPercentage Percentage of data to be used not for training but for cross validation. Set as 0 for no cross validation. Must be lower than 1.
      */
     public TrainingDataManager(DataPoint[] totalData, double validationDataPercentage) {
+        this(totalData, validationDataPercentage, new Random());
+    }
+
+    /**
+     * @param totalData                DataPoints to be used for training and perhaps part of it for cross validation.
+     * @param validationDataPercentage Percentage of data to be used not for training but for cross validation. Set as 0 for no cross validation. Must be lower than 1.
+     * @param seed                     Seed for shuffling and augmenting the data, for reproducible training runs.
+     */
+    public TrainingDataManager(DataPoint[] totalData, double validationDataPercentage, long seed) {
+        this(totalData, validationDataPercentage, new Random(seed));
+    }
+
+    private TrainingDataManager(DataPoint[] totalData, double validationDataPercentage, Random random) {
+        this.random = random;
+
         totalData = shuffleData(totalData);
         this.totalData = totalData;
         this.validationDataPercentage = validationDataPercentage;
@@ -57,79 +75,98 @@ public class TrainingDataManager {
         resetTrainingsData();
     }
 
-    public void resetTrainingsData() {
-
-        DataPoint[] dataPoints = shuffleData(unmodifiedTrainingData, shuffleTrainingsData);
-        if (maxRandomTrainingDataRotationAngle != 0) rotateDataPoints(dataPoints, maxRandomTrainingDataRotationAngle);
-        if (maxRandomTrainingDataTranslation != 0) translateDataPoints(dataPoints, maxRandomTrainingDataTranslation);
-        if (trainingDataNoiseFactor != 0) addRandomNoise(dataPoints, trainingDataNoiseFactor);
-
-        trainingData = dataPoints;
-    }
-
-    public void setTrainingDataNoiseFactor(double trainingDataNoiseFactor) {
-        this.trainingDataNoiseFactor = trainingDataNoiseFactor;
+    @Override
+    public int size() {
+        return trainingData.length;
     }
 
-    public void setMaxRandomTrainingDataTranslation(int maxRandomTrainingDataTranslation) {
-        this.maxRandomTrainingDataTranslation = maxRandomTrainingDataTranslation;
+    @Override
+    public int getInputSize() {
+        return unmodifiedTrainingData[0].getInputActivation().length;
     }
 
-    public void setMaxRandomTrainingDataRotationAngle(double maxRandomTrainingDataRotationAnlge) {
-        this.maxRandomTrainingDataRotationAngle = maxRandomTrainingDataRotationAnlge;
+    @Override
+    public int getOutputSize() {
+        return unmodifiedTrainingData[0].getExpectedOutputActivation().length;
     }
 
-    public void setShuffleTrainingsData(boolean shuffleTrainingsData) {
-        this.shuffleTrainingsData = shuffleTrainingsData;
+    @Override
+    public void startEpoch() {
+        resetTrainingsData();
     }
 
     /**
-     *
-     * @param noiseFactor Lower than 0.1 for small noise and bigger than 0.1 for big noise
+     * Fills the batch and augments the inputs while copying them. The random values only depend on the epoch and the
+     * position of the batch, so batches filled by several threads in any order are reproducible. The data points are not changed.
      */
-    private void addRandomNoise(DataPoint[] dataPoints, double noiseFactor){
-
-        System.out.println("Adding noise to training data with a noise factor of: " + noiseFactor);
-
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        try (ExecutorService executor = Executors.newFixedThreadPool(numThreads)) {
-
-            int chunkSize = (int) Math.ceil((double) dataPoints.length / numThreads);
-            for (int thread = 0; thread < numThreads; thread++) {
-
-                int start = thread * chunkSize;
-                int end = Math.min(start + chunkSize, dataPoints.length);
+    @Override
+    public void fillBatch(int from, int to, MiniBatch batch) {
+        ImageAugmenter augmenter = this.augmenter;
+        if (augmenter == null) {
+            batch.fill(trainingData, from, to);
+            return;
+        }
 
-                executor.submit(() -> {
-                    Random random = new Random();
+        batch.setSize(to - from);
+        SplittableRandom batchRandom = new SplittableRandom(epochSeed + from * 0x9E3779B97F4A7C15L);
+        int inputSize = batch.getInputSize();
+        int outputSize = batch.getOutputSize();
 
-                    for (int i = start; i < end; i++){
-                        DataPoint dataPoint = dataPoints[i];
+        for (int row = 0; row < to - from; row++) {
+            DataPoint dataPoint = trainingData[from + row];
+            augmenter.augment(dataPoint.getInputActivation(), 0, batch.getInputs(), row * inputSize, batchRandom);
+            System.arraycopy(dataPoint.getExpectedOutputActivation(), 0, batch.getExpectedOutputs(), row * outputSize, outputSize);
+        }
+    }
 
-                        double[] inputActivation = dataPoint.getInputActivation();
+    /**
+     * @return The validation data as a {@link DataSource}, without copying it.
+     */
+    public DataSource getValidationSource() {
+        return new DataPointSource(validationData);
+    }
 
-                        for (int j = 0; j < inputActivation.length; j++) {
-                            double noise = random.nextGaussian() * noiseFactor;
-                            inputActivation[j] = Math.min(1, Math.max(0, inputActivation[j] + noise));
-                        }
+    /**
+     * Shuffles the training data for the next epoch. The augmentation is not applied here but to every batch in
+     * {@link #fillBatch}, so it can run in the background while the network trains.
+     */
+    public void resetTrainingsData() {
+        trainingData = shuffleData(unmodifiedTrainingData, shuffleTrainingsData);
+        epochSeed = random.nextLong();
+        augmenter = createAugmenter();
+    }
 
-                        dataPoint.setInputActivation(inputActivation);
-                    }
-                });
+    private ImageAugmenter createAugmenter() {
+        if (maxRandomTrainingDataRotationAngle == 0 && maxRandomTrainingDataTranslation == 0 && trainingDataNoiseFactor == 0) return null;
 
-            }
+        int inputSize = getInputSize();
+        int size = (int) Math.sqrt(inputSize); // Assuming input data is square (e.g., 28x28).
 
-            executor.shutdown();
-            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        if (size * size != inputSize) {
+            throw new IllegalArgumentException("Input activation data is not square.");
         }
 
+        return new ImageAugmenter(size, size, maxRandomTrainingDataRotationAngle, maxRandomTrainingDataTranslation, trainingDataNoiseFactor);
+    }
 
+    /**
+     * @param trainingDataNoiseFactor Lower than 0.1 for small noise and bigger than 0.1 for big noise
+     */
+    public void setTrainingDataNoiseFactor(double trainingDataNoiseFactor) {
+        this.trainingDataNoiseFactor = trainingDataNoiseFactor;
     }
 
+    public void setMaxRandomTrainingDataTranslation(int maxRandomTrainingDataTranslation) {
+        this.maxRandomTrainingDataTranslation = maxRandomTrainingDataTranslation;
+    }
 
+    public void setMaxRandomTrainingDataRotationAngle(double maxRandomTrainingDataRotationAnlge) {
+        this.maxRandomTrainingDataRotationAngle = maxRandomTrainingDataRotationAnlge;
+    }
 
+    public void setShuffleTrainingsData(boolean shuffleTrainingsData) {
+        this.shuffleTrainingsData = shuffleTrainingsData;
+    }
 
     public void setTestData(DataPoint[] testData) {
         this.testData = testData;
@@ -139,7 +176,7 @@ public class TrainingDataManager {
         System.out.println("Shuffling data");
 
         List<DataPoint> list = Arrays.asList(dataPoints);
-        Collections.shuffle(list);
+        Collections.shuffle(list, random);
 
         return list.toArray(new DataPoint[0]);
     }
@@ -171,6 +208,9 @@ public class TrainingDataManager {
         return dataManager;
     }
 
+    /**
+     * @return The training data in the order of the current epoch, without augmentation.
+     */
     public DataPoint[] getTrainingData() {
         return trainingData.clone();
     }
@@ -220,152 +260,4 @@ public class TrainingDataManager {
         return (validationData.length != 0);
     }
 
-    /**
-     * Rotates the training data input activations by a random angle within the specified range.
-     *
-     * @param maxRotationAngle The maximum angle (in degrees) for rotation. Rotations will be in the range [-maxRotationAngle, maxRotationAngle].
-     */
-    private void rotateDataPoints(DataPoint[] dataPoints, double maxRotationAngle) {
-        System.out.println("Rotating training data with a maximum rotation angle of: " + maxRotationAngle + " degrees");
-
-        Random random = new Random();
-        double maxAngleRadians = Math.toRadians(maxRotationAngle);
-
-        for (DataPoint dataPoint : dataPoints) {
-            double[] inputActivation = dataPoint.getInputActivation();
-            int size = (int) Math.sqrt(inputActivation.length); // Assuming input data is square (e.g., 28x28).
-
-            if (size * size != inputActivation.length) {
-                throw new IllegalArgumentException("Input activation data is not square.");
-            }
-
-            // Convert the flat array to a 2D array for easier rotation.
-            double[][] image = from1dTo2d(inputActivation, size, size);
-
-            // Generate a random angle in radians.
-            double angle = (random.nextDouble() * 2 - 1) * maxAngleRadians;
-
-            // Rotate the image and flatten it back.
-            double[][] rotatedImage = rotateImage(image, angle);
-            double[] rotatedInputActivation = from2dTo1d(rotatedImage);
-
-            // Update the DataPoint with the rotated activations.
-            dataPoint.setInputActivation(rotatedInputActivation);
-        }
-    }
-
-    /**
-     * Rotates a 2D array (image) by the specified angle.
-     *
-     * @param image The 2D array representing the image.
-     * @param angle The angle in radians to rotate the image.
-     * @return The rotated 2D array.
-     */
-    private double[][] rotateImage(double[][] image, double angle) {
-        int size = image.length;
-        double[][] rotatedImage = new double[size][size];
-        int centerX = size / 2;
-        int centerY = size / 2;
-
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                // Calculate coordinates relative to the center.
-                int relativeX = x - centerX;
-                int relativeY = y - centerY;
-
-                // Apply rotation transformation.
-                int newX = (int) Math.round(relativeX * Math.cos(angle) - relativeY * Math.sin(angle)) + centerX;
-                int newY = (int) Math.round(relativeX * Math.sin(angle) + relativeY * Math.cos(angle)) + centerY;
-
-                // Check bounds and assign the value if valid.
-                if (newX >= 0 && newX < size && newY >= 0 && newY < size) {
-                    rotatedImage[y][x] = image[newY][newX];
-                } else {
-                    rotatedImage[y][x] = 0.0; // Fill out-of-bounds with a default value (e.g., 0).
-                }
-            }
-        }
-
-        return rotatedImage;
-    }
-
-    /**
-     * Translates the training data input activations by a random number of pixels within the specified range.
-     *
-     * @param maxTranslation The maximum number of pixels to shift in any direction. Translations will be in the range [-maxTranslation, maxTranslation].
-     */
-    private void translateDataPoints(DataPoint[] dataPoints, int maxTranslation) {
-        System.out.println("Translating training data with a maximum translation of: " + maxTranslation + " pixels");
-
-        Random random = new Random();
-
-        int debug = 0;
-
-        for (DataPoint dataPoint : unmodifiedTrainingData) {
-            double[] inputActivation = dataPoint.getInputActivation();
-            int size = (int) Math.sqrt(inputActivation.length); // Assuming input data is square (e.g., 28x28).
-
-            if (size * size != inputActivation.length) {
-                throw new IllegalArgumentException("Input activation data is not square.");
-            }
-
-            // Convert the flat array to a 2D array for easier manipulation.
-            double[][] image = from1dTo2d(inputActivation, size, size);
-
-            // Generate random translations for x and y.
-            int translateX = random.nextInt(2 * maxTranslation) - maxTranslation;
-            int translateY = random.nextInt(2 * maxTranslation) - maxTranslation;
-
-
-            // Translate the image and flatten it back.
-
-            double[][] translatedImage = image;
-            try {
-                translatedImage = translateImage(image, translateX, translateY);
-            }catch (RuntimeException exception){
-                exception.printStackTrace();
-            }
-            double[] translatedInputActivation = from2dTo1d(translatedImage);
-
-            // Update the DataPoint with the translated activations.
-            dataPoint.setInputActivation(translatedInputActivation);
-
-
-            debug++;
-        }
-    }
-
-    /**
-     * Translates a 2D array (image) by the specified number of pixels in x and y directions.
-     *
-     * @param image The 2D array representing the image.
-     * @param translateX The number of pixels to shift in the x direction.
-     * @param translateY The number of pixels to shift in the y direction.
-     * @return The translated 2D array.
-     */
-    public double[][] translateImage(double[][] image, int translateX, int translateY) {
-        int size = image.length;
-        double[][] translatedImage = new double[size][size];
-
-
-        for (int y = 0; y < size; y++) {
-
-            for (int x = 0; x < size; x++) {
-
-                int newX = x + translateX;
-                int newY = y + translateY;
-
-
-                // Check bounds and assign the value if valid.
-                if (newX >= 0 && newX < size && newY >= 0 && newY < size) {
-                    translatedImage[y][x] = image[newY][newX];
-                } else {
-                    translatedImage[y][x] = 0.0; // Fill out-of-bounds with a default value (e.g., 0).
-                }
-            }
-        }
-
-        return translatedImage;
-    }
-
 }
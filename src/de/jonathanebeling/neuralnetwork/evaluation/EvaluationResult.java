@@ -0,0 +1,130 @@
+package de.jonathanebeling.neuralnetwork.evaluation;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+/**
+ * Metrics of a network on a labeled data set. The label of a data point is the index of its largest expected output,
+ * the prediction the index of the largest output of the network.
+ */
+public class EvaluationResult {
+
+    private final int count;
+    private final double loss;
+    private final int correct;
+    private final int topK;
+    private final int topKCorrect;
+
+    // confusionMatrix[expected][predicted]
+    private final int[][] confusionMatrix;
+
+    EvaluationResult(int count, double totalCost, int correct, int topK, int topKCorrect, int[][] confusionMatrix) {
+        this.count = count;
+        this.loss = count == 0 ? 0 : totalCost / count;
+        this.correct = correct;
+        this.topK = topK;
+        this.topKCorrect = topKCorrect;
+        this.confusionMatrix = confusionMatrix;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The average cost per data point.
+     */
+    public double getLoss() {
+        return loss;
+    }
+
+    public int getCorrect() {
+        return correct;
+    }
+
+    public int getWrong() {
+        return count - correct;
+    }
+
+    public double getAccuracy() {
+        return count == 0 ? 0 : (double) correct / count;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * @return The share of data points whose label is among the top k outputs of the network.
+     */
+    public double getTopKAccuracy() {
+        return count == 0 ? 0 : (double) topKCorrect / count;
+    }
+
+    public int getClassCount() {
+        return confusionMatrix.length;
+    }
+
+    /**
+     * @return How many data points with label expected were predicted as predicted.
+     */
+    public int getConfusion(int expected, int predicted) {
+        return confusionMatrix[expected][predicted];
+    }
+
+    /**
+     * @return A copy of the confusion matrix, indexed by [expected][predicted].
+     */
+    public int[][] getConfusionMatrix() {
+        int[][] copy = new int[confusionMatrix.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = confusionMatrix[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * @return The share of predictions of the class that were correct, 0 if it was never predicted.
+     */
+    public double getPrecision(int label) {
+        int predicted = 0;
+        for (int[] row : confusionMatrix) {
+            predicted += row[label];
+        }
+        return predicted == 0 ? 0 : (double) confusionMatrix[label][label] / predicted;
+    }
+
+    /**
+     * @return The share of data points of the class that were predicted correctly, 0 if there are none.
+     */
+    public double getRecall(int label) {
+        int expected = 0;
+        for (int value : confusionMatrix[label]) {
+            expected += value;
+        }
+        return expected == 0 ? 0 : (double) confusionMatrix[label][label] / expected;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Loss: ").append(MathUtils.roundDecimalPoints(loss, 4)).append('\n');
+        builder.append("Number of wrong identifications: ").append(getWrong()).append('/').append(count).append('\n');
+        builder.append("Correct percentage: ").append(MathUtils.roundDecimalPoints(getAccuracy() * 100, 3)).append("%\n");
+        builder.append("Top ").append(topK).append(" percentage: ").append(MathUtils.roundDecimalPoints(getTopKAccuracy() * 100, 3)).append("%\n");
+
+        builder.append("Class  Precision  Recall\n");
+        for (int label = 0; label < confusionMatrix.length; label++) {
+            builder.append(String.format("%5d  %9.3f  %6.3f%n", label, getPrecision(label), getRecall(label)));
+        }
+
+        builder.append("Confusion matrix (rows: expected, columns: predicted):\n");
+        for (int[] row : confusionMatrix) {
+            for (int value : row) {
+                builder.append(String.format("%6d", value));
+            }
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,186 @@
+package de.jonathanebeling.neuralnetwork.evaluation;
+
+import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.data.DataPointSource;
+import de.jonathanebeling.neuralnetwork.data.DataSource;
+import de.jonathanebeling.neuralnetwork.data.MiniBatch;
+import de.jonathanebeling.neuralnetwork.inference.InferenceModel;
+import de.jonathanebeling.neuralnetwork.inference.Predictor;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes loss, accuracy, top-k accuracy and the confusion matrix of a network in a single pass over the data.
+ * The data is split recursively into ranges that are evaluated in parallel with fork/join, every range is run through
+ * the model batch by batch. A network is compiled to an {@link InferenceModel} first, so it may be trained again
+ * as soon as the evaluator is created.
+ */
+public class Evaluator {
+
+    // Größe der Bereiche, die nicht weiter geteilt werden, und zugleich der Batches
+    private static final int BATCH_SIZE = 256;
+    private static final int DEFAULT_TOP_K = 3;
+
+    private final Predictor predictor;
+    private final CostFunction costFunction;
+    private final int topK;
+    private final ForkJoinPool pool;
+
+    // Jeder Thread rechnet mit seinen eigenen, wiederverwendeten Puffern
+    private final ThreadLocal<MiniBatch> batches;
+    private final ThreadLocal<double[]> outputs;
+
+    public Evaluator(NeuralNetwork network) {
+        this(network, DEFAULT_TOP_K, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param topK Number of largest outputs that count for the top k accuracy.
+     * @param pool Pool the evaluation runs in.
+     */
+    public Evaluator(NeuralNetwork network, int topK, ForkJoinPool pool) {
+        this(InferenceModel.compile(network), network.getCostFunction(), topK, pool);
+    }
+
+    /**
+     * @param costFunction Cost function the loss is calculated with.
+     */
+    public Evaluator(Predictor predictor, CostFunction costFunction) {
+        this(predictor, costFunction, DEFAULT_TOP_K, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param costFunction Cost function the loss is calculated with.
+     * @param topK         Number of largest outputs that count for the top k accuracy.
+     * @param pool         Pool the evaluation runs in.
+     */
+    public Evaluator(Predictor predictor, CostFunction costFunction, int topK, ForkJoinPool pool) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("k must be positive!");
+        }
+
+        this.predictor = predictor;
+        this.costFunction = costFunction;
+        this.topK = topK;
+        this.pool = pool;
+
+        int inputSize = predictor.getInputSize();
+        int outputSize = predictor.getOutputSize();
+        batches = ThreadLocal.withInitial(() -> new MiniBatch(inputSize, outputSize, BATCH_SIZE));
+        outputs = ThreadLocal.withInitial(() -> new double[BATCH_SIZE * outputSize]);
+    }
+
+    public EvaluationResult evaluate(DataPoint[] dataPoints) {
+        return evaluate(new DataPointSource(dataPoints));
+    }
+
+    public EvaluationResult evaluate(DataSource data) {
+        if (data.getInputSize() != predictor.getInputSize() || data.getOutputSize() != predictor.getOutputSize()) {
+            throw new IllegalArgumentException("Data does not match the input and output size of the model!");
+        }
+
+        int classCount = data.getOutputSize();
+        if (data.size() == 0) {
+            return new EvaluationResult(0, 0, 0, topK, 0, new int[classCount][classCount]);
+        }
+
+        Counts counts = pool.invoke(new EvaluationTask(data, 0, data.size()));
+
+        int[][] confusionMatrix = new int[classCount][classCount];
+        for (int expected = 0; expected < classCount; expected++) {
+            System.arraycopy(counts.confusion, expected * classCount, confusionMatrix[expected], 0, classCount);
+        }
+
+        return new EvaluationResult(data.size(), counts.cost, counts.correct, topK, counts.topKCorrect, confusionMatrix);
+    }
+
+    /**
+     * Partial results of a range of data points.
+     */
+    private static class Counts {
+        private double cost;
+        private int correct;
+        private int topKCorrect;
+        private final int[] confusion;
+
+        private Counts(int classCount) {
+            confusion = new int[classCount * classCount];
+        }
+
+        private Counts add(Counts other) {
+            cost += other.cost;
+            correct += other.correct;
+            topKCorrect += other.topKCorrect;
+            for (int i = 0; i < confusion.length; i++) {
+                confusion[i] += other.confusion[i];
+            }
+            return this;
+        }
+    }
+
+    private class EvaluationTask extends RecursiveTask<Counts> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // Tasks werden nur innerhalb des Pools weitergegeben, nie serialisiert
+        private final transient DataSource data;
+        private final transient int from;
+        private final transient int to;
+
+        private EvaluationTask(DataSource data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from <= BATCH_SIZE) {
+                return evaluateRange(data, from, to);
+            }
+
+            // Auf Batch-Grenzen teilen, damit nur der letzte Batch unvollständig ist
+            int batchCount = (to - from + BATCH_SIZE - 1) / BATCH_SIZE;
+            int middle = from + batchCount / 2 * BATCH_SIZE;
+            EvaluationTask left = new EvaluationTask(data, from, middle);
+            left.fork();
+            Counts right = new EvaluationTask(data, middle, to).compute();
+            return left.join().add(right);
+        }
+    }
+
+    private Counts evaluateRange(DataSource data, int from, int to) {
+        int classCount = data.getOutputSize();
+        Counts counts = new Counts(classCount);
+
+        MiniBatch batch = batches.get();
+        data.fillBatch(from, to, batch);
+
+        double[] outputs = this.outputs.get();
+        predictor.predict(batch.getInputs(), outputs, batch.getSize());
+        double[] expectedOutputs = batch.getExpectedOutputs();
+
+        for (int row = 0; row < batch.getSize(); row++) {
+            int offset = row * classCount;
+
+            int expected = MathUtils.argMax(expectedOutputs, offset, classCount);
+            int predicted = MathUtils.argMax(outputs, offset, classCount);
+
+            counts.cost += costFunction.dataPointCost(outputs, expectedOutputs, offset, classCount);
+            counts.confusion[expected * classCount + predicted]++;
+            if (expected == predicted) counts.correct++;
+            if (MathUtils.isInTopK(outputs, offset, classCount, expected, topK)) counts.topKCorrect++;
+        }
+
+        return counts;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+}
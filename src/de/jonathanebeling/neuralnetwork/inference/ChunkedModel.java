@@ -0,0 +1,145 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+/**
+ * Base of the models that run batches through a chain of layers in chunks of {@link #CHUNK_SIZE} data points:
+ * every weight matrix is read once per chunk, and the activation function is applied to the output of a chunk
+ * directly after its product, while it is still in the cache. Intermediate activations live in buffers of the
+ * calling thread, so predictions do not allocate once a thread has seen its largest batch.
+ */
+abstract class ChunkedModel implements Predictor {
+
+    static final int CHUNK_SIZE = 64;
+
+    private final int inputSize;
+    private final int outputSize;
+    private final int stageCount;
+    private final int maxWidth;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Buffers of one thread, grown to the largest chunk the thread has seen.
+     */
+    private static final class Workspace {
+        private final double[] output;
+        private double[] first = new double[0];
+        private double[] second = new double[0];
+
+        private Workspace(int outputSize) {
+            output = new double[outputSize];
+        }
+
+        private void ensureCapacity(int size) {
+            if (first.length >= size) return;
+            first = new double[size];
+            second = new double[size];
+        }
+    }
+
+    /**
+     * @param layerSizes The number of nodes of every layer, including the input layer.
+     */
+    ChunkedModel(int[] layerSizes) {
+        inputSize = layerSizes[0];
+        outputSize = layerSizes[layerSizes.length - 1];
+        stageCount = layerSizes.length - 1;
+
+        int width = 0;
+        for (int size : layerSizes) {
+            width = Math.max(width, size);
+        }
+        maxWidth = width;
+
+        workspaces = ThreadLocal.withInitial(() -> new Workspace(outputSize));
+    }
+
+    /**
+     * Calculates the activations of one layer for a chunk.
+     *
+     * @param inputs  Input activations of the chunk, one row per data point.
+     * @param outputs Target array for the activations of the chunk, one row per data point.
+     */
+    abstract void forward(int stage, double[] inputs, double[] outputs, int rows);
+
+    @Override
+    public void predict(double[] inputs, double[] outputs, int batchSize) {
+        checkArguments(inputs, outputs, batchSize);
+
+        Workspace workspace = workspaces.get();
+        workspace.ensureCapacity(Math.min(batchSize, CHUNK_SIZE) * maxWidth);
+
+        for (int from = 0; from < batchSize; from += CHUNK_SIZE) {
+            predictChunk(inputs, outputs, from, Math.min(CHUNK_SIZE, batchSize - from), workspace);
+        }
+    }
+
+    private void predictChunk(double[] inputs, double[] outputs, int from, int rows, Workspace workspace) {
+        // Der erste Chunk liest und schreibt direkt in die Arrays des Aufrufers, alle weiteren über die Puffer
+        double[] current = inputs;
+        if (from != 0) {
+            System.arraycopy(inputs, from * inputSize, workspace.first, 0, rows * inputSize);
+            current = workspace.first;
+        }
+
+        for (int stage = 0; stage < stageCount; stage++) {
+            double[] target;
+            if (stage == stageCount - 1 && from == 0) {
+                target = outputs;
+            } else {
+                target = current == workspace.first ? workspace.second : workspace.first;
+            }
+
+            forward(stage, current, target, rows);
+            current = target;
+        }
+
+        if (from != 0) {
+            System.arraycopy(current, 0, outputs, from * outputSize, rows * outputSize);
+        }
+    }
+
+    /**
+     * @return The outputs in a buffer of the calling thread that is overwritten by its next call of this method.
+     */
+    @Override
+    public double[] predict(double[] input) {
+        double[] output = workspaces.get().output;
+        predict(input, output, 1);
+        return output;
+    }
+
+    /**
+     * Checks the arguments once per call, instead of once per layer.
+     */
+    private void checkArguments(double[] inputs, double[] outputs, int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size must not be negative!");
+        }
+        if (inputs.length < (long) batchSize * inputSize) {
+            throw new IllegalArgumentException("Input array too short for " + batchSize + " rows of " + inputSize + " values!");
+        }
+        if (outputs.length < (long) batchSize * outputSize) {
+            throw new IllegalArgumentException("Output array too short for " + batchSize + " rows of " + outputSize + " values!");
+        }
+        if (inputs == outputs) {
+            throw new IllegalArgumentException("Inputs and outputs must be different arrays!");
+        }
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * @return The largest number of nodes of any layer, including the input layer.
+     */
+    int getMaxWidth() {
+        return maxWidth;
+    }
+}
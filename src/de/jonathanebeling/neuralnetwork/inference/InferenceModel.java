@@ -0,0 +1,127 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.network.Conv2DLayer;
+import de.jonathanebeling.neuralnetwork.network.FloatLayer;
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.PoolingLayer;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.IOException;
+
+/**
+ * Immutable, inference only copy of a trained {@link NeuralNetwork}. The weights are copied once when the model is
+ * compiled, so training the network afterwards does not change the model and all threads can share one instance.
+ * Batches are run through the layers in chunks, see {@link ChunkedModel}. Convolution and pooling layers are run
+ * through copies of the layers.
+ */
+public final class InferenceModel extends ChunkedModel {
+
+    private final Stage[] stages;
+
+    /**
+     * One layer with its own copy of the weights, in the precision of the source layer.
+     */
+    private static final class DenseStage implements Stage {
+        private final int nodesIn;
+        private final int nodesOut;
+        private final double[] weights;
+        private final float[] floatWeights;
+        private final double[] biases;
+        private final ActivationFunction activationFunction;
+
+        private DenseStage(Layer layer) {
+            nodesIn = layer.getNodesIn();
+            nodesOut = layer.getNodesOut();
+            biases = layer.getBiases().clone();
+            activationFunction = layer.getActivationFunction();
+
+            if (layer instanceof FloatLayer floatLayer) {
+                weights = null;
+                floatWeights = floatLayer.getFloatWeights().clone();
+            } else {
+                weights = layer.getWeights().clone();
+                floatWeights = null;
+            }
+        }
+
+        @Override
+        public void forward(double[] inputs, double[] outputs, int rows) {
+            if (floatWeights != null) {
+                MathUtils.matrixMultiplyTransposed(inputs, floatWeights, biases, outputs, rows, nodesOut, nodesIn);
+            } else {
+                MathUtils.matrixMultiplyTransposed(inputs, weights, biases, outputs, rows, nodesOut, nodesIn);
+            }
+
+            activationFunction.activateRows(outputs, outputs, rows, nodesOut);
+        }
+
+        @Override
+        public int getNodesOut() {
+            return nodesOut;
+        }
+
+        @Override
+        public long getParameterBytes() {
+            long bytes = (long) nodesOut * Double.BYTES;
+            return bytes + (floatWeights != null ? (long) floatWeights.length * Float.BYTES : (long) weights.length * Double.BYTES);
+        }
+    }
+
+    private InferenceModel(NeuralNetwork network) {
+        super(network.getNumLayers());
+
+        Layer[] layers = network.getLayers();
+        stages = new Stage[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i] instanceof Conv2DLayer || layers[i] instanceof PoolingLayer) {
+                stages[i] = new LayerStage(layers[i]);
+            } else {
+                stages[i] = new DenseStage(layers[i]);
+            }
+        }
+    }
+
+    /**
+     * Compiles a model from the current weights of the network. The network must not be trained at the same time.
+     */
+    public static InferenceModel compile(NeuralNetwork network) {
+        return new InferenceModel(network);
+    }
+
+    /**
+     * Compiles a model from a saved network, see {@link NeuralNetwork#load(String)}.
+     */
+    public static InferenceModel load(String filePath) throws IOException, ClassNotFoundException {
+        return compile(NeuralNetwork.load(filePath));
+    }
+
+    @Override
+    void forward(int stage, double[] inputs, double[] outputs, int rows) {
+        stages[stage].forward(inputs, outputs, rows);
+    }
+
+    /**
+     * @return The number of bytes of all weights and biases.
+     */
+    public long getParameterBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.getParameterBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of nodes of every layer, including the input layer.
+     */
+    public int[] getLayerSizes() {
+        int[] sizes = new int[stages.length + 1];
+        sizes[0] = getInputSize();
+        for (int i = 0; i < stages.length; i++) {
+            sizes[i + 1] = stages[i].getNodesOut();
+        }
+        return sizes;
+    }
+}
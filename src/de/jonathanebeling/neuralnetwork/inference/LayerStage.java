@@ -0,0 +1,33 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+import de.jonathanebeling.neuralnetwork.network.Layer;
+
+/**
+ * Runs a copy of a layer that has no specialized stage, e.g. a {@link de.jonathanebeling.neuralnetwork.network.Conv2DLayer}
+ * or a {@link de.jonathanebeling.neuralnetwork.network.PoolingLayer}, through its own batch implementation.
+ * The layers keep their scratch buffers per thread, so one stage can be shared by all threads.
+ */
+final class LayerStage implements Stage {
+
+    private final Layer layer;
+
+    LayerStage(Layer layer) {
+        this.layer = layer.convertToPrecision(layer.getPrecision());
+    }
+
+    @Override
+    public void forward(double[] inputs, double[] outputs, int rows) {
+        layer.calculateWeightedInputs(inputs, outputs, rows);
+        layer.getActivationFunction().activateRows(outputs, outputs, rows, layer.getNodesOut());
+    }
+
+    @Override
+    public int getNodesOut() {
+        return layer.getNodesOut();
+    }
+
+    @Override
+    public long getParameterBytes() {
+        return ((long) layer.getWeightCount() + layer.getBiasCount()) * Double.BYTES;
+    }
+}
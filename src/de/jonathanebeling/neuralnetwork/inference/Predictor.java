@@ -0,0 +1,38 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+/**
+ * Calculates the outputs of a trained model without changing any state, so one instance can be shared by all threads.
+ * Batches are stored like in {@link de.jonathanebeling.neuralnetwork.data.MiniBatch}, one row of values per data point
+ * in a flat array.
+ */
+public interface Predictor {
+
+    int getInputSize();
+
+    int getOutputSize();
+
+    /**
+     * Calculates the outputs of a whole batch.
+     *
+     * @param inputs  Input activations, one row of getInputSize() values per data point.
+     * @param outputs Target array, one row of getOutputSize() values per data point. Must not be the inputs array.
+     */
+    void predict(double[] inputs, double[] outputs, int batchSize);
+
+    /**
+     * Calculates the outputs of a single input into the given array.
+     */
+    default void predict(double[] input, double[] output) {
+        predict(input, output, 1);
+    }
+
+    /**
+     * Calculates the outputs of a single input. Implementations may return a buffer of the calling thread that is
+     * overwritten by its next call, copy the result to keep it.
+     */
+    default double[] predict(double[] input) {
+        double[] output = new double[getOutputSize()];
+        predict(input, output);
+        return output;
+    }
+}
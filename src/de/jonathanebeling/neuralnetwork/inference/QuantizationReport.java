@@ -0,0 +1,67 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+import de.jonathanebeling.neuralnetwork.evaluation.EvaluationResult;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+/**
+ * Result of {@link QuantizedInferenceModel#calibrate}: the quantized model and how it compares to the unquantized
+ * model on the same held-out data.
+ */
+public class QuantizationReport {
+
+    private final QuantizedInferenceModel model;
+    private final EvaluationResult referenceResult;
+    private final EvaluationResult quantizedResult;
+    private final long referenceBytes;
+    private final long quantizedBytes;
+
+    QuantizationReport(QuantizedInferenceModel model, EvaluationResult referenceResult, EvaluationResult quantizedResult,
+                       long referenceBytes, long quantizedBytes) {
+        this.model = model;
+        this.referenceResult = referenceResult;
+        this.quantizedResult = quantizedResult;
+        this.referenceBytes = referenceBytes;
+        this.quantizedBytes = quantizedBytes;
+    }
+
+    public QuantizedInferenceModel getModel() {
+        return model;
+    }
+
+    public EvaluationResult getReferenceResult() {
+        return referenceResult;
+    }
+
+    public EvaluationResult getQuantizedResult() {
+        return quantizedResult;
+    }
+
+    /**
+     * @return Accuracy of the quantized model minus accuracy of the unquantized model, negative if quantization lost accuracy.
+     */
+    public double getAccuracyDelta() {
+        return quantizedResult.getAccuracy() - referenceResult.getAccuracy();
+    }
+
+    public double getLossDelta() {
+        return quantizedResult.getLoss() - referenceResult.getLoss();
+    }
+
+    /**
+     * @return How many times smaller the parameters of the quantized model are.
+     */
+    public double getCompressionRatio() {
+        return (double) referenceBytes / quantizedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Accuracy: " + MathUtils.roundDecimalPoints(referenceResult.getAccuracy() * 100, 3) + "% -> "
+                + MathUtils.roundDecimalPoints(quantizedResult.getAccuracy() * 100, 3) + "% ("
+                + MathUtils.roundDecimalPoints(getAccuracyDelta() * 100, 3) + " points)\n"
+                + "Loss: " + MathUtils.roundDecimalPoints(referenceResult.getLoss(), 4) + " -> "
+                + MathUtils.roundDecimalPoints(quantizedResult.getLoss(), 4) + "\n"
+                + "Parameters: " + referenceBytes + " -> " + quantizedBytes + " bytes ("
+                + MathUtils.roundDecimalPoints(getCompressionRatio(), 2) + "x smaller)\n";
+    }
+}
@@ -0,0 +1,208 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.data.DataSource;
+import de.jonathanebeling.neuralnetwork.evaluation.EvaluationResult;
+import de.jonathanebeling.neuralnetwork.evaluation.Evaluator;
+import de.jonathanebeling.neuralnetwork.network.Conv2DLayer;
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.PoolingLayer;
+import de.jonathanebeling.neuralnetwork.utils.ArrayKernels;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Post-training int8 quantization of a trained {@link NeuralNetwork} for inference. Every row of weights is stored as
+ * bytes with its own scale, w = scale * q with q in [-127, 127], which needs an eighth of the memory of doubles.
+ * The input rows of every layer are quantized the same way on the fly, so the products are accumulated exactly
+ * with ints and only the sums are scaled back to doubles before the bias and the activation function are applied.
+ * <p>
+ * Quantization changes the outputs slightly, use {@link #calibrate(NeuralNetwork, DataSource)} to measure the effect
+ * on held-out data before serving a quantized model.
+ * <p>
+ * Only dense layers are quantized, convolution and pooling layers are run unchanged through copies of the layers.
+ */
+public final class QuantizedInferenceModel extends ChunkedModel {
+
+    private static final int MAX_QUANTIZED = 127;
+
+    private final Stage[] stages;
+
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * Quantized inputs of one thread with their scales, one row per data point of the chunk.
+     */
+    private static final class Buffers {
+        private final byte[] inputs;
+        private final double[] scales = new double[CHUNK_SIZE];
+        private final int[] sums = new int[MathUtils.ROW_BLOCK];
+
+        private Buffers(int maxWidth) {
+            inputs = new byte[CHUNK_SIZE * maxWidth];
+        }
+    }
+
+    private static final class QuantizedStage implements Stage {
+        private final int nodesIn;
+        private final int nodesOut;
+        private final byte[] weights;
+        private final double[] scales;
+        private final double[] biases;
+        private final ActivationFunction activationFunction;
+        private final ThreadLocal<Buffers> buffers;
+
+        private QuantizedStage(Layer layer, ThreadLocal<Buffers> buffers) {
+            this.buffers = buffers;
+            nodesIn = layer.getNodesIn();
+            nodesOut = layer.getNodesOut();
+            biases = layer.getBiases().clone();
+            activationFunction = layer.getActivationFunction();
+
+            double[] source = layer.getWeights();
+            weights = new byte[source.length];
+            scales = new double[nodesOut];
+            for (int out = 0; out < nodesOut; out++) {
+                scales[out] = quantizeRow(source, out * nodesIn, weights, out * nodesIn, nodesIn);
+            }
+        }
+
+        @Override
+        public void forward(double[] inputs, double[] outputs, int rows) {
+            Buffers buffers = this.buffers.get();
+            byte[] quantized = buffers.inputs;
+            double[] inputScales = buffers.scales;
+            int[] sums = buffers.sums;
+
+            for (int row = 0; row < rows; row++) {
+                inputScales[row] = quantizeRow(inputs, row * nodesIn, quantized, row * nodesIn, nodesIn);
+            }
+
+            ArrayKernels kernels = MathUtils.getKernels();
+
+            // Wie bei den double-Gewichten werden immer vier Gewichtszeilen zusammen mit allen Zeilen des Chunks multipliziert
+            int out = 0;
+            for (; out + MathUtils.ROW_BLOCK <= nodesOut; out += MathUtils.ROW_BLOCK) {
+                for (int row = 0; row < rows; row++) {
+                    Arrays.fill(sums, 0);
+                    kernels.addDot4(quantized, row * nodesIn, weights, out * nodesIn, nodesIn, nodesIn, sums, 0);
+
+                    for (int k = 0; k < MathUtils.ROW_BLOCK; k++) {
+                        outputs[row * nodesOut + out + k] = sums[k] * scales[out + k] * inputScales[row] + biases[out + k];
+                    }
+                }
+            }
+
+            // Restliche Zeilen, die keinen vollen Block mehr ergeben
+            for (; out < nodesOut; out++) {
+                for (int row = 0; row < rows; row++) {
+                    int sum = kernels.dot(weights, out * nodesIn, quantized, row * nodesIn, nodesIn);
+                    outputs[row * nodesOut + out] = sum * scales[out] * inputScales[row] + biases[out];
+                }
+            }
+
+            activationFunction.activateRows(outputs, outputs, rows, nodesOut);
+        }
+
+        @Override
+        public int getNodesOut() {
+            return nodesOut;
+        }
+
+        @Override
+        public long getParameterBytes() {
+            return weights.length + 2L * nodesOut * Double.BYTES;
+        }
+    }
+
+    private QuantizedInferenceModel(NeuralNetwork network) {
+        super(network.getNumLayers());
+
+        int maxWidth = getMaxWidth();
+        buffers = ThreadLocal.withInitial(() -> new Buffers(maxWidth));
+
+        Layer[] layers = network.getLayers();
+        stages = new Stage[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i] instanceof Conv2DLayer || layers[i] instanceof PoolingLayer) {
+                stages[i] = new LayerStage(layers[i]);
+            } else {
+                stages[i] = new QuantizedStage(layers[i], buffers);
+            }
+        }
+    }
+
+    /**
+     * Quantizes the current weights of the network. The network must not be trained at the same time.
+     */
+    public static QuantizedInferenceModel quantize(NeuralNetwork network) {
+        return new QuantizedInferenceModel(network);
+    }
+
+    /**
+     * Quantizes a saved network, see {@link NeuralNetwork#load(String)}.
+     */
+    public static QuantizedInferenceModel load(String filePath) throws IOException, ClassNotFoundException {
+        return quantize(NeuralNetwork.load(filePath));
+    }
+
+    /**
+     * Quantizes the network and evaluates it together with the unquantized model on held-out data.
+     *
+     * @param heldOut Data that was not used for training, e.g. the validation set.
+     */
+    public static QuantizationReport calibrate(NeuralNetwork network, DataSource heldOut) {
+        InferenceModel reference = InferenceModel.compile(network);
+        QuantizedInferenceModel quantized = quantize(network);
+
+        EvaluationResult referenceResult = new Evaluator(reference, network.getCostFunction()).evaluate(heldOut);
+        EvaluationResult quantizedResult = new Evaluator(quantized, network.getCostFunction()).evaluate(heldOut);
+
+        return new QuantizationReport(quantized, referenceResult, quantizedResult,
+                reference.getParameterBytes(), quantized.getParameterBytes());
+    }
+
+    /**
+     * Quantizes source[sourceOffset .. sourceOffset + length) symmetrically to target.
+     *
+     * @return The scale of the row, 0 if all values are 0.
+     */
+    private static double quantizeRow(double[] source, int sourceOffset, byte[] target, int targetOffset, int length) {
+        double maxAbs = 0;
+        for (int i = 0; i < length; i++) {
+            maxAbs = Math.max(maxAbs, Math.abs(source[sourceOffset + i]));
+        }
+
+        if (maxAbs == 0) {
+            for (int i = 0; i < length; i++) {
+                target[targetOffset + i] = 0;
+            }
+            return 0;
+        }
+
+        double inverseScale = MAX_QUANTIZED / maxAbs;
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = (byte) Math.round(source[sourceOffset + i] * inverseScale);
+        }
+        return maxAbs / MAX_QUANTIZED;
+    }
+
+    @Override
+    void forward(int stage, double[] inputs, double[] outputs, int rows) {
+        stages[stage].forward(inputs, outputs, rows);
+    }
+
+    /**
+     * @return The number of bytes of all weights, their scales and the biases.
+     */
+    public long getParameterBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.getParameterBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,19 @@
+package de.jonathanebeling.neuralnetwork.inference;
+
+/**
+ * One layer of a compiled model.
+ */
+interface Stage {
+
+    /**
+     * Calculates the activations of the layer for a chunk, see {@link ChunkedModel#forward}.
+     */
+    void forward(double[] inputs, double[] outputs, int rows);
+
+    int getNodesOut();
+
+    /**
+     * @return The number of bytes of the parameters of the layer.
+     */
+    long getParameterBytes();
+}
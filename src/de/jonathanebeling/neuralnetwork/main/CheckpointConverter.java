@@ -0,0 +1,34 @@
+package de.jonathanebeling.neuralnetwork.main;
+
+import de.jonathanebeling.neuralnetwork.network.NetworkCheckpoint;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+
+import java.io.IOException;
+
+/**
+ * Converts networks saved with Java serialization (".ser") into the binary checkpoint format (".nnc") next to them.
+ */
+public class CheckpointConverter {
+
+    private static final String DEFAULT_NETWORK_PATH = "networks/saved/one.ser";
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        String[] filePaths = args.length > 0 ? args : new String[]{DEFAULT_NETWORK_PATH};
+
+        for (String filePath : filePaths) {
+            System.out.println("Converted " + filePath + " to " + convert(filePath));
+        }
+    }
+
+    /**
+     * @return The path of the written checkpoint.
+     */
+    public static String convert(String serializedFilePath) throws IOException, ClassNotFoundException {
+        NeuralNetwork network = NeuralNetwork.loadSerialized(serializedFilePath);
+
+        String checkpointPath = serializedFilePath.replaceFirst("\\.ser$", "") + NetworkCheckpoint.FILE_EXTENSION;
+        network.save(checkpointPath);
+
+        return checkpointPath;
+    }
+}
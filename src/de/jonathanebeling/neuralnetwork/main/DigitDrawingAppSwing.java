@@ -1,6 +1,6 @@
 package de.jonathanebeling.neuralnetwork.main;
 import de.jonathanebeling.neuralnetwork.data.DataPoint;
-import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.inference.InferenceModel;
 import de.jonathanebeling.neuralnetwork.utils.DisplayHelper;
 
 import javax.swing.*;
@@ -8,15 +8,19 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
 
 public class DigitDrawingAppSwing extends JFrame {
 
+    private static final String NETWORK_PATH = "networks/saved/one.nnc";
+    private static final String LEGACY_NETWORK_PATH = "networks/saved/one.ser";
+
     private BufferedImage canvasImage;
     private Graphics2D g2d;
 
     private DisplayHelper displayHelper = new DisplayHelper();
-    private NeuralNetwork network = loadTrainedNetwork();
+    private InferenceModel model = loadTrainedModel();
 
 
 
@@ -106,7 +110,7 @@ public class DigitDrawingAppSwing extends JFrame {
 
 
             System.out.println("##############");
-            displayHelper.printTop3Outputs(network.calculateOutputs(inputData));
+            displayHelper.printTop3Outputs(model.predict(inputData));
 
 
         } catch (Exception e) {
@@ -174,9 +178,13 @@ public class DigitDrawingAppSwing extends JFrame {
 
 
 
-    private NeuralNetwork loadTrainedNetwork() {
+    private InferenceModel loadTrainedModel() {
         try {
-            return NeuralNetwork.load("networks/saved/one.ser");
+            // Alte Netze einmalig in das binäre Format umwandeln, das deutlich schneller lädt
+            if (!new File(NETWORK_PATH).exists() && new File(LEGACY_NETWORK_PATH).exists()) {
+                CheckpointConverter.convert(LEGACY_NETWORK_PATH);
+            }
+            return InferenceModel.load(NETWORK_PATH);
         } catch (IOException e) {
             throw new RuntimeException(e);
         } catch (ClassNotFoundException e) {
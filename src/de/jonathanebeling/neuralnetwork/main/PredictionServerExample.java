@@ -0,0 +1,34 @@
+package de.jonathanebeling.neuralnetwork.main;
+
+import de.jonathanebeling.neuralnetwork.inference.InferenceModel;
+import de.jonathanebeling.neuralnetwork.inference.Predictor;
+import de.jonathanebeling.neuralnetwork.inference.QuantizedInferenceModel;
+import de.jonathanebeling.neuralnetwork.server.MicroBatcher;
+import de.jonathanebeling.neuralnetwork.server.PredictionServer;
+
+import java.io.IOException;
+
+public class PredictionServerExample {
+
+    private static final String NETWORK_PATH = "networks/saved/one.nnc";
+
+    private static final int PORT = 8080;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long MAX_WAIT_MICROS = 2000;
+    private static final int QUEUE_CAPACITY = 4096;
+
+    /**
+     * Serves the saved network on http://127.0.0.1:8080, with the argument "int8" as quantized model.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        boolean quantized = args.length > 0 && args[0].equals("int8");
+        Predictor model = quantized ? QuantizedInferenceModel.load(NETWORK_PATH) : InferenceModel.load(NETWORK_PATH);
+
+        // Der Server läuft weiter, nachdem main zurückkehrt
+        PredictionServer server = new PredictionServer(new MicroBatcher(model, MAX_BATCH_SIZE, MAX_WAIT_MICROS, QUEUE_CAPACITY), PORT);
+        server.start();
+
+        System.out.println("Serving " + (quantized ? "int8 " : "") + "predictions on http://127.0.0.1:" + server.getPort() + "/predict");
+        System.out.println("Metrics on http://127.0.0.1:" + server.getPort() + "/metrics");
+    }
+}
@@ -1,10 +1,15 @@
 package de.jonathanebeling.neuralnetwork.main;
 
 import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
-import de.jonathanebeling.neuralnetwork.cost_functions.SumOfSquaredErrorsCost;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
 import de.jonathanebeling.neuralnetwork.data.TrainingDataManager;
+import de.jonathanebeling.neuralnetwork.inference.QuantizedInferenceModel;
+import de.jonathanebeling.neuralnetwork.metrics.MetricsEndpoint;
 import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
 
+import java.io.IOException;
+
 public class TrainingExample {
 
     private static final String TRAINING_DATA_PATH = "data/train-images.idx3-ubyte";
@@ -12,11 +17,11 @@ public class TrainingExample {
     private static final String TEST_DATA_PATH = "data/t10k-images.idx3-ubyte";
     private static final String TEST_LABEL_PATH = "data/t10k-labels.idx1-ubyte";
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         trainingExample();
     }
 
-    private static void trainingExample(){
+    private static void trainingExample() throws IOException {
 
         // TrainingDataManager mit Trainingsdaten einrichten
         TrainingDataManager dataManager = TrainingDataManager.fromMnistData(0.05,
@@ -26,16 +31,21 @@ public class TrainingExample {
         int[] numLayers = {784, 200, 200, 10};
 
         // Neuronales Netz einrichten
-        NeuralNetwork network = new NeuralNetwork(numLayers, new ReLuActivation(), new SumOfSquaredErrorsCost(),
+        NeuralNetwork network = new NeuralNetwork(numLayers, new ReLuActivation(), new SoftmaxActivation(), new CrossEntropyCost(),
                 "networks/temporary/test");
 
-        // Neuronales Netz trainieren
-        network.trainMiniBatchAsync(dataManager, 0.01, 5, 3);
+        // Neuronales Netz trainieren, die Metriken sind währenddessen unter http://localhost:9090/metrics abrufbar
+        try (MetricsEndpoint metricsEndpoint = new MetricsEndpoint(9090, network.getTrainingMetrics()::toMetricsText)) {
+            metricsEndpoint.start();
+            network.trainMiniBatchAsync(dataManager, 0.01, 5, 3);
+        }
 
 
         // Neuronales Netz an Testdaten testen
         network.test(dataManager.getTestData());
 
+        // Genauigkeit des int8-quantisierten Netzes an den Validierungsdaten prüfen
+        System.out.println(QuantizedInferenceModel.calibrate(network, dataManager.getValidationSource()));
 
     }
 }
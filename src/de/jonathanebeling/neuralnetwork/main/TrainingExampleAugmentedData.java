@@ -1,7 +1,8 @@
 package de.jonathanebeling.neuralnetwork.main;
 
 import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
-import de.jonathanebeling.neuralnetwork.cost_functions.SumOfSquaredErrorsCost;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
 import de.jonathanebeling.neuralnetwork.data.TrainingDataManager;
 import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
 
@@ -31,7 +32,7 @@ public class TrainingExampleAugmentedData {
         int[] numLayers = {784, 200, 200, 10};
 
         // Neuronales Netz einrichten
-        NeuralNetwork network = new NeuralNetwork(numLayers, new ReLuActivation(), new SumOfSquaredErrorsCost(),
+        NeuralNetwork network = new NeuralNetwork(numLayers, new ReLuActivation(), new SoftmaxActivation(), new CrossEntropyCost(),
                 "networks/temporary/test");
 
         // Neuronales Netz trainieren
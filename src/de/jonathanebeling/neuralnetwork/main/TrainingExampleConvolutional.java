@@ -0,0 +1,57 @@
+package de.jonathanebeling.neuralnetwork.main;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
+import de.jonathanebeling.neuralnetwork.data.TrainingDataManager;
+import de.jonathanebeling.neuralnetwork.network.Conv2DLayer;
+import de.jonathanebeling.neuralnetwork.network.Layer;
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.network.PoolingLayer;
+import de.jonathanebeling.neuralnetwork.network.PoolingType;
+import de.jonathanebeling.neuralnetwork.optimizers.AdamOptimizer;
+
+import java.util.Random;
+
+public class TrainingExampleConvolutional {
+
+    private static final String TRAINING_DATA_PATH = "data/train-images.idx3-ubyte";
+    private static final String TRAINING_LABEL_PATH = "data/train-labels.idx1-ubyte";
+    private static final String TEST_DATA_PATH = "data/t10k-images.idx3-ubyte";
+    private static final String TEST_LABEL_PATH = "data/t10k-labels.idx1-ubyte";
+
+    public static void main(String[] args) {
+        trainingExampleConvolutional();
+    }
+
+    private static void trainingExampleConvolutional() {
+
+        // TrainingDataManager mit Trainingsdaten einrichten
+        TrainingDataManager dataManager = TrainingDataManager.fromMnistData(0.05,
+                TRAINING_DATA_PATH, TRAINING_LABEL_PATH, TEST_DATA_PATH, TEST_LABEL_PATH);
+        dataManager.setShuffleTrainingsData(true);
+
+        // Kleines LeNet: 28x28x1 -> 24x24x4 -> 12x12x4 -> 8x8x8 -> 4x4x8 -> 10,
+        // etwa halb so viele Multiplikationen pro Bild wie 784-200-200-10
+        Random random = new Random();
+        Layer[] layers = {
+                new Conv2DLayer(28, 28, 1, 4, 5, 1, 0, random, new ReLuActivation()),
+                new PoolingLayer(PoolingType.MAX, 24, 24, 4, 2),
+                new Conv2DLayer(12, 12, 4, 8, 5, 1, 0, random, new ReLuActivation()),
+                new PoolingLayer(PoolingType.MAX, 8, 8, 8, 2),
+                new Layer(4 * 4 * 8, 10, random, new SoftmaxActivation(), new CrossEntropyCost())
+        };
+
+        // Neuronales Netz einrichten
+        NeuralNetwork network = new NeuralNetwork(layers, "networks/temporary/test");
+        network.setOptimizer(new AdamOptimizer());
+
+        // Neuronales Netz trainieren
+        network.trainMiniBatchAsync(dataManager, 0.002, 32, 3);
+
+
+        // Neuronales Netz an Testdaten testen
+        network.test(dataManager.getTestData());
+
+    }
+}
@@ -0,0 +1,79 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Prints the progress of a training run to the console, the default listener of every network.
+ */
+public class ConsoleTrainingListener implements TrainingListener {
+
+    @Override
+    public void trainingStarted(NeuralNetwork network, int trainingSize, int validationSize, double learningRate,
+                                int minibatchSize, int epochs) {
+        System.out.println("===== BEGINNING TRAINING OF NEURAL NETWORK =====");
+        System.out.println("Training data points: " + trainingSize);
+        System.out.println("Cross validation data points: " + validationSize);
+        System.out.println("Learning rate: " + learningRate);
+        System.out.println("Mini Batch Size: " + minibatchSize);
+        System.out.println("Epochs: " + epochs);
+        System.out.println("Training mode: " + network.getTrainingMode() + " with " + network.getWorkerCount() + " workers");
+        System.out.println("Optimizer: " + network.getOptimizer());
+    }
+
+    @Override
+    public void epochStarted(int epoch) {
+        System.out.println(" ");
+        System.out.println("===== EPOCH " + epoch + " STARTING =====");
+    }
+
+    @Override
+    public void epochFinished(EpochSummary summary) {
+        System.out.println("Finished in " + Math.round(summary.getDurationMillis()) + "ms, waited " + Math.round(summary.getDataWaitMillis()) + "ms for data");
+        if (summary.isFailed()) {
+            System.out.println("Epoch failed, it is not validated or checkpointed!");
+        } else {
+            System.out.println("Training error rate of epoch: " + MathUtils.roundDecimalPoints(summary.getTrainingError(), 4));
+        }
+
+        String allocation = summary.getAllocatedBytes() < 0 ? ""
+                : ", allocated " + MathUtils.roundDecimalPoints(summary.getAllocationRate() / (1 << 20), 1) + " MB/s";
+        System.out.println("Throughput: " + Math.round(summary.getSamplesPerSecond()) + " samples/s" + allocation);
+
+        if (summary.getHogwildStatistics() != null) System.out.println("Hogwild statistics: " + summary.getHogwildStatistics());
+    }
+
+    @Override
+    public void validationFinished(int epoch, double validationError, double lowestValidationError, int epochsWithoutImprovement) {
+        System.out.println("Validation error of epoch " + epoch + ": " + MathUtils.roundDecimalPoints(validationError, 4));
+
+        if (epochsWithoutImprovement == 0) {
+            System.out.println("Lowest cross validation error until now: " + lowestValidationError);
+        } else {
+            System.out.println("Not beaten lowest cross validation error since " + epochsWithoutImprovement + " epochs!");
+        }
+    }
+
+    @Override
+    public void checkpointSaved(int epoch, Path path) {
+        System.out.println("Saved checkpoint of epoch " + epoch + " to file path: " + path);
+    }
+
+    @Override
+    public void earlyStopping(int epoch) {
+        System.out.println("Stopping training in epoch " + epoch + " due to lack of cross validation error rate improvement!");
+    }
+
+    @Override
+    public void warning(String message) {
+        System.out.println(message);
+    }
+
+    @Override
+    public void trainingFinished(TrainingMetrics metrics) {
+        System.out.println(" ");
+        System.out.println("Training phases: " + metrics);
+    }
+}
@@ -0,0 +1,97 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import de.jonathanebeling.neuralnetwork.network.HogwildStatistics;
+
+/**
+ * Measurements of one finished training epoch, passed to {@link TrainingListener#epochFinished}.
+ */
+public class EpochSummary {
+
+    private final int epoch;
+    private final long samples;
+    private final double trainingError;
+    private final double durationMillis;
+    private final double dataWaitMillis;
+    private final long allocatedBytes;
+    private final HogwildStatistics hogwildStatistics;
+    private final boolean failed;
+
+    /**
+     * @param allocatedBytes    Bytes allocated by all threads during the epoch, -1 if the JVM can't measure it.
+     * @param hogwildStatistics Statistics of the epoch if it was trained in Hogwild mode, otherwise null.
+     * @param failed            Whether a batch of the epoch failed, the training error is NaN then.
+     */
+    public EpochSummary(int epoch, long samples, double trainingError, double durationMillis, double dataWaitMillis,
+                        long allocatedBytes, HogwildStatistics hogwildStatistics, boolean failed) {
+        this.epoch = epoch;
+        this.samples = samples;
+        this.trainingError = trainingError;
+        this.durationMillis = durationMillis;
+        this.dataWaitMillis = dataWaitMillis;
+        this.allocatedBytes = allocatedBytes;
+        this.hogwildStatistics = hogwildStatistics;
+        this.failed = failed;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return The number of data points trained on.
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return The average cost of the batches of the epoch before their updates, NaN if the epoch failed.
+     */
+    public double getTrainingError() {
+        return trainingError;
+    }
+
+    public double getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return The time the trainer waited for batches to be filled.
+     */
+    public double getDataWaitMillis() {
+        return dataWaitMillis;
+    }
+
+    public double getSamplesPerSecond() {
+        return durationMillis == 0 ? 0 : samples * 1000.0 / durationMillis;
+    }
+
+    /**
+     * @return Bytes allocated by all threads during the epoch, -1 if unknown.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return Allocated bytes per second, -1 if unknown.
+     */
+    public double getAllocationRate() {
+        if (allocatedBytes < 0) return -1;
+        return durationMillis == 0 ? 0 : allocatedBytes * 1000.0 / durationMillis;
+    }
+
+    /**
+     * @return The Hogwild statistics of the epoch, or null if it was not trained in Hogwild mode.
+     */
+    public HogwildStatistics getHogwildStatistics() {
+        return hogwildStatistics;
+    }
+
+    /**
+     * @return Whether the epoch was aborted by a failed batch. Such an epoch is neither validated nor checkpointed.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,54 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.jonathanebeling.neuralnetwork.utils.HttpResponses;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.function.Supplier;
+
+/**
+ * Serves a text snapshot on {@code GET /metrics} of the loopback address, e.g. of
+ * {@link TrainingMetrics#toMetricsText()} while a network is training. The snapshot is created per request on the
+ * single thread of the server, so scraping never slows down the training threads.
+ */
+public class MetricsEndpoint implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Supplier<String> snapshot;
+
+    /**
+     * @param port Port on the loopback address, 0 for any free port.
+     */
+    public MetricsEndpoint(int port, Supplier<String> snapshot) throws IOException {
+        this.snapshot = snapshot;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                HttpResponses.sendText(exchange, 405, "Use GET\n");
+                return;
+            }
+            HttpResponses.sendText(exchange, 200, snapshot.get());
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,93 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events of a training run. They are only created and committed while a recording with these events
+ * enabled is running, e.g. after starting the JVM with {@code -XX:StartFlightRecording}. The durations are measured
+ * by {@link TrainingMetrics} and stored as fields, so the events themselves have no duration.
+ */
+final class TrainingEvents {
+
+    private TrainingEvents() {
+    }
+
+    @Name("de.jonathanebeling.neuralnetwork.TrainingPhase")
+    @Label("Training Phase")
+    @Description("Time spent in one phase of a training step")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("de.jonathanebeling.neuralnetwork.TrainingBatch")
+    @Label("Training Batch")
+    @Description("One training step on a mini batch")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class BatchEvent extends Event {
+        @Label("Batch Size")
+        int batchSize;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("de.jonathanebeling.neuralnetwork.TrainingEpoch")
+    @Label("Training Epoch")
+    @Description("Summary of a finished training epoch")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class EpochEvent extends Event {
+        @Label("Epoch")
+        int epoch;
+
+        @Label("Samples")
+        long samples;
+
+        @Label("Training Error")
+        double trainingError;
+
+        @Label("Samples per Second")
+        double samplesPerSecond;
+
+        @Label("Time")
+        @Timespan(Timespan.MILLISECONDS)
+        long time;
+
+        @Label("Data Wait Time")
+        @Timespan(Timespan.MILLISECONDS)
+        long dataWaitTime;
+
+        @Label("Allocated")
+        @DataAmount(DataAmount.BYTES)
+        long allocatedBytes;
+    }
+
+    @Name("de.jonathanebeling.neuralnetwork.Validation")
+    @Label("Validation")
+    @Description("Validation error of a training epoch")
+    @Category({"Neural Network", "Training"})
+    @StackTrace(false)
+    static final class ValidationEvent extends Event {
+        @Label("Epoch")
+        int epoch;
+
+        @Label("Validation Error")
+        double validationError;
+    }
+}
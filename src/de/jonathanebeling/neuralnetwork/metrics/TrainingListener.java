@@ -0,0 +1,52 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the progress of {@link NeuralNetwork#trainMiniBatchAsync}. All methods do nothing by default, so a listener
+ * only overrides what it reports. Unless noted otherwise, the methods are called on the thread that started the training.
+ */
+public interface TrainingListener {
+
+    default void trainingStarted(NeuralNetwork network, int trainingSize, int validationSize, double learningRate,
+                                 int minibatchSize, int epochs) {
+    }
+
+    default void epochStarted(int epoch) {
+    }
+
+    default void epochFinished(EpochSummary summary) {
+    }
+
+    /**
+     * @param lowestValidationError    The lowest validation error of the run, including this one.
+     * @param epochsWithoutImprovement Number of validations in a row that did not beat the lowest error, 0 if this one did.
+     */
+    default void validationFinished(int epoch, double validationError, double lowestValidationError,
+                                    int epochsWithoutImprovement) {
+    }
+
+    /**
+     * Called on the checkpoint writer thread.
+     */
+    default void checkpointSaved(int epoch, Path path) {
+    }
+
+    /**
+     * @param epoch The epoch whose validation error ended the training, with a validation lag later epochs may have been trained.
+     */
+    default void earlyStopping(int epoch) {
+    }
+
+    /**
+     * A problem with the training settings or a failure that does not stop the training. Failed checkpoint writes are
+     * reported on the checkpoint writer thread.
+     */
+    default void warning(String message) {
+    }
+
+    default void trainingFinished(TrainingMetrics metrics) {
+    }
+}
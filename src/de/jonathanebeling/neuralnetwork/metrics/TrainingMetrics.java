@@ -0,0 +1,189 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the phases of a training run. Recording only takes a few striped counter updates,
+ * so the training threads record every batch. Each record is also emitted as a Flight Recorder event if a recording
+ * with the training events is running.
+ */
+public class TrainingMetrics {
+
+    private static final TrainingPhase[] PHASES = TrainingPhase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LongAdder samples = new LongAdder();
+
+    private volatile long startNanos;
+    private volatile long startAllocatedBytes;
+
+    private volatile int lastEpoch = -1;
+    private volatile double lastTrainingError = Double.NaN;
+    private volatile double lastValidationError = Double.NaN;
+
+    public TrainingMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        // Wie reset(), ohne eine überschreibbare Methode im Konstruktor aufzurufen
+        startAllocatedBytes = getTotalAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    public void record(TrainingPhase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+
+        TrainingEvents.PhaseEvent event = new TrainingEvents.PhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.getMetricName();
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a whole training step on batchSize data points.
+     */
+    public void recordBatch(int batchSize, long nanos) {
+        histograms[TrainingPhase.BATCH.ordinal()].record(nanos);
+        samples.add(batchSize);
+
+        TrainingEvents.BatchEvent event = new TrainingEvents.BatchEvent();
+        if (event.isEnabled()) {
+            event.batchSize = batchSize;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    public void recordEpoch(EpochSummary summary) {
+        lastEpoch = summary.getEpoch();
+        lastTrainingError = summary.getTrainingError();
+
+        TrainingEvents.EpochEvent event = new TrainingEvents.EpochEvent();
+        if (event.isEnabled()) {
+            event.epoch = summary.getEpoch();
+            event.samples = summary.getSamples();
+            event.trainingError = summary.getTrainingError();
+            event.samplesPerSecond = summary.getSamplesPerSecond();
+            event.time = Math.round(summary.getDurationMillis());
+            event.dataWaitTime = Math.round(summary.getDataWaitMillis());
+            event.allocatedBytes = summary.getAllocatedBytes();
+            event.commit();
+        }
+    }
+
+    public void recordValidation(int epoch, double validationError) {
+        lastValidationError = validationError;
+
+        TrainingEvents.ValidationEvent event = new TrainingEvents.ValidationEvent();
+        if (event.isEnabled()) {
+            event.epoch = epoch;
+            event.validationError = validationError;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getHistogram(TrainingPhase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * @return The number of data points trained on since the last reset.
+     */
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getBatches() {
+        return histograms[TrainingPhase.BATCH.ordinal()].getCount();
+    }
+
+    public double getSamplesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds == 0 ? 0 : samples.sum() / seconds;
+    }
+
+    /**
+     * @return Bytes allocated per second by all threads of the JVM since the last reset, -1 if the JVM can't measure it.
+     */
+    public double getAllocationRate() {
+        long allocatedBytes = getTotalAllocatedBytes();
+        if (allocatedBytes < 0 || startAllocatedBytes < 0) return -1;
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds == 0 ? 0 : (allocatedBytes - startAllocatedBytes) / seconds;
+    }
+
+    /**
+     * Clears all counters, e.g. at the start of a training run.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        samples.reset();
+        lastEpoch = -1;
+        lastTrainingError = Double.NaN;
+        lastValidationError = Double.NaN;
+
+        startAllocatedBytes = getTotalAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return Bytes allocated by all threads since the JVM started, -1 if the JVM can't measure it.
+     */
+    public static long getTotalAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * @return All counters as lines of name and value, e.g. for a {@link MetricsEndpoint}.
+     */
+    public String toMetricsText() {
+        StringBuilder text = new StringBuilder();
+        text.append("samples_total ").append(getSamples()).append('\n');
+        text.append("batches_total ").append(getBatches()).append('\n');
+        text.append("samples_per_second ").append(MathUtils.roundDecimalPoints(getSamplesPerSecond(), 1)).append('\n');
+        text.append("allocation_bytes_per_second ").append(Math.round(getAllocationRate())).append('\n');
+        text.append("epoch_last ").append(lastEpoch).append('\n');
+        text.append("training_error_last ").append(lastTrainingError).append('\n');
+        text.append("validation_error_last ").append(lastValidationError).append('\n');
+
+        for (TrainingPhase phase : PHASES) {
+            LatencyHistogram histogram = getHistogram(phase);
+            String name = phase.getMetricName();
+            text.append(name).append("_count ").append(histogram.getCount()).append('\n');
+            text.append(name).append("_total_millis ").append(MathUtils.roundDecimalPoints(histogram.getTotalMillis(), 1)).append('\n');
+            text.append(name).append("_average_micros ").append(MathUtils.roundDecimalPoints(histogram.getAverageMicros(), 1)).append('\n');
+            text.append(name).append("_p99_micros ").append(MathUtils.roundDecimalPoints(histogram.getPercentileMicros(99), 1)).append('\n');
+            text.append(name).append("_max_micros ").append(MathUtils.roundDecimalPoints(histogram.getMaxMicros(), 1)).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return The total time of every phase that was recorded at least once.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Samples: " + getSamples() + " ("
+                + MathUtils.roundDecimalPoints(getSamplesPerSecond(), 1) + "/s)");
+        for (TrainingPhase phase : PHASES) {
+            LatencyHistogram histogram = getHistogram(phase);
+            if (histogram.getCount() == 0) continue;
+
+            text.append(", ").append(phase.getMetricName()).append(": ")
+                    .append(Math.round(histogram.getTotalMillis())).append("ms");
+        }
+        return text.toString();
+    }
+}
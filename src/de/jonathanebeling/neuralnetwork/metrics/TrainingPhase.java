@@ -0,0 +1,60 @@
+package de.jonathanebeling.neuralnetwork.metrics;
+
+/**
+ * Phases of a training run that are timed by {@link TrainingMetrics}.
+ */
+public enum TrainingPhase {
+    /**
+     * Forward pass of a batch, or of the slice of a worker in synchronous mode.
+     */
+    FORWARD("forward"),
+    /**
+     * Backpropagation of the node values and accumulation of the gradients.
+     */
+    BACKPROPAGATION("backpropagation"),
+    /**
+     * Summing up the gradients of all workers in synchronous mode.
+     */
+    GRADIENT_REDUCTION("gradient_reduction"),
+    /**
+     * Applying the gradients to the layers, including the time waited for layer locks.
+     */
+    APPLY_GRADIENTS("apply_gradients"),
+    /**
+     * Time waited for the lock of a layer before its gradients could be applied.
+     */
+    LOCK_WAIT("lock_wait"),
+    /**
+     * A whole training step, from the forward pass until the gradients are applied.
+     */
+    BATCH("batch"),
+    /**
+     * Filling and augmenting a batch on a prefetch thread.
+     */
+    DATA_PREPARATION("data_preparation"),
+    /**
+     * Time the trainer waited for the next filled batch.
+     */
+    DATA_WAIT("data_wait"),
+    /**
+     * Computing the validation error of a part of the validation data.
+     */
+    VALIDATION("validation"),
+    /**
+     * Writing a checkpoint.
+     */
+    CHECKPOINT("checkpoint");
+
+    private final String metricName;
+
+    TrainingPhase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return The name used in {@link TrainingMetrics#toMetricsText()}.
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
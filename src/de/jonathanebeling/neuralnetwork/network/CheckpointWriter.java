@@ -0,0 +1,216 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.metrics.ConsoleTrainingListener;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingListener;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingMetrics;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingPhase;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes checkpoints of network snapshots on a single background thread, so training never waits for the disk.
+ * Every checkpoint is first written to a temporary file and then renamed atomically, so a crash never leaves a
+ * half written "epoch-N.nnc". After each write only the checkpoints with the lowest validation errors and the latest
+ * one are kept, older checkpoints written by this writer are deleted.
+ * <p>
+ * Each queued checkpoint holds a full snapshot, so at most {@link #MAX_QUEUED} of them wait besides the one being
+ * written. A queued checkpoint without validation error is dropped when the next one is submitted, because it would
+ * only be kept while it is the latest. If the queue is still full, {@link #submit} waits for the writer.
+ */
+public class CheckpointWriter implements AutoCloseable {
+
+    public static final int MAX_QUEUED = 2;
+
+    private final Path directory;
+    private final int keptBest;
+    private final ExecutorService executor;
+    private final TrainingMetrics metrics;
+    private final TrainingListener listener;
+
+    // Nur vom Schreib-Thread benutzt
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+    // Durch this geschützt
+    private final Deque<QueuedCheckpoint> queue = new ArrayDeque<>();
+
+    private static class QueuedCheckpoint {
+        private final NeuralNetwork snapshot;
+        private final int epoch;
+        private final double validationError;
+
+        private QueuedCheckpoint(NeuralNetwork snapshot, int epoch, double validationError) {
+            this.snapshot = snapshot;
+            this.epoch = epoch;
+            this.validationError = validationError;
+        }
+    }
+
+    private static class Checkpoint {
+        private final int epoch;
+        private final double validationError;
+        private final Path path;
+
+        private Checkpoint(int epoch, double validationError, Path path) {
+            this.epoch = epoch;
+            this.validationError = validationError;
+            this.path = path;
+        }
+    }
+
+    /**
+     * @param keptBest Number of checkpoints with the lowest validation errors that are kept in addition to the latest one.
+     */
+    public CheckpointWriter(String directory, int keptBest) {
+        this(directory, keptBest, new TrainingMetrics(), new ConsoleTrainingListener());
+    }
+
+    /**
+     * @param metrics  Metrics the write times are recorded in.
+     * @param listener Listener that is told about every written and every failed checkpoint, on the writer thread.
+     */
+    public CheckpointWriter(String directory, int keptBest, TrainingMetrics metrics, TrainingListener listener) {
+        this.directory = Path.of(directory);
+        this.keptBest = keptBest;
+        this.metrics = metrics;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a checkpoint of the snapshot and drops a queued one without validation error. Waits while
+     * {@link #MAX_QUEUED} checkpoints are queued. The snapshot must not be changed afterwards.
+     *
+     * @param validationError Validation error of the snapshot, NaN if unknown. Such checkpoints are only kept while they are the latest one.
+     */
+    public void submit(NeuralNetwork snapshot, int epoch, double validationError) {
+        synchronized (this) {
+            // Würde nach dem Schreiben sowieso gelöscht, da es nicht mehr das neueste ist
+            queue.removeIf(checkpoint -> Double.isNaN(checkpoint.validationError));
+
+            while (queue.size() >= MAX_QUEUED) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    listener.warning("Interrupted, the checkpoint of epoch " + epoch + " is not written!");
+                    return;
+                }
+            }
+            queue.add(new QueuedCheckpoint(snapshot, epoch, validationError));
+        }
+
+        // Jede Aufgabe schreibt den ältesten wartenden Checkpoint, Aufgaben verworfener Checkpoints finden keinen mehr
+        executor.execute(this::writeNext);
+    }
+
+    private void writeNext() {
+        QueuedCheckpoint queued;
+        synchronized (this) {
+            queued = queue.poll();
+            notifyAll();
+        }
+        if (queued == null) return;
+
+        try {
+            long startNanos = System.nanoTime();
+            Path path = write(queued.snapshot, queued.epoch);
+            metrics.record(TrainingPhase.CHECKPOINT, System.nanoTime() - startNanos);
+
+            checkpoints.add(new Checkpoint(queued.epoch, queued.validationError, path));
+            listener.checkpointSaved(queued.epoch, path);
+
+            applyRetention();
+        } catch (IOException | RuntimeException e) {
+            listener.warning("Could not write the checkpoint of epoch " + queued.epoch + ": " + e);
+        }
+    }
+
+    private Path write(NeuralNetwork snapshot, int epoch) throws IOException {
+        Path target = directory.resolve("epoch-" + epoch + NetworkCheckpoint.FILE_EXTENSION);
+        Path temporary = directory.resolve("epoch-" + epoch + NetworkCheckpoint.FILE_EXTENSION + ".tmp");
+
+        try {
+            NetworkCheckpoint.write(snapshot, temporary.toString());
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // Nach einem Fehler bleibt sonst eine halb geschriebene Datei liegen
+            Files.deleteIfExists(temporary);
+        }
+
+        return target;
+    }
+
+    private void applyRetention() throws IOException {
+        Checkpoint latest = checkpoints.get(checkpoints.size() - 1);
+
+        List<Checkpoint> ranked = new ArrayList<>();
+        for (Checkpoint checkpoint : checkpoints) {
+            if (!Double.isNaN(checkpoint.validationError)) ranked.add(checkpoint);
+        }
+        ranked.sort(Comparator.comparingDouble(checkpoint -> checkpoint.validationError));
+        List<Checkpoint> best = ranked.subList(0, Math.min(keptBest, ranked.size()));
+
+        List<Checkpoint> kept = new ArrayList<>();
+        for (Checkpoint checkpoint : checkpoints) {
+            if (checkpoint == latest || best.contains(checkpoint)) {
+                kept.add(checkpoint);
+            } else if (!checkpoint.path.equals(latest.path)) {
+                Files.deleteIfExists(checkpoint.path);
+            }
+        }
+
+        checkpoints.clear();
+        checkpoints.addAll(kept);
+    }
+
+    /**
+     * @return The paths of the checkpoints that are currently kept, ordered by epoch. Waits for all queued checkpoints.
+     */
+    public List<Path> getCheckpoints() {
+        try {
+            return executor.submit(() -> {
+                List<Path> paths = new ArrayList<>();
+                for (Checkpoint checkpoint : checkpoints) {
+                    paths.add(checkpoint.path);
+                }
+                return paths;
+            }).get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits until all queued checkpoints are written.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Two-dimensional convolution over images that are stored channel by channel: channel c of the pixel (x, y) is at
+ * index (c * height + y) * width + x of a data point's row. The outputs are stored the same way, with one channel
+ * per filter, so convolution and {@link PoolingLayer}s can be stacked and followed by dense layers.
+ * <p>
+ * The convolution is computed as a matrix multiplication (im2col): for every weight of a filter, the input values it
+ * is multiplied with at all output positions are copied into one row of a scratch matrix. The filters times this
+ * matrix are the output channels, computed by the same kernels as the dense layers over rows as long as an output
+ * channel. Every thread reuses its own scratch matrix for one data point at a time.
+ * The weights are stored as one row of inputChannels * kernelSize * kernelSize values per filter, ordered by channel,
+ * kernel row and kernel column, with one bias per filter.
+ */
+public class Conv2DLayer extends Layer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int inputChannels;
+    private final int filters;
+    private final int kernelSize;
+    private final int stride;
+    private final int padding;
+
+    private final int outputWidth;
+    private final int outputHeight;
+    private final int patchSize;
+
+    private transient ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Scratch matrices of one thread, grown to the largest layer the thread has seen.
+     */
+    private static final class Scratch {
+        private double[] columns = new double[0];
+        private double[] columnGradients = new double[0];
+
+        private double[] columns(int size) {
+            if (columns.length < size) columns = new double[size];
+            return columns;
+        }
+
+        private double[] columnGradients(int size) {
+            if (columnGradients.length < size) columnGradients = new double[size];
+            return columnGradients;
+        }
+    }
+
+
+    /**
+     * @param stride  Distance between two positions of the kernel, in both directions.
+     * @param padding Number of zero pixels added on every side of the input.
+     */
+    public Conv2DLayer(int inputWidth, int inputHeight, int inputChannels, int filters, int kernelSize, int stride, int padding,
+                       Random random, ActivationFunction activationFunction) {
+        this(inputWidth, inputHeight, inputChannels, filters, kernelSize, stride, padding,
+                heInitialization(random, filters, kernelSize, inputChannels), new double[filters], activationFunction);
+    }
+
+    /**
+     * Creates a layer with the given parameters. The arrays are used directly, not copied.
+     */
+    Conv2DLayer(int inputWidth, int inputHeight, int inputChannels, int filters, int kernelSize, int stride, int padding,
+                double[] weights, double[] biases, ActivationFunction activationFunction) {
+        super(inputWidth * inputHeight * inputChannels,
+                outputSize(inputWidth, kernelSize, stride, padding) * outputSize(inputHeight, kernelSize, stride, padding) * filters,
+                weights, biases, activationFunction, null);
+
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.inputChannels = inputChannels;
+        this.filters = filters;
+        this.kernelSize = kernelSize;
+        this.stride = stride;
+        this.padding = padding;
+
+        outputWidth = outputSize(inputWidth, kernelSize, stride, padding);
+        outputHeight = outputSize(inputHeight, kernelSize, stride, padding);
+        patchSize = kernelSize * kernelSize * inputChannels;
+
+        if (inputChannels <= 0 || filters <= 0 || weights.length != filters * patchSize || biases.length != filters) {
+            throw new IllegalArgumentException("Expected " + filters + " filters of " + patchSize + " weights and one bias each!");
+        }
+    }
+
+    private static double[] heInitialization(Random random, int filters, int kernelSize, int inputChannels) {
+        if (filters <= 0 || kernelSize <= 0 || inputChannels <= 0) {
+            throw new IllegalArgumentException("Filters, kernel size and input channels must be positive!");
+        }
+
+        int patchSize = kernelSize * kernelSize * inputChannels;
+        double[] weights = new double[filters * patchSize];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextGaussian() * Math.sqrt(2.0 / patchSize);  // He-Initialisierung
+        }
+        return weights;
+    }
+
+    /**
+     * @return The number of kernel positions along one dimension of the input.
+     */
+    static int outputSize(int inputSize, int kernelSize, int stride, int padding) {
+        if (inputSize <= 0 || kernelSize <= 0 || stride <= 0 || padding < 0) {
+            throw new IllegalArgumentException("Input size, kernel size and stride must be positive and the padding must not be negative!");
+        }
+        if (kernelSize > inputSize + 2 * padding) {
+            throw new IllegalArgumentException("Kernel of size " + kernelSize + " does not fit into an input of size "
+                    + inputSize + " with padding " + padding + "!");
+        }
+        return (inputSize + 2 * padding - kernelSize) / stride + 1;
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+
+    @Override
+    public void calculateWeightedInputs(double[] inputs, double[] weightedInputs, int batchSize) {
+        int positions = outputWidth * outputHeight;
+        double[] columns = scratch.get().columns(patchSize * positions);
+        double[] biases = getBiases();
+
+        for (int sample = 0; sample < batchSize; sample++) {
+            copyColumns(inputs, sample * getNodesIn(), columns);
+
+            // Eine Zeile pro Filter: genau die Ausgabekanäle des Datenpunkts
+            int outputOffset = sample * getNodesOut();
+            MathUtils.matrixMultiply(getWeights(), columns, weightedInputs, outputOffset, filters, patchSize, positions);
+
+            for (int filter = 0; filter < filters; filter++) {
+                int offset = outputOffset + filter * positions;
+                for (int position = 0; position < positions; position++) {
+                    weightedInputs[offset + position] += biases[filter];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accumulateGradients(double[] inputs, double[] nodeValues, double[] costGradientW, double[] costGradientB, int batchSize) {
+        int positions = outputWidth * outputHeight;
+        double[] columns = scratch.get().columns(patchSize * positions);
+
+        // Die Spalten werden neu kopiert statt aus dem Forward-Pass aufbewahrt, das ist billiger als der Speicher dafür
+        for (int sample = 0; sample < batchSize; sample++) {
+            copyColumns(inputs, sample * getNodesIn(), columns);
+
+            int offset = sample * getNodesOut();
+            MathUtils.addMatrixMultiplyTransposed(nodeValues, offset, columns, costGradientW, filters, patchSize, positions);
+
+            for (int filter = 0; filter < filters; filter++, offset += positions) {
+                double sum = 0;
+                for (int position = 0; position < positions; position++) {
+                    sum += nodeValues[offset + position];
+                }
+                costGradientB[filter] += sum;
+            }
+        }
+    }
+
+    @Override
+    public void backpropagateNodeValues(double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        int positions = outputWidth * outputHeight;
+        double[] columnGradients = scratch.get().columnGradients(patchSize * positions);
+
+        Arrays.fill(previousNodeValues, 0, batchSize * getNodesIn(), 0);
+
+        for (int sample = 0; sample < batchSize; sample++) {
+            Arrays.fill(columnGradients, 0, patchSize * positions, 0);
+            MathUtils.addTransposedMatrixMultiply(getWeights(), nodeValues, sample * getNodesOut(), columnGradients,
+                    filters, patchSize, positions);
+            addColumns(columnGradients, previousNodeValues, sample * getNodesIn());
+        }
+    }
+
+    /**
+     * Copies the inputs of one data point into the rows of columns, one row of output width * output height values
+     * per weight of a filter. Pixels in the padding are zero.
+     */
+    private void copyColumns(double[] inputs, int inputOffset, double[] columns) {
+        int positions = outputWidth * outputHeight;
+        int row = 0;
+
+        for (int channel = 0; channel < inputChannels; channel++) {
+            for (int kernelY = 0; kernelY < kernelSize; kernelY++) {
+                for (int kernelX = 0; kernelX < kernelSize; kernelX++, row++) {
+                    // Bereich der Output-Spalten, deren Pixel nicht im Padding liegen
+                    int firstX = firstOutput(kernelX);
+                    int endX = endOutput(kernelX, inputWidth, outputWidth);
+
+                    for (int outY = 0; outY < outputHeight; outY++) {
+                        int target = row * positions + outY * outputWidth;
+                        int y = outY * stride - padding + kernelY;
+
+                        if (y < 0 || y >= inputHeight || firstX >= endX) {
+                            Arrays.fill(columns, target, target + outputWidth, 0);
+                            continue;
+                        }
+
+                        int source = inputOffset + (channel * inputHeight + y) * inputWidth + firstX * stride - padding + kernelX;
+                        Arrays.fill(columns, target, target + firstX, 0);
+                        if (stride == 1) {
+                            System.arraycopy(inputs, source, columns, target + firstX, endX - firstX);
+                        } else {
+                            for (int outX = firstX; outX < endX; outX++, source += stride) {
+                                columns[target + outX] = inputs[source];
+                            }
+                        }
+                        Arrays.fill(columns, target + endX, target + outputWidth, 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the rows of columnGradients back to the input pixels they were copied from, the reverse of
+     * {@link #copyColumns}. Gradients of pixels in the padding are dropped.
+     */
+    private void addColumns(double[] columnGradients, double[] inputGradients, int inputOffset) {
+        int positions = outputWidth * outputHeight;
+        int row = 0;
+
+        for (int channel = 0; channel < inputChannels; channel++) {
+            for (int kernelY = 0; kernelY < kernelSize; kernelY++) {
+                for (int kernelX = 0; kernelX < kernelSize; kernelX++, row++) {
+                    int firstX = firstOutput(kernelX);
+                    int endX = endOutput(kernelX, inputWidth, outputWidth);
+
+                    for (int outY = 0; outY < outputHeight; outY++) {
+                        int y = outY * stride - padding + kernelY;
+                        if (y < 0 || y >= inputHeight || firstX >= endX) continue;
+
+                        int source = row * positions + outY * outputWidth;
+                        int target = inputOffset + (channel * inputHeight + y) * inputWidth + firstX * stride - padding + kernelX;
+                        if (stride == 1) {
+                            MathUtils.getKernels().axpy(1, columnGradients, source + firstX, inputGradients, target, endX - firstX);
+                        } else {
+                            for (int outX = firstX; outX < endX; outX++, target += stride) {
+                                inputGradients[target] += columnGradients[source + outX];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The first output position at which the kernel offset lies inside the input, not in the padding.
+     */
+    private int firstOutput(int kernelOffset) {
+        return Math.max(0, -Math.floorDiv(kernelOffset - padding, stride));
+    }
+
+    /**
+     * @return The output position after the last one at which the kernel offset lies inside the input.
+     */
+    private int endOutput(int kernelOffset, int inputSize, int outputSize) {
+        return Math.min(outputSize, Math.floorDiv(inputSize - 1 + padding - kernelOffset, stride) + 1);
+    }
+
+
+    /**
+     * Convolutional layers always store their weights as doubles, the precision is ignored.
+     *
+     * @return A copy of this layer.
+     */
+    @Override
+    public Layer convertToPrecision(Precision precision) {
+        return new Conv2DLayer(inputWidth, inputHeight, inputChannels, filters, kernelSize, stride, padding,
+                getWeights().clone(), getBiases().clone(), getActivationFunction()).withOptimizerStateOf(this);
+    }
+
+    @Override
+    public int getWeightRows() {
+        return filters;
+    }
+
+    @Override
+    public int getWeightRowLength() {
+        return patchSize;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    public int getInputChannels() {
+        return inputChannels;
+    }
+
+    public int getFilters() {
+        return filters;
+    }
+
+    public int getKernelSize() {
+        return kernelSize;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int getPadding() {
+        return padding;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * @return The number of output channels, one per filter.
+     */
+    public int getOutputChannels() {
+        return filters;
+    }
+}
@@ -0,0 +1,118 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.Serial;
+import java.util.Random;
+
+/**
+ * Layer that stores its weights with single precision. Inputs, activations and gradients stay doubles and all sums
+ * are accumulated with double precision, only reading and updating the weights works on floats.
+ */
+public class FloatLayer extends Layer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Gewichte zeilenweise in einem zusammenhängenden Array: weights[out * nodesIn + in]
+    private final float[] weights;
+
+
+    public FloatLayer(int nodesIn, int nodesOut, Random random, ActivationFunction activationFunction, CostFunction costFunction) {
+        super(nodesIn, nodesOut, activationFunction, costFunction);
+
+        weights = new float[nodesOut * nodesIn];
+
+        //Random weights on initialization
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) (random.nextGaussian() * Math.sqrt(2.0 / nodesIn));  // He-Initialisierung
+        }
+    }
+
+    /**
+     * Creates a layer with the given parameters. The weights are used directly, the biases are copied.
+     */
+    FloatLayer(int nodesIn, int nodesOut, float[] weights, double[] biases, ActivationFunction activationFunction, CostFunction costFunction) {
+        super(nodesIn, nodesOut, activationFunction, costFunction);
+        this.weights = weights;
+        System.arraycopy(biases, 0, getBiases(), 0, nodesOut);
+    }
+
+
+    @Override
+    protected void updateWeights(Optimizer optimizer, double[] costGradientW, double[][] buffers, int offset, int length,
+                                 double learningRate, double gradientScale, long step) {
+        optimizer.update(weights, costGradientW, buffers, offset, length, learningRate, gradientScale, step);
+    }
+
+    @Override
+    public double[] calculateOutputActivations(double[] inputs) {
+        double[] activations = new double[getNodesOut()];
+
+        // Überprüfung der Inputs auf korrekte Länge
+        if (inputs.length != getNodesIn()) {
+            throw new IllegalArgumentException("Input-Doubles-Array not same length as required " +
+                    "Input-Doubles-Array length for this layer!");
+        }
+
+        MathUtils.matrixVectorProduct(weights, inputs, getBiases(), activations, getNodesOut(), getNodesIn());
+
+        getActivationFunction().activate(activations, activations, 0, activations.length);
+
+        return activations;
+    }
+
+    @Override
+    public void calculateWeightedInputs(double[] inputs, double[] weightedInputs, int batchSize) {
+        MathUtils.matrixMultiplyTransposed(inputs, weights, getBiases(), weightedInputs, batchSize, getNodesOut(), getNodesIn());
+    }
+
+    @Override
+    public void backpropagateNodeValues(double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        MathUtils.matrixMultiply(nodeValues, weights, previousNodeValues, batchSize, getNodesOut(), getNodesIn());
+    }
+
+    @Override
+    public Layer convertToPrecision(Precision precision) {
+        if (precision == Precision.FLOAT) {
+            return new FloatLayer(getNodesIn(), getNodesOut(), weights.clone(), getBiases(), getActivationFunction(), getCostFunction()).withOptimizerStateOf(this);
+        }
+        return new Layer(getNodesIn(), getNodesOut(), MathUtils.toDoubleArray(weights), getBiases().clone(), getActivationFunction(), getCostFunction()).withOptimizerStateOf(this);
+    }
+
+    @Override
+    public Precision getPrecision() {
+        return Precision.FLOAT;
+    }
+
+    /**
+     * @return The weights as one flat, row-major array, the weight from input node in to output node out is stored at index out * nodesIn + in.
+     */
+    public float[] getFloatWeights() {
+        return weights;
+    }
+
+    @Override
+    public double[] getWeights() {
+        return MathUtils.toDoubleArray(weights);
+    }
+
+    @Override
+    public double getWeight(int nodeOut, int nodeIn) {
+        return weights[nodeOut * getNodesIn() + nodeIn];
+    }
+
+    @Override
+    public double[][] getWeightsIn() {
+        int nodesIn = getNodesIn();
+        double[][] weightsIn = new double[getNodesOut()][nodesIn];
+        for (int out = 0; out < weightsIn.length; out++) {
+            for (int in = 0; in < nodesIn; in++) {
+                weightsIn[out][in] = weights[out * nodesIn + in];
+            }
+        }
+        return weightsIn;
+    }
+}
@@ -0,0 +1,96 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a Hogwild training run. The staleness of an update is the number of updates other threads applied
+ * between reading the weights for the forward pass and applying the resulting gradients.
+ */
+public class HogwildStatistics {
+
+    // Wird nach jedem Update erhöht, das Lesen vor dem Forward-Pass macht alle vorherigen Updates sichtbar
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicInteger activeUpdates = new AtomicInteger();
+    private final AtomicInteger maxConcurrentUpdates = new AtomicInteger();
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder concurrentUpdatesSum = new LongAdder();
+    private final LongAdder stalenessSum = new LongAdder();
+    private final AtomicLong maxStaleness = new AtomicLong();
+    private final LongAdder updatedRows = new LongAdder();
+
+    long readVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return The staleness of the update that is about to be applied.
+     */
+    long beginUpdate(long readVersion) {
+        int concurrent = activeUpdates.incrementAndGet();
+        maxConcurrentUpdates.accumulateAndGet(concurrent, Math::max);
+        concurrentUpdatesSum.add(concurrent);
+
+        long staleness = version.get() - readVersion;
+        stalenessSum.add(staleness);
+        maxStaleness.accumulateAndGet(staleness, Math::max);
+
+        return staleness;
+    }
+
+    void endUpdate(int rows) {
+        updatedRows.add(rows);
+        updates.increment();
+        version.incrementAndGet();
+        activeUpdates.decrementAndGet();
+    }
+
+    public void reset() {
+        maxConcurrentUpdates.set(0);
+        updates.reset();
+        concurrentUpdatesSum.reset();
+        stalenessSum.reset();
+        maxStaleness.set(0);
+        updatedRows.reset();
+    }
+
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+    public double getAverageConcurrentUpdates() {
+        long count = updates.sum();
+        return count == 0 ? 0 : (double) concurrentUpdatesSum.sum() / count;
+    }
+
+    public int getMaxConcurrentUpdates() {
+        return maxConcurrentUpdates.get();
+    }
+
+    public double getAverageStaleness() {
+        long count = updates.sum();
+        return count == 0 ? 0 : (double) stalenessSum.sum() / count;
+    }
+
+    public long getMaxStaleness() {
+        return maxStaleness.get();
+    }
+
+    public double getAverageUpdatedRows() {
+        long count = updates.sum();
+        return count == 0 ? 0 : (double) updatedRows.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "Updates: " + getUpdates()
+                + ", concurrent updates avg/max: " + MathUtils.roundDecimalPoints(getAverageConcurrentUpdates(), 2) + "/" + getMaxConcurrentUpdates()
+                + ", staleness avg/max: " + MathUtils.roundDecimalPoints(getAverageStaleness(), 2) + "/" + getMaxStaleness()
+                + ", updated rows per update: " + MathUtils.roundDecimalPoints(getAverageUpdatedRows(), 1);
+    }
+}
@@ -2,8 +2,13 @@ package de.jonathanebeling.neuralnetwork.network;
 
 import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
 import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.OptimizerState;
+import de.jonathanebeling.neuralnetwork.optimizers.SgdOptimizer;
 import de.jonathanebeling.neuralnetwork.utils.MathUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.Random;
@@ -15,12 +20,26 @@ public class Layer implements Serializable {
     private final int nodesIn;
     private final int nodesOut;
 
-    private double[][] weightsIn;
+    // Gewichte zeilenweise in einem zusammenhängenden Array: weights[out * nodesIn + in]
+    private double[] weights;
     private double[] biases;
 
+    // Nur noch zum Einlesen von Netzen, die mit der alten double[][]-Darstellung gespeichert wurden
+    private double[][] weightsIn;
+
     private final ActivationFunction activationFunction;
     private final CostFunction costFunction;
 
+    // Gestreifte Locks für zeilenweise Updates ohne globalen Lock, Zeile out gehört zu Lock out % ROW_LOCK_STRIPES
+    private static final int ROW_LOCK_STRIPES = 64;
+    private transient Object[] rowLocks = createRowLocks();
+
+    // Zustand des Optimierers, wird beim ersten Update mit einem anderen Optimierer neu angelegt
+    private volatile OptimizerState optimizerState;
+
+    private static final Optimizer PLAIN_SGD = new SgdOptimizer();
+    private static final double[][] NO_BUFFERS = new double[0][];
+
 
     public Layer(int nodesIn, int nodesOut, Random random, ActivationFunction activationFunction, CostFunction costFunction) {
         this.nodesIn = nodesIn;
@@ -28,28 +47,189 @@ public class Layer implements Serializable {
         this.activationFunction = activationFunction;
         this.costFunction = costFunction;
 
-        weightsIn = new double[nodesOut][nodesIn];
+        weights = new double[nodesOut * nodesIn];
         biases = new double[nodesOut];
 
 
         //Random weights and biases on initialization
-        for (int i = 0; i < nodesOut; i++) {
-            for (int j = 0; j < nodesIn; j++) {
-                weightsIn[i][j] = random.nextGaussian() * Math.sqrt(2.0 / nodesIn);  // He-Initialisierung
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextGaussian() * Math.sqrt(2.0 / nodesIn);  // He-Initialisierung
+        }
+    }
+
+    /**
+     * Creates a layer with the given parameters. The arrays are used directly, not copied.
+     */
+    Layer(int nodesIn, int nodesOut, double[] weights, double[] biases, ActivationFunction activationFunction, CostFunction costFunction) {
+        this(nodesIn, nodesOut, activationFunction, costFunction);
+        this.weights = weights;
+        this.biases = biases;
+    }
+
+    /**
+     * Creates a layer with zero biases and without double weights, for subclasses that store their weights differently.
+     */
+    protected Layer(int nodesIn, int nodesOut, ActivationFunction activationFunction, CostFunction costFunction) {
+        this.nodesIn = nodesIn;
+        this.nodesOut = nodesOut;
+        this.activationFunction = activationFunction;
+        this.costFunction = costFunction;
+
+        biases = new double[nodesOut];
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rowLocks = createRowLocks();
+
+        // Alte Netze in die flache Darstellung überführen
+        if (weights == null && weightsIn != null) {
+            weights = new double[nodesOut * nodesIn];
+            for (int out = 0; out < nodesOut; out++) {
+                System.arraycopy(weightsIn[out], 0, weights, out * nodesIn, nodesIn);
             }
+            weightsIn = null;
         }
     }
 
 
 
+    /**
+     * Plain gradient descent step with already scaled gradients that leaves the optimizer state untouched.
+     */
     public synchronized void applyGradients(double learningRate, LayerTrainingInstance layerTrainingInstance) {
-        for (int out = 0; out < nodesOut; out++) {
-            biases[out] -= layerTrainingInstance.getCostGradientB()[out] * learningRate;
+        double[] costGradientW = layerTrainingInstance.getCostGradientW();
+        double[] costGradientB = layerTrainingInstance.getCostGradientB();
+
+        PLAIN_SGD.update(biases, costGradientB, NO_BUFFERS, 0, getBiasCount(), learningRate, 1, 0);
+        updateWeights(PLAIN_SGD, costGradientW, NO_BUFFERS, 0, getWeightCount(), learningRate, 1, 0);
+    }
+
+    /**
+     * Applies the gradients with the optimizer in one pass over the weights, under the lock of the layer.
+     *
+     * @param gradientScale Factor the accumulated gradients are multiplied with, e.g. 1 / batch size.
+     */
+    public synchronized void applyGradients(Optimizer optimizer, double learningRate, double gradientScale, LayerTrainingInstance layerTrainingInstance) {
+        double[] costGradientW = layerTrainingInstance.getCostGradientW();
+        double[] costGradientB = layerTrainingInstance.getCostGradientB();
 
-            for (int in = 0; in < nodesIn; in++) {
-                weightsIn[out][in] -= layerTrainingInstance.getCostGradientW()[out][in] * learningRate;
+        OptimizerState state = getOptimizerState(optimizer);
+        long step = state.nextStep();
+
+        optimizer.update(biases, costGradientB, state.getBiasBuffers(), 0, getBiasCount(), learningRate, gradientScale, step);
+        updateWeights(optimizer, costGradientW, state.getWeightBuffers(), 0, getWeightCount(), learningRate, gradientScale, step);
+    }
+
+
+    /**
+     * Applies the gradients row by row without holding a lock for the whole layer. Only the stripe lock of the row that
+     * is currently updated is held, rows without any gradient are skipped. Readers are not blocked and may see
+     * partially updated layers, as intended for Hogwild training.
+     *
+     * @return The number of rows that were updated.
+     */
+    public int applyGradientsByRow(double learningRate, LayerTrainingInstance layerTrainingInstance) {
+        return applyGradientsByRow(PLAIN_SGD, null, learningRate, 1, layerTrainingInstance);
+    }
+
+    /**
+     * Like {@link #applyGradientsByRow(double, LayerTrainingInstance)} with the optimizer. The state of skipped rows
+     * is not advanced, so their moments only decay when the rows get gradients again.
+     */
+    public int applyGradientsByRow(Optimizer optimizer, double learningRate, double gradientScale, LayerTrainingInstance layerTrainingInstance) {
+        return applyGradientsByRow(optimizer, getOptimizerState(optimizer), learningRate, gradientScale, layerTrainingInstance);
+    }
+
+    private int applyGradientsByRow(Optimizer optimizer, OptimizerState state, double learningRate, double gradientScale,
+                                    LayerTrainingInstance layerTrainingInstance) {
+        double[] costGradientW = layerTrainingInstance.getCostGradientW();
+        double[] costGradientB = layerTrainingInstance.getCostGradientB();
+
+        double[][] weightBuffers = state == null ? NO_BUFFERS : state.getWeightBuffers();
+        double[][] biasBuffers = state == null ? NO_BUFFERS : state.getBiasBuffers();
+        long step = state == null ? 0 : state.nextStep();
+
+        int rows = getWeightRows();
+        int rowLength = getWeightRowLength();
+        int updatedRows = 0;
+
+        for (int out = 0; out < rows; out++) {
+            int offset = out * rowLength;
+            if (costGradientB[out] == 0 && isZero(costGradientW, offset, rowLength)) continue;
+
+            synchronized (getRowLock(out)) {
+                optimizer.update(biases, costGradientB, biasBuffers, out, 1, learningRate, gradientScale, step);
+                updateWeights(optimizer, costGradientW, weightBuffers, offset, rowLength, learningRate, gradientScale, step);
             }
+
+            updatedRows++;
+        }
+
+        return updatedRows;
+    }
+
+    /**
+     * Updates the weights in [offset, offset + length) with the optimizer, subclasses with other weight arrays override this.
+     */
+    protected void updateWeights(Optimizer optimizer, double[] costGradientW, double[][] buffers, int offset, int length,
+                                 double learningRate, double gradientScale, long step) {
+        optimizer.update(weights, costGradientW, buffers, offset, length, learningRate, gradientScale, step);
+    }
+
+    /**
+     * @return The state of the optimizer, newly created if the layer was last updated by another optimizer.
+     */
+    private OptimizerState getOptimizerState(Optimizer optimizer) {
+        OptimizerState state = optimizerState;
+        if (state != null && state.getOptimizer() == optimizer) return state;
+
+        synchronized (this) {
+            if (optimizerState == null || optimizerState.getOptimizer() != optimizer) {
+                optimizerState = optimizer.createState(getWeightCount(), getBiasCount());
+            }
+            return optimizerState;
+        }
+    }
+
+    /**
+     * @return The state of the optimizer that last updated the layer, or null if it was never updated by one.
+     */
+    public OptimizerState getOptimizerState() {
+        return optimizerState;
+    }
+
+    void setOptimizerState(OptimizerState optimizerState) {
+        this.optimizerState = optimizerState;
+    }
+
+    /**
+     * @return The layer with a copy of the optimizer state of this layer, for copies of the layer.
+     */
+    protected Layer withOptimizerStateOf(Layer source) {
+        OptimizerState state = source.optimizerState;
+        optimizerState = state == null ? null : state.copy();
+        return this;
+    }
+
+    protected Object getRowLock(int nodeOut) {
+        return rowLocks[nodeOut % ROW_LOCK_STRIPES];
+    }
+
+    protected static boolean isZero(double[] array, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (array[i] != 0) return false;
         }
+        return true;
+    }
+
+    private static Object[] createRowLocks() {
+        Object[] locks = new Object[ROW_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
     }
 
 
@@ -63,24 +243,82 @@ public class Layer implements Serializable {
                     "Input-Doubles-Array length for this layer!");
         }
 
-        for (int out = 0; out < nodesOut; out++) {
+        // Bilden der Skalar-Produkte aller Nodes inklusive Bias-Wert, wie für einen Batch aus einem Datenpunkt
+        calculateWeightedInputs(inputs, activations, 1);
+
+        // Setzen des neuen Output-Werts jeder Node
+        activationFunction.activate(activations, activations, 0, nodesOut);
+
+
+        return activations;
+    }
 
-            // Bilden des Skalar-Produkts
-            double weightedInput = MathUtils.sumMultipliedArrays(inputs, weightsIn[out]);
 
-            // Addieren von Bias-Wert
-            weightedInput += biases[out];
 
-            // Setzen des neuen Output-Werts jeder Node
-            activations[out] = activationFunction.activation(weightedInput);
+    /**
+     * Calculates the weighted inputs of a whole batch with a single pass over the weights.
+     *
+     * @param inputs         Input activations of the batch, one row of nodesIn values per data point.
+     * @param weightedInputs Target array for the weighted inputs, one row of nodesOut values per data point.
+     */
+    public void calculateWeightedInputs(double[] inputs, double[] weightedInputs, int batchSize) {
+        MathUtils.matrixMultiplyTransposed(inputs, weights, biases, weightedInputs, batchSize, nodesOut, nodesIn);
+    }
+
+    /**
+     * Adds the cost gradients of a whole batch to the given gradient arrays.
+     *
+     * @param inputs     Input activations of the batch, one row of nodesIn values per data point.
+     * @param nodeValues Node values of the batch, one row of nodesOut values per data point.
+     */
+    public void accumulateGradients(double[] inputs, double[] nodeValues, double[] costGradientW, double[] costGradientB, int batchSize) {
+        MathUtils.addTransposedMatrixMultiply(nodeValues, inputs, costGradientW, batchSize, nodesOut, nodesIn);
+
+        for (int batch = 0; batch < batchSize; batch++) {
+            int offset = batch * nodesOut;
+            for (int out = 0; out < nodesOut; out++) {
+                costGradientB[out] += nodeValues[offset + out];
+            }
         }
+    }
 
+    /**
+     * Propagates the node values of a batch back to the activations of the previous layer,
+     * without the derivative of the previous layer's activation function.
+     *
+     * @param nodeValues         Node values of this layer, one row of nodesOut values per data point.
+     * @param previousNodeValues Target array, one row of nodesIn values per data point.
+     */
+    public void backpropagateNodeValues(double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        MathUtils.matrixMultiply(nodeValues, weights, previousNodeValues, batchSize, nodesOut, nodesIn);
+    }
 
-        return activations;
+    /**
+     * Like {@link #backpropagateNodeValues(double[], double[], int)} for layers whose derivatives depend on the
+     * inputs of the batch, e.g. max pooling.
+     *
+     * @param inputs Input activations of the batch, one row of nodesIn values per data point.
+     */
+    public void backpropagateNodeValues(double[] inputs, double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        backpropagateNodeValues(nodeValues, previousNodeValues, batchSize);
     }
 
 
 
+    /**
+     * @return A copy of this layer that stores its weights with the given precision.
+     */
+    public Layer convertToPrecision(Precision precision) {
+        if (precision == Precision.FLOAT) {
+            return new FloatLayer(nodesIn, nodesOut, MathUtils.toFloatArray(weights), biases, activationFunction, costFunction).withOptimizerStateOf(this);
+        }
+        return new Layer(nodesIn, nodesOut, weights.clone(), biases.clone(), activationFunction, costFunction).withOptimizerStateOf(this);
+    }
+
+    public Precision getPrecision() {
+        return Precision.DOUBLE;
+    }
+
     public int getNodesIn() {
         return nodesIn;
     }
@@ -89,7 +327,52 @@ public class Layer implements Serializable {
         return nodesOut;
     }
 
+    /**
+     * @return The number of rows of the weight matrix, each row has one bias. Dense layers have one row per output node.
+     */
+    public int getWeightRows() {
+        return nodesOut;
+    }
+
+    /**
+     * @return The number of weights in every row, nodesIn for dense layers.
+     */
+    public int getWeightRowLength() {
+        return nodesIn;
+    }
+
+    public int getWeightCount() {
+        return getWeightRows() * getWeightRowLength();
+    }
+
+    public int getBiasCount() {
+        return getWeightRows();
+    }
+
+    /**
+     * @return The weights as one flat, row-major array, the weight from input node in to output node out is stored at index out * nodesIn + in.
+     * Layers with {@link Precision#FLOAT} return a converted copy, layers with other weight rows store them the same way
+     * with getWeightRowLength() weights per row.
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    public double getWeight(int nodeOut, int nodeIn) {
+        return weights[nodeOut * getWeightRowLength() + nodeIn];
+    }
+
+    /**
+     * @return A copy of the weights as one array per row. Changes to the copy do not affect the layer.
+     */
     public double[][] getWeightsIn() {
+        int rows = getWeightRows();
+        int rowLength = getWeightRowLength();
+
+        double[][] weightsIn = new double[rows][rowLength];
+        for (int out = 0; out < rows; out++) {
+            System.arraycopy(weights, out * rowLength, weightsIn[out], 0, rowLength);
+        }
         return weightsIn;
     }
 
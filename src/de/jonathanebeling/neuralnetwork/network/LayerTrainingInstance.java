@@ -1,101 +1,148 @@
 package de.jonathanebeling.neuralnetwork.network;
 
-import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
 
+import java.util.Arrays;
+
+/**
+ * Long-lived workspace for training a single layer. All buffers are allocated once for the largest batch size seen
+ * so far and reused afterwards, so a training step in steady state does not allocate.
+ * The arrays returned by the getters are these buffers, only the first batchSize rows of the last call are valid.
+ */
 public class LayerTrainingInstance {
 
-    private final double[][] costGradientW;
+    // Gradienten in derselben flachen Anordnung wie die Gewichte des Layers
+    private final double[] costGradientW;
     private final double[] costGradientB;
 
+    // Alle folgenden Arrays enthalten eine Zeile pro Datenpunkt des zuletzt berechneten Batches
     private double[] lastActivations;
     private double[] lastWeightedInputs;
     private double[] lastInputs;
 
     private final Layer layer;
 
+    // Softmax mit Cross-Entropy: Die Node-Values des Output-Layers sind direkt p - y
+    private final boolean softmaxCrossEntropy;
+
     private double[] nodeValues;
 
+    private int batchCapacity = 0;
+
     public LayerTrainingInstance(Layer layer) {
         this.layer = layer;
 
-        costGradientW = new double[layer.getNodesOut()][layer.getNodesIn()];
-        costGradientB = new double[layer.getNodesOut()];
+        costGradientW = new double[layer.getWeightCount()];
+        costGradientB = new double[layer.getBiasCount()];
+
+        softmaxCrossEntropy = layer.getActivationFunction() instanceof SoftmaxActivation
+                && layer.getCostFunction() instanceof CrossEntropyCost;
+
+        ensureBatchCapacity(1);
     }
 
+    private void ensureBatchCapacity(int batchSize) {
+        if (batchSize <= batchCapacity) return;
+
+        int size = batchSize * layer.getNodesOut();
+        lastActivations = new double[size];
+        lastWeightedInputs = new double[size];
+        nodeValues = new double[size];
+
+        batchCapacity = batchSize;
+    }
+
+    public void addGradients(LayerTrainingInstance other) {
+        double[] otherGradientW = other.getCostGradientW();
+        double[] otherGradientB = other.getCostGradientB();
+
+        for (int i = 0; i < costGradientW.length; i++) {
+            costGradientW[i] += otherGradientW[i];
+        }
+        for (int i = 0; i < costGradientB.length; i++) {
+            costGradientB[i] += otherGradientB[i];
+        }
+    }
+
+    public void clearGradients() {
+        Arrays.fill(costGradientW, 0);
+        Arrays.fill(costGradientB, 0);
+    }
 
-    public double[] calculateOutputActivations(double[] inputs) {
-        double[] activations = new double[layer.getNodesOut()];
-        double[] weightedInputs = new double[layer.getNodesOut()];
 
+    /**
+     * @return A copy of the nodesOut activations of the data point, the buffers of the instance may hold more rows.
+     */
+    public double[] calculateOutputActivations(double[] inputs) {
         if (inputs.length != layer.getNodesIn()) {
-            System.out.println("Input-Doubles-Array not same length as required Input-Doubles-Array length for this layer!");
+            throw new IllegalArgumentException("Input-Doubles-Array not same length as required " +
+                    "Input-Doubles-Array length for this layer!");
         }
 
-        for (int out = 0; out < layer.getNodesOut(); out++) {
+        return Arrays.copyOf(calculateOutputActivations(inputs, 1), layer.getNodesOut());
+    }
 
-            double weightedInput = MathUtils.sumMultipliedArrays(inputs, layer.getWeightsIn()[out]);
-            weightedInput += layer.getBiases()[out];
+    /**
+     * @param inputs Input activations of the batch, one row of nodesIn values per data point.
+     * @return The activations of the batch, one row of nodesOut values per data point.
+     */
+    public double[] calculateOutputActivations(double[] inputs, int batchSize) {
+        ensureBatchCapacity(batchSize);
 
+        layer.calculateWeightedInputs(inputs, lastWeightedInputs, batchSize);
 
-            weightedInputs[out] = weightedInput;
-            activations[out] = layer.getActivationFunction().activation(weightedInput);
-        }
+        layer.getActivationFunction().activateRows(lastWeightedInputs, lastActivations, batchSize, layer.getNodesOut());
 
-        lastActivations = activations;
-        lastWeightedInputs = weightedInputs;
         lastInputs = inputs;
 
-        return activations;
+        return lastActivations;
     }
 
 
     public void updateGradients() {
-        for (int nodeOut = 0; nodeOut < layer.getNodesOut(); nodeOut++) {
-            for (int nodeIn = 0; nodeIn < layer.getNodesIn(); nodeIn++) {
-                double derivativeCostWrtWeight = lastInputs[nodeIn] * nodeValues[nodeOut];
-
-                costGradientW[nodeOut][nodeIn] += derivativeCostWrtWeight;
-            }
-
-
+        updateGradients(1);
+    }
 
-            double derivativeCostWrtBias = 1 * nodeValues[nodeOut];
-            costGradientB[nodeOut] += derivativeCostWrtBias;
-        }
+    public void updateGradients(int batchSize) {
+        layer.accumulateGradients(lastInputs, nodeValues, costGradientW, costGradientB, batchSize);
     }
 
 
     public void updateOutputLayerNodeValues(double[] expectedOutputs) {
-        double[] nodeValues = new double[expectedOutputs.length];
+        updateOutputLayerNodeValues(expectedOutputs, 1);
+    }
 
-        for (int i = 0; i < nodeValues.length; i++) {
-            // Evaluate partial derivatives for current node: cost/activation & activation/weightedInput
+    /**
+     * @param expectedOutputs Expected output activations of the batch, one row of nodesOut values per data point.
+     */
+    public void updateOutputLayerNodeValues(double[] expectedOutputs, int batchSize) {
+        int length = batchSize * layer.getNodesOut();
 
-            double costDerivative = layer.getCostFunction().derivative(lastActivations[i], expectedOutputs[i]);
-            double activationDerivative = layer.getActivationFunction().derivative(lastWeightedInputs[i]);
-            nodeValues[i] = activationDerivative * costDerivative;
+        if (softmaxCrossEntropy) {
+            // Ableitung der Cross-Entropy nach den gewichteten Inputs des Softmax, ohne die einzelnen Ableitungen
+            for (int i = 0; i < length; i++) {
+                nodeValues[i] = lastActivations[i] - expectedOutputs[i];
+            }
+            return;
         }
 
-        this.nodeValues = nodeValues;
+        // Partielle Ableitungen für den ganzen Batch: cost/activation, dann mal activation/weightedInput
+        layer.getCostFunction().derivatives(lastActivations, expectedOutputs, nodeValues, 0, length);
+        layer.getActivationFunction().multiplyDerivativesRows(lastWeightedInputs, lastActivations, nodeValues,
+                batchSize, layer.getNodesOut());
     }
 
     public void updateHiddenLayerNodeValues(LayerTrainingInstance oldLayer) {
-        double[] newNodeValues = new double[layer.getNodesOut()];
-        double[] oldNodeValues = oldLayer.getNodeValues();
-
-        for (int newNodeIndex = 0; newNodeIndex < newNodeValues.length; newNodeIndex++) {
-            double newNodeValue = 0;
-            for (int oldNodeIndex = 0; oldNodeIndex < oldNodeValues.length; oldNodeIndex++) {
-                double weightedInputDerivative = oldLayer.getLayer().getWeightsIn()[oldNodeIndex][newNodeIndex];
-                newNodeValue += weightedInputDerivative * oldNodeValues[oldNodeIndex];
-            }
-
+        updateHiddenLayerNodeValues(oldLayer, 1);
+    }
 
-            newNodeValue *= layer.getActivationFunction().derivative(lastWeightedInputs[newNodeIndex]);
-            newNodeValues[newNodeIndex] = newNodeValue;
-        }
+    public void updateHiddenLayerNodeValues(LayerTrainingInstance oldLayer, int batchSize) {
+        // Ableitungen der gewichteten Inputs des alten Layers nach den Aktivierungen dieses Layers sind dessen Gewichte
+        oldLayer.getLayer().backpropagateNodeValues(oldLayer.getLastInputs(), oldLayer.getNodeValues(), nodeValues, batchSize);
 
-        this.nodeValues = newNodeValues;
+        layer.getActivationFunction().multiplyDerivativesRows(lastWeightedInputs, lastActivations, nodeValues,
+                batchSize, layer.getNodesOut());
     }
 
 
@@ -116,7 +163,7 @@ public class LayerTrainingInstance {
         return lastInputs;
     }
 
-    public double[][] getCostGradientW() {
+    public double[] getCostGradientW() {
         return costGradientW;
     }
 
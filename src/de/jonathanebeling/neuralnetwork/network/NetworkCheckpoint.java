@@ -0,0 +1,507 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
+import de.jonathanebeling.neuralnetwork.activation_functions.IdentityActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SigmoidActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
+import de.jonathanebeling.neuralnetwork.cost_functions.SumOfSquaredErrorsCost;
+import de.jonathanebeling.neuralnetwork.optimizers.AdamOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.AdamWOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.MomentumOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.OptimizerState;
+import de.jonathanebeling.neuralnetwork.optimizers.RmsPropOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.SgdOptimizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary checkpoint format of a {@link NeuralNetwork}. All numbers are little endian.
+ * <pre>
+ * int    magic "NNCK", int version
+ * byte   precision (0 = double, 1 = float), byte early stopping, int early stopping patience
+ * int    cost function ID, int trained epochs, int layer count
+ * int    length of the save directory path in bytes, UTF-8 bytes of the path, padding to a multiple of 8
+ * per layer: int layer type, int activation function ID, int nodes in, int nodes out,
+ *            since version 3: int precision of the layer, 7 ints parameters of the layer type
+ *            (convolution: width, height, channels, filters, kernel size, stride, padding;
+ *             pooling: width, height, channels, pool size, stride, 0, 0; dense: all 0)
+ * per layer: bias count doubles biases, then weight count weights (doubles or floats), padding to a multiple of 8
+ * since version 2:
+ * int    optimizer ID, int hyperparameter count, hyperparameter count doubles
+ * per layer: long optimizer steps, int buffer count (0 if the layer has no state), int padding,
+ *            per buffer weight count doubles for the weights, then bias count doubles for the biases
+ * </pre>
+ * Dense layers have nodes out * nodes in weights and nodes out biases, convolutions one row of weights and one bias
+ * per filter and pooling layers none. Version 1 files have no optimizer section and are loaded with plain SGD,
+ * files before version 3 contain only dense layers which all have the precision of the network.
+ * Files are read through a memory mapped channel and every value of the header is validated, so the weights are
+ * copied into the layers with bulk reads and a broken or foreign file is rejected with an {@link IOException}.
+ */
+public final class NetworkCheckpoint {
+
+    public static final String FILE_EXTENSION = ".nnc";
+
+    private static final int MAGIC = 0x4B434E4E; // "NNCK" little endian
+    private static final int VERSION = 3;
+
+    private static final int DENSE_LAYER = 0;
+    private static final int CONV_2D_LAYER = 1;
+    private static final int MAX_POOLING_LAYER = 2;
+    private static final int AVERAGE_POOLING_LAYER = 3;
+
+    private static final int LEGACY_LAYER_HEADER_INTS = 4;
+    private static final int LAYER_HEADER_INTS = 12;
+    private static final int LAYER_PARAMETERS = 7;
+
+    private static final int RELU = 0;
+    private static final int SIGMOID = 1;
+    private static final int SOFTMAX = 2;
+    private static final int IDENTITY = 3;
+
+    private static final int SUM_OF_SQUARED_ERRORS = 0;
+    private static final int CROSS_ENTROPY = 1;
+
+    private static final int SGD = 0;
+    private static final int MOMENTUM = 1;
+    private static final int RMS_PROP = 2;
+    private static final int ADAM = 3;
+    private static final int ADAM_W = 4;
+
+    private NetworkCheckpoint() {
+    }
+
+    public static void write(NeuralNetwork network, String filePath) throws IOException {
+        Layer[] layers = network.getLayers();
+        byte[] path = network.getSaveDirectoryPath().getBytes(StandardCharsets.UTF_8);
+
+        int headerSize = align(6 * 4 + 2 + 4 + path.length) + layers.length * LAYER_HEADER_INTS * 4;
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.put((byte) network.getPrecision().ordinal());
+        header.put((byte) (network.isEarlyStopping() ? 1 : 0));
+        header.putInt(network.getEarlyStoppingPatience());
+        header.putInt(costFunctionId(network.getCostFunction()));
+        header.putInt(network.getTrainedEpochs());
+        header.putInt(layers.length);
+        header.putInt(path.length).put(path);
+        header.position(align(header.position()));
+
+        for (Layer layer : layers) {
+            header.putInt(layerType(layer));
+            header.putInt(activationFunctionId(layer.getActivationFunction()));
+            header.putInt(layer.getNodesIn());
+            header.putInt(layer.getNodesOut());
+            header.putInt(layer.getPrecision().ordinal());
+            for (int parameter : layerParameters(layer)) {
+                header.putInt(parameter);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header.flip());
+
+            for (Layer layer : layers) {
+                ByteBuffer block = ByteBuffer.allocate((int) layerDataSize(layer.getBiasCount(), layer.getWeightCount(), layer.getPrecision()))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+
+                block.asDoubleBuffer().put(layer.getBiases());
+                block.position(layer.getBiasCount() * Double.BYTES);
+
+                if (layer instanceof FloatLayer floatLayer) {
+                    block.asFloatBuffer().put(floatLayer.getFloatWeights());
+                } else {
+                    block.asDoubleBuffer().put(layer.getWeights());
+                }
+
+                writeFully(channel, block.rewind());
+            }
+
+            writeOptimizer(channel, network);
+
+            // Auf die Platte bringen, bevor die Datei umbenannt wird
+            channel.force(true);
+        }
+    }
+
+    private static void writeOptimizer(FileChannel channel, NeuralNetwork network) throws IOException {
+        Optimizer optimizer = network.getOptimizer();
+        double[] hyperparameters = hyperparameters(optimizer);
+
+        ByteBuffer header = ByteBuffer.allocate(2 * 4 + hyperparameters.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(optimizerId(optimizer)).putInt(hyperparameters.length);
+        header.asDoubleBuffer().put(hyperparameters);
+        writeFully(channel, header.rewind());
+
+        for (Layer layer : network.getLayers()) {
+            // Zustand eines anderen Optimierers würde beim nächsten Update ohnehin verworfen
+            OptimizerState state = layer.getOptimizerState();
+            boolean hasState = state != null && state.getOptimizer() == optimizer && optimizer.getBufferCount() > 0;
+            int bufferCount = hasState ? optimizer.getBufferCount() : 0;
+            int biasCount = layer.getBiasCount();
+
+            ByteBuffer block = ByteBuffer.allocate(Long.BYTES + 2 * 4
+                    + bufferCount * (layer.getWeightCount() + biasCount) * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            block.putLong(hasState ? state.getSteps() : 0).putInt(bufferCount).putInt(0);
+
+            for (int i = 0; i < bufferCount; i++) {
+                block.asDoubleBuffer().put(state.getWeightBuffers()[i]);
+                block.position(block.position() + state.getWeightBuffers()[i].length * Double.BYTES);
+                block.asDoubleBuffer().put(state.getBiasBuffers()[i]);
+                block.position(block.position() + biasCount * Double.BYTES);
+            }
+
+            writeFully(channel, block.flip());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Loads a network that saves into the directory stored in the checkpoint.
+     */
+    public static NeuralNetwork read(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException(path + ": checkpoint larger than 2 GB");
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.LITTLE_ENDIAN);
+            if (fileSize < 6 * 4 + 2 + 4 || buffer.getInt() != MAGIC) {
+                throw new IOException(path + ": not a network checkpoint");
+            }
+
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(path + ": unsupported checkpoint version " + version);
+            }
+
+            int precisionIndex = buffer.get();
+            if (precisionIndex < 0 || precisionIndex >= Precision.values().length) {
+                throw new IOException(path + ": unknown precision " + precisionIndex);
+            }
+            Precision precision = Precision.values()[precisionIndex];
+            boolean earlyStopping = buffer.get() != 0;
+            int earlyStoppingPatience = buffer.getInt();
+            CostFunction costFunction = createCostFunction(path, buffer.getInt());
+            int trainedEpochs = buffer.getInt();
+            int layerCount = buffer.getInt();
+            int pathLength = buffer.getInt();
+
+            if (layerCount <= 0 || pathLength < 0 || pathLength > buffer.remaining()) {
+                throw new IOException(path + ": corrupt header");
+            }
+            byte[] pathBytes = new byte[pathLength];
+            buffer.get(pathBytes);
+            buffer.position(align(buffer.position()));
+
+            int headerInts = version >= 3 ? LAYER_HEADER_INTS : LEGACY_LAYER_HEADER_INTS;
+            if ((long) layerCount * headerInts * 4 > buffer.remaining()) {
+                throw new IOException(path + ": corrupt header");
+            }
+
+            int[] layerTypes = new int[layerCount];
+            ActivationFunction[] activationFunctions = new ActivationFunction[layerCount];
+            Precision[] layerPrecisions = new Precision[layerCount];
+            int[][] parameters = new int[layerCount][LAYER_PARAMETERS];
+            int[] numLayers = new int[layerCount + 1];
+            long expectedSize = buffer.position() + (long) layerCount * headerInts * 4;
+
+            for (int i = 0; i < layerCount; i++) {
+                layerTypes[i] = buffer.getInt();
+                if (layerTypes[i] < DENSE_LAYER || layerTypes[i] > AVERAGE_POOLING_LAYER) {
+                    throw new IOException(path + ": unknown layer type " + layerTypes[i]);
+                }
+
+                activationFunctions[i] = createActivationFunction(path, buffer.getInt());
+                int nodesIn = buffer.getInt();
+                int nodesOut = buffer.getInt();
+
+                layerPrecisions[i] = precision;
+                if (version >= 3) {
+                    int layerPrecisionIndex = buffer.getInt();
+                    if (layerPrecisionIndex < 0 || layerPrecisionIndex >= Precision.values().length) {
+                        throw new IOException(path + ": unknown precision " + layerPrecisionIndex + " at layer " + i);
+                    }
+                    layerPrecisions[i] = Precision.values()[layerPrecisionIndex];
+                    for (int k = 0; k < LAYER_PARAMETERS; k++) {
+                        parameters[i][k] = buffer.getInt();
+                    }
+                }
+
+                if (nodesIn <= 0 || nodesOut <= 0 || (i > 0 && nodesIn != numLayers[i])) {
+                    throw new IOException(path + ": invalid topology at layer " + i);
+                }
+                numLayers[i] = nodesIn;
+                numLayers[i + 1] = nodesOut;
+                expectedSize += layerDataSize(biasCount(layerTypes[i], nodesOut, parameters[i]),
+                        weightCount(layerTypes[i], nodesIn, nodesOut, parameters[i]), layerPrecisions[i]);
+            }
+
+            // Ab Version 2 folgt noch der Abschnitt des Optimierers
+            if (version == 1 ? expectedSize != fileSize : expectedSize > fileSize) {
+                throw new IOException(path + ": expected " + expectedSize + " bytes but file has " + fileSize);
+            }
+
+            Layer[] layers = new Layer[layerCount];
+            for (int i = 0; i < layerCount; i++) {
+                int nodesIn = numLayers[i];
+                int nodesOut = numLayers[i + 1];
+
+                double[] biases = new double[(int) biasCount(layerTypes[i], nodesOut, parameters[i])];
+                buffer.asDoubleBuffer().get(biases);
+                buffer.position(buffer.position() + biases.length * Double.BYTES);
+
+                int weightCount = (int) weightCount(layerTypes[i], nodesIn, nodesOut, parameters[i]);
+                if (layerPrecisions[i] == Precision.FLOAT) {
+                    if (layerTypes[i] != DENSE_LAYER) {
+                        throw new IOException(path + ": float weights at layer " + i + " which is not dense");
+                    }
+                    float[] weights = new float[weightCount];
+                    buffer.asFloatBuffer().get(weights);
+                    buffer.position(align(buffer.position() + weights.length * Float.BYTES));
+                    layers[i] = new FloatLayer(nodesIn, nodesOut, weights, biases, activationFunctions[i], costFunction);
+                } else {
+                    double[] weights = new double[weightCount];
+                    buffer.asDoubleBuffer().get(weights);
+                    buffer.position(buffer.position() + weights.length * Double.BYTES);
+                    layers[i] = createLayer(path, i, layerTypes[i], nodesIn, nodesOut, parameters[i], weights, biases,
+                            activationFunctions[i], costFunction);
+                }
+            }
+
+            NeuralNetwork network = new NeuralNetwork(numLayers, activationFunctions[0], costFunction,
+                    new String(pathBytes, StandardCharsets.UTF_8), layers);
+            network.setTrainedEpochs(trainedEpochs);
+            network.setEarlyStopping(earlyStopping);
+            network.setEarlyStoppingPatience(earlyStoppingPatience);
+
+            if (version >= 2) {
+                readOptimizer(path, buffer, network);
+                if (buffer.hasRemaining()) {
+                    throw new IOException(path + ": " + buffer.remaining() + " unexpected bytes at the end");
+                }
+            }
+            return network;
+        }
+    }
+
+    private static void readOptimizer(Path path, ByteBuffer buffer, NeuralNetwork network) throws IOException {
+        if (buffer.remaining() < 2 * 4) {
+            throw new IOException(path + ": missing optimizer");
+        }
+        int id = buffer.getInt();
+        int hyperparameterCount = buffer.getInt();
+        if (hyperparameterCount < 0 || (long) hyperparameterCount * Double.BYTES > buffer.remaining()) {
+            throw new IOException(path + ": corrupt optimizer");
+        }
+        double[] hyperparameters = new double[hyperparameterCount];
+        buffer.asDoubleBuffer().get(hyperparameters);
+        buffer.position(buffer.position() + hyperparameterCount * Double.BYTES);
+
+        Optimizer optimizer = createOptimizer(path, id, hyperparameters);
+        network.setOptimizer(optimizer);
+
+        for (Layer layer : network.getLayers()) {
+            if (buffer.remaining() < Long.BYTES + 2 * 4) {
+                throw new IOException(path + ": missing optimizer state");
+            }
+            long steps = buffer.getLong();
+            int bufferCount = buffer.getInt();
+            buffer.getInt();
+            if (bufferCount == 0) continue;
+
+            int weightCount = layer.getWeightCount();
+            int biasCount = layer.getBiasCount();
+            if (bufferCount != optimizer.getBufferCount() || steps < 0
+                    || (long) bufferCount * (weightCount + biasCount) * Double.BYTES > buffer.remaining()) {
+                throw new IOException(path + ": corrupt optimizer state");
+            }
+
+            OptimizerState state = optimizer.createState(weightCount, biasCount);
+            state.setSteps(steps);
+            for (int i = 0; i < bufferCount; i++) {
+                buffer.asDoubleBuffer().get(state.getWeightBuffers()[i]);
+                buffer.position(buffer.position() + weightCount * Double.BYTES);
+                buffer.asDoubleBuffer().get(state.getBiasBuffers()[i]);
+                buffer.position(buffer.position() + biasCount * Double.BYTES);
+            }
+            layer.setOptimizerState(state);
+        }
+    }
+
+    private static long layerDataSize(long biasCount, long weightCount, Precision precision) {
+        int weightBytes = precision == Precision.FLOAT ? Float.BYTES : Double.BYTES;
+        return biasCount * Double.BYTES + align(weightCount * weightBytes);
+    }
+
+    private static int layerType(Layer layer) {
+        if (layer instanceof Conv2DLayer) return CONV_2D_LAYER;
+        if (layer instanceof PoolingLayer pooling) {
+            return pooling.getType() == PoolingType.MAX ? MAX_POOLING_LAYER : AVERAGE_POOLING_LAYER;
+        }
+        return DENSE_LAYER;
+    }
+
+    private static int[] layerParameters(Layer layer) {
+        if (layer instanceof Conv2DLayer conv) {
+            return new int[]{conv.getInputWidth(), conv.getInputHeight(), conv.getInputChannels(), conv.getFilters(),
+                    conv.getKernelSize(), conv.getStride(), conv.getPadding()};
+        }
+        if (layer instanceof PoolingLayer pooling) {
+            return new int[]{pooling.getInputWidth(), pooling.getInputHeight(), pooling.getChannels(),
+                    pooling.getPoolSize(), pooling.getStride(), 0, 0};
+        }
+        return new int[LAYER_PARAMETERS];
+    }
+
+    /**
+     * Number of weights of a layer from its header, as long so that broken headers can not overflow.
+     */
+    private static long weightCount(int layerType, int nodesIn, int nodesOut, int[] parameters) {
+        return switch (layerType) {
+            case DENSE_LAYER -> (long) nodesOut * nodesIn;
+            case CONV_2D_LAYER -> (long) Math.max(parameters[3], 0) * Math.max(parameters[4], 0) * Math.max(parameters[4], 0) * Math.max(parameters[2], 0);
+            default -> 0;
+        };
+    }
+
+    private static long biasCount(int layerType, int nodesOut, int[] parameters) {
+        return switch (layerType) {
+            case DENSE_LAYER -> nodesOut;
+            case CONV_2D_LAYER -> Math.max(parameters[3], 0);
+            default -> 0;
+        };
+    }
+
+    private static Layer createLayer(Path path, int index, int layerType, int nodesIn, int nodesOut, int[] parameters,
+                                     double[] weights, double[] biases, ActivationFunction activationFunction,
+                                     CostFunction costFunction) throws IOException {
+        Layer layer;
+        try {
+            layer = switch (layerType) {
+                case CONV_2D_LAYER -> new Conv2DLayer(parameters[0], parameters[1], parameters[2], parameters[3],
+                        parameters[4], parameters[5], parameters[6], weights, biases, activationFunction);
+                case MAX_POOLING_LAYER, AVERAGE_POOLING_LAYER -> new PoolingLayer(
+                        layerType == MAX_POOLING_LAYER ? PoolingType.MAX : PoolingType.AVERAGE,
+                        parameters[0], parameters[1], parameters[2], parameters[3], parameters[4]);
+                default -> new Layer(nodesIn, nodesOut, weights, biases, activationFunction, costFunction);
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": invalid parameters at layer " + index, e);
+        }
+
+        if (layer.getNodesIn() != nodesIn || layer.getNodesOut() != nodesOut) {
+            throw new IOException(path + ": invalid topology at layer " + index);
+        }
+        return layer;
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static int activationFunctionId(ActivationFunction activationFunction) {
+        if (activationFunction instanceof ReLuActivation) return RELU;
+        if (activationFunction instanceof SigmoidActivation) return SIGMOID;
+        if (activationFunction instanceof SoftmaxActivation) return SOFTMAX;
+        if (activationFunction instanceof IdentityActivation) return IDENTITY;
+        throw new IllegalArgumentException("Activation function " + activationFunction.getClass().getName() + " can not be saved in a checkpoint");
+    }
+
+    private static ActivationFunction createActivationFunction(Path path, int id) throws IOException {
+        return switch (id) {
+            case RELU -> new ReLuActivation();
+            case SIGMOID -> new SigmoidActivation();
+            case SOFTMAX -> new SoftmaxActivation();
+            case IDENTITY -> new IdentityActivation();
+            default -> throw new IOException(path + ": unknown activation function " + id);
+        };
+    }
+
+    private static int costFunctionId(CostFunction costFunction) {
+        if (costFunction instanceof SumOfSquaredErrorsCost) return SUM_OF_SQUARED_ERRORS;
+        if (costFunction instanceof CrossEntropyCost) return CROSS_ENTROPY;
+        throw new IllegalArgumentException("Cost function " + costFunction.getClass().getName() + " can not be saved in a checkpoint");
+    }
+
+    private static int optimizerId(Optimizer optimizer) {
+        if (optimizer instanceof AdamWOptimizer) return ADAM_W;
+        if (optimizer instanceof AdamOptimizer) return ADAM;
+        if (optimizer instanceof RmsPropOptimizer) return RMS_PROP;
+        if (optimizer instanceof MomentumOptimizer) return MOMENTUM;
+        if (optimizer instanceof SgdOptimizer) return SGD;
+        throw new IllegalArgumentException("Optimizer " + optimizer.getClass().getName() + " can not be saved in a checkpoint");
+    }
+
+    private static double[] hyperparameters(Optimizer optimizer) {
+        if (optimizer instanceof AdamWOptimizer adam) {
+            return new double[]{adam.getBeta1(), adam.getBeta2(), adam.getEpsilon(), adam.getWeightDecay()};
+        }
+        if (optimizer instanceof AdamOptimizer adam) {
+            return new double[]{adam.getBeta1(), adam.getBeta2(), adam.getEpsilon()};
+        }
+        if (optimizer instanceof RmsPropOptimizer rmsProp) {
+            return new double[]{rmsProp.getDecay(), rmsProp.getEpsilon()};
+        }
+        if (optimizer instanceof MomentumOptimizer momentum) {
+            return new double[]{momentum.getMomentum(), momentum.isNesterov() ? 1 : 0};
+        }
+        return new double[0];
+    }
+
+    private static Optimizer createOptimizer(Path path, int id, double[] hyperparameters) throws IOException {
+        int expectedCount = switch (id) {
+            case SGD -> 0;
+            case MOMENTUM, RMS_PROP -> 2;
+            case ADAM -> 3;
+            case ADAM_W -> 4;
+            default -> throw new IOException(path + ": unknown optimizer " + id);
+        };
+        if (hyperparameters.length != expectedCount) {
+            throw new IOException(path + ": expected " + expectedCount + " hyperparameters for optimizer " + id);
+        }
+
+        try {
+            return switch (id) {
+                case MOMENTUM -> new MomentumOptimizer(hyperparameters[0], hyperparameters[1] != 0);
+                case RMS_PROP -> new RmsPropOptimizer(hyperparameters[0], hyperparameters[1]);
+                case ADAM -> new AdamOptimizer(hyperparameters[0], hyperparameters[1], hyperparameters[2]);
+                case ADAM_W -> new AdamWOptimizer(hyperparameters[0], hyperparameters[1], hyperparameters[2], hyperparameters[3]);
+                default -> new SgdOptimizer();
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": invalid hyperparameters for optimizer " + id, e);
+        }
+    }
+
+    private static CostFunction createCostFunction(Path path, int id) throws IOException {
+        return switch (id) {
+            case SUM_OF_SQUARED_ERRORS -> new SumOfSquaredErrorsCost();
+            case CROSS_ENTROPY -> new CrossEntropyCost();
+            default -> throw new IOException(path + ": unknown cost function " + id);
+        };
+    }
+}
@@ -1,12 +1,21 @@
 package de.jonathanebeling.neuralnetwork.network;
 
 import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.data.MiniBatch;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingMetrics;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingPhase;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+
+import java.util.Arrays;
 
 public class NetworkTrainingInstance {
 
     private final NeuralNetwork network;
     private final LayerTrainingInstance[] layerTrainingInstances;
 
+    // Wiederverwendeter Batch für das Training mit DataPoints
+    private final MiniBatch packedBatch;
+
 
     public NetworkTrainingInstance(NeuralNetwork network) {
         this.network = network;
@@ -16,27 +25,100 @@ public class NetworkTrainingInstance {
         for (int i = 0; i < layerTrainingInstances.length; i++) {
             layerTrainingInstances[i] = new LayerTrainingInstance(network.getLayers()[i]);
         }
+
+        packedBatch = new MiniBatch(layerTrainingInstances[0].getLayer().getNodesIn(),
+                layerTrainingInstances[layerTrainingInstances.length - 1].getLayer().getNodesOut(), 1);
     }
 
 
+    /**
+     * @return A copy of the output activations of the data point.
+     */
     public double[] calculateOutputs(double[] inputActivations) {
+        if (inputActivations.length != layerTrainingInstances[0].getLayer().getNodesIn()) {
+            throw new IllegalArgumentException("Input-Doubles-Array not same length as required " +
+                    "Input-Doubles-Array length for this network!");
+        }
+
+        // Wie ein Batch aus einem Datenpunkt, die Puffer der Layer können mehr Zeilen enthalten
+        double[] outputs = calculateOutputs(inputActivations, 1);
+        return Arrays.copyOf(outputs, layerTrainingInstances[layerTrainingInstances.length - 1].getLayer().getNodesOut());
+    }
+
+    /**
+     * @param inputActivations Input activations of the batch, one row per data point.
+     * @return The output activations of the batch, one row per data point.
+     */
+    public double[] calculateOutputs(double[] inputActivations, int batchSize) {
         for (LayerTrainingInstance layer : layerTrainingInstances) {
-            inputActivations = layer.calculateOutputActivations(inputActivations);
+            inputActivations = layer.calculateOutputActivations(inputActivations, batchSize);
         }
         return inputActivations;
     }
 
 
 
-    public void applyAllGradients(double learningRate) {
+    /**
+     * Applies the gradients of all layers with the optimizer of the network, each under the lock of its layer.
+     * The time waited for the locks is recorded in the training metrics of the network.
+     *
+     * @param gradientScale Factor the accumulated gradients are multiplied with, e.g. 1 / batch size.
+     */
+    public void applyAllGradients(double learningRate, double gradientScale) {
+        Optimizer optimizer = network.getOptimizer();
+        long startNanos = System.nanoTime();
+        long lockWaitNanos = 0;
 
         for (LayerTrainingInstance layer : layerTrainingInstances) {
-            layer.getLayer().applyGradients(learningRate, layer);
+            // Layer.applyGradients sperrt dieselbe Schicht, so lässt sich die Wartezeit getrennt messen
+            long lockNanos = System.nanoTime();
+            synchronized (layer.getLayer()) {
+                lockWaitNanos += System.nanoTime() - lockNanos;
+                layer.getLayer().applyGradients(optimizer, learningRate, gradientScale, layer);
+            }
+        }
+
+        TrainingMetrics metrics = network.getTrainingMetrics();
+        metrics.record(TrainingPhase.LOCK_WAIT, lockWaitNanos);
+        metrics.record(TrainingPhase.APPLY_GRADIENTS, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Applies the gradients of all layers row by row without locking whole layers, see {@link Layer#applyGradientsByRow}.
+     *
+     * @return The number of rows that were updated.
+     */
+    public int applyAllGradientsByRow(double learningRate, double gradientScale) {
+        Optimizer optimizer = network.getOptimizer();
+        long startNanos = System.nanoTime();
+        int updatedRows = 0;
+
+        for (LayerTrainingInstance layer : layerTrainingInstances) {
+            updatedRows += layer.getLayer().applyGradientsByRow(optimizer, learningRate, gradientScale, layer);
+        }
+
+        network.getTrainingMetrics().record(TrainingPhase.APPLY_GRADIENTS, System.nanoTime() - startNanos);
+        return updatedRows;
+    }
+
+    /**
+     * Adds the gradients accumulated by another training instance of the same network to the gradients of this one.
+     */
+    public void addAllGradients(NetworkTrainingInstance other) {
+        for (int i = 0; i < layerTrainingInstances.length; i++) {
+            layerTrainingInstances[i].addGradients(other.layerTrainingInstances[i]);
+        }
+    }
+
+    public void clearAllGradients() {
+        for (LayerTrainingInstance layer : layerTrainingInstances) {
+            layer.clearGradients();
         }
     }
 
     protected double trainOnDatapoint(DataPoint datapoint) {
         double[] outputs = calculateOutputs(datapoint.getInputActivation());
+        double[] expectedOutputs = datapoint.getExpectedOutputActivation();
 
         LayerTrainingInstance outputLayer = layerTrainingInstances[layerTrainingInstances.length - 1];
         outputLayer.updateOutputLayerNodeValues(datapoint.getExpectedOutputActivation());
@@ -49,6 +131,74 @@ public class NetworkTrainingInstance {
             hiddenLayer.updateGradients();
         }
 
-        return network.getCostFunction().dataPointCost(datapoint, outputs);
+        return network.getCostFunction().dataPointCost(outputs, expectedOutputs, 0, expectedOutputs.length);
+    }
+
+    /**
+     * Trains on all data points at once, so that every weight matrix is only read once per pass
+     * instead of once per data point.
+     *
+     * @return The summed up cost of all data points.
+     */
+    protected double trainOnBatch(DataPoint[] dataPoints) {
+        return trainOnBatch(dataPoints, 0, dataPoints.length);
+    }
+
+    /**
+     * Trains on the data points from index from (inclusive) to index to (exclusive) as one batch.
+     *
+     * @return The summed up cost of all data points.
+     */
+    protected double trainOnBatch(DataPoint[] dataPoints, int from, int to) {
+        packedBatch.fill(dataPoints, from, to);
+        return trainOnBatch(packedBatch);
+    }
+
+    /**
+     * Trains on the rows from index from (inclusive) to index to (exclusive) of the mini batch as one batch.
+     *
+     * @return The summed up cost of all data points.
+     */
+    protected double trainOnBatch(MiniBatch batch, int from, int to) {
+        packedBatch.copyRows(batch, from, to);
+        return trainOnBatch(packedBatch);
+    }
+
+    /**
+     * Trains on all data points of the mini batch at once.
+     *
+     * @return The summed up cost of all data points.
+     */
+    protected double trainOnBatch(MiniBatch batch) {
+        int batchSize = batch.getSize();
+        int nodesOut = batch.getOutputSize();
+        double[] inputs = batch.getInputs();
+        double[] expectedOutputs = batch.getExpectedOutputs();
+
+        long startNanos = System.nanoTime();
+        double[] outputs = calculateOutputs(inputs, batchSize);
+        long forwardNanos = System.nanoTime();
+
+        LayerTrainingInstance outputLayer = layerTrainingInstances[layerTrainingInstances.length - 1];
+        outputLayer.updateOutputLayerNodeValues(expectedOutputs, batchSize);
+        outputLayer.updateGradients(batchSize);
+
+
+        for (int hiddenLayerIndex = layerTrainingInstances.length - 2; hiddenLayerIndex >= 0; hiddenLayerIndex--) {
+            LayerTrainingInstance hiddenLayer = layerTrainingInstances[hiddenLayerIndex];
+            hiddenLayer.updateHiddenLayerNodeValues(layerTrainingInstances[hiddenLayerIndex + 1], batchSize);
+            hiddenLayer.updateGradients(batchSize);
+        }
+
+        TrainingMetrics metrics = network.getTrainingMetrics();
+        metrics.record(TrainingPhase.FORWARD, forwardNanos - startNanos);
+        metrics.record(TrainingPhase.BACKPROPAGATION, System.nanoTime() - forwardNanos);
+
+        double cost = 0;
+        for (int i = 0; i < batchSize; i++) {
+            cost += network.getCostFunction().dataPointCost(outputs, expectedOutputs, i * nodesOut, nodesOut);
+        }
+
+        return cost;
     }
 }
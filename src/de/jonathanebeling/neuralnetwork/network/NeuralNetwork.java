@@ -2,17 +2,34 @@ package de.jonathanebeling.neuralnetwork.network;
 
 import de.jonathanebeling.neuralnetwork.activation_functions.ActivationFunction;
 import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.data.BatchPrefetcher;
 import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.data.DataSource;
+import de.jonathanebeling.neuralnetwork.data.MiniBatch;
 import de.jonathanebeling.neuralnetwork.data.TrainingDataManager;
-import de.jonathanebeling.neuralnetwork.utils.DisplayHelper;
-import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+import de.jonathanebeling.neuralnetwork.evaluation.EvaluationResult;
+import de.jonathanebeling.neuralnetwork.evaluation.Evaluator;
+import de.jonathanebeling.neuralnetwork.metrics.ConsoleTrainingListener;
+import de.jonathanebeling.neuralnetwork.metrics.EpochSummary;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingListener;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingMetrics;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingPhase;
+import de.jonathanebeling.neuralnetwork.optimizers.Optimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.SgdOptimizer;
 
 import java.io.*;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class NeuralNetwork implements Serializable {
     @Serial
@@ -32,24 +49,154 @@ public class NeuralNetwork implements Serializable {
     private int patienceCounter = 0;
     private double minValidationError = Double.MAX_VALUE;
 
+    private static final int COST_BATCH_SIZE = 256;
+
+    private TrainingMode trainingMode = TrainingMode.ASYNCHRONOUS;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private int prefetchDepth = 0;
+    private int prefetchThreads = 1;
+    private int validationLag = 1;
+    private int validationThreads = 0;
+    private int keptCheckpoints = 3;
+
+    private Optimizer optimizer = new SgdOptimizer();
+
+    // Jeder Thread trainiert mit seiner eigenen, wiederverwendeten Instanz
+    private transient ThreadLocal<NetworkTrainingInstance> trainingInstances = ThreadLocal.withInitial(() -> new NetworkTrainingInstance(this));
+
+    private transient HogwildStatistics hogwildStatistics = new HogwildStatistics();
+
+    private transient TrainingMetrics trainingMetrics = new TrainingMetrics();
+    private transient List<TrainingListener> trainingListeners = createDefaultListeners();
+
 
     public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, CostFunction costFunction, String saveDirectoryPath) {
+        this(numLayers, activationFunction, activationFunction, costFunction, saveDirectoryPath, new Random(), Precision.DOUBLE);
+    }
+
+    /**
+     * @param seed Seed for the random initialization of the weights, for reproducible training runs.
+     */
+    public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, CostFunction costFunction, String saveDirectoryPath, long seed) {
+        this(numLayers, activationFunction, activationFunction, costFunction, saveDirectoryPath, new Random(seed), Precision.DOUBLE);
+    }
+
+    /**
+     * @param precision Precision the weights of all layers are stored with.
+     */
+    public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, CostFunction costFunction, String saveDirectoryPath, Precision precision) {
+        this(numLayers, activationFunction, activationFunction, costFunction, saveDirectoryPath, new Random(), precision);
+    }
+
+    /**
+     * @param seed      Seed for the random initialization of the weights, for reproducible training runs.
+     * @param precision Precision the weights of all layers are stored with.
+     */
+    public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, CostFunction costFunction, String saveDirectoryPath, long seed, Precision precision) {
+        this(numLayers, activationFunction, activationFunction, costFunction, saveDirectoryPath, new Random(seed), precision);
+    }
+
+    /**
+     * @param outputActivationFunction Activation function of the output layer, e.g. {@link
+     *                                 de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation} together
+     *                                 with {@link de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost}.
+     */
+    public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, ActivationFunction outputActivationFunction, CostFunction costFunction, String saveDirectoryPath) {
+        this(numLayers, activationFunction, outputActivationFunction, costFunction, saveDirectoryPath, new Random(), Precision.DOUBLE);
+    }
+
+    /**
+     * @param outputActivationFunction Activation function of the output layer.
+     * @param seed                     Seed for the random initialization of the weights, for reproducible training runs.
+     * @param precision                Precision the weights of all layers are stored with.
+     */
+    public NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, ActivationFunction outputActivationFunction, CostFunction costFunction, String saveDirectoryPath, long seed, Precision precision) {
+        this(numLayers, activationFunction, outputActivationFunction, costFunction, saveDirectoryPath, new Random(seed), precision);
+    }
+
+    private NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, ActivationFunction outputActivationFunction, CostFunction costFunction, String saveDirectoryPath, Random random, Precision precision) {
         this.numLayers = numLayers;
         this.activationFunction = activationFunction;
         this.costFunction = costFunction;
 
 
-
-
-        Random random = new Random();
         layers = new Layer[numLayers.length - 1];
         for (int i = 1; i < numLayers.length; i++) {
-            layers[i - 1] = new Layer(numLayers[i - 1], numLayers[i], random, activationFunction, costFunction);
+            ActivationFunction layerActivationFunction = i == numLayers.length - 1 ? outputActivationFunction : activationFunction;
+            if (precision == Precision.FLOAT) {
+                layers[i - 1] = new FloatLayer(numLayers[i - 1], numLayers[i], random, layerActivationFunction, costFunction);
+            } else {
+                layers[i - 1] = new Layer(numLayers[i - 1], numLayers[i], random, layerActivationFunction, costFunction);
+            }
+        }
+
+
+        selectSaveDirectory(saveDirectoryPath);
+
+    }
+
+    /**
+     * Creates a network from layers that were built by hand, e.g. {@link Conv2DLayer} and {@link PoolingLayer} in front
+     * of dense layers. The cost function of the network is the one of the output layer.
+     *
+     * @param layers The layers in the order of the forward pass, every layer needs as many inputs as the layer before has outputs.
+     */
+    public NeuralNetwork(Layer[] layers, String saveDirectoryPath) {
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("A network needs at least one layer!");
+        }
+        if (layers[layers.length - 1].getCostFunction() == null) {
+            throw new IllegalArgumentException("The output layer needs a cost function!");
+        }
+
+        numLayers = new int[layers.length + 1];
+        numLayers[0] = layers[0].getNodesIn();
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i].getNodesIn() != numLayers[i]) {
+                throw new IllegalArgumentException("Layer " + i + " has " + layers[i].getNodesIn() + " inputs, but the layer before has "
+                        + numLayers[i] + " outputs!");
+            }
+            numLayers[i + 1] = layers[i].getNodesOut();
         }
 
+        this.layers = layers.clone();
+        this.activationFunction = layers[0].getActivationFunction();
+        this.costFunction = layers[layers.length - 1].getCostFunction();
 
         selectSaveDirectory(saveDirectoryPath);
+    }
+
+    /**
+     * Creates a network with the given layers that saves into saveDirectoryPath, e.g. when loading a checkpoint.
+     */
+    NeuralNetwork(int[] numLayers, ActivationFunction activationFunction, CostFunction costFunction, String saveDirectoryPath, Layer[] layers) {
+        this.layers = layers;
+        this.numLayers = numLayers;
+        this.activationFunction = activationFunction;
+        this.costFunction = costFunction;
+        this.saveDirectoryPath = saveDirectoryPath;
+    }
 
+    /**
+     * Creates a network with the given layers that takes over the settings and the save directory of the source network.
+     */
+    private NeuralNetwork(NeuralNetwork source, Layer[] layers) {
+        this.layers = layers;
+        this.numLayers = source.numLayers.clone();
+        this.activationFunction = source.activationFunction;
+        this.costFunction = source.costFunction;
+        this.saveDirectoryPath = source.saveDirectoryPath;
+        this.trainedEpochs = source.trainedEpochs;
+        this.earlyStopping = source.earlyStopping;
+        this.earlyStoppingPatience = source.earlyStoppingPatience;
+        this.trainingMode = source.trainingMode;
+        this.workerCount = source.workerCount;
+        this.prefetchDepth = source.prefetchDepth;
+        this.prefetchThreads = source.prefetchThreads;
+        this.validationLag = source.validationLag;
+        this.validationThreads = source.validationThreads;
+        this.keptCheckpoints = source.keptCheckpoints;
+        this.optimizer = source.optimizer;
     }
 
     private void selectSaveDirectory(String saveDirectoryPath) {
@@ -64,6 +211,10 @@ public class NeuralNetwork implements Serializable {
         new File(this.saveDirectoryPath).mkdir();
     }
 
+    /**
+     * Allocates new arrays for every layer, compile an {@link de.jonathanebeling.neuralnetwork.inference.InferenceModel}
+     * for repeated predictions.
+     */
     public double[] calculateOutputs(double[] inputActivations) {
         for (Layer layer : layers) {
             inputActivations = layer.calculateOutputActivations(inputActivations);
@@ -84,23 +235,135 @@ public class NeuralNetwork implements Serializable {
         return cost / data.length;
     }
 
-    public void save(int epoch) throws IOException {
+    /**
+     * Computes the average cost over all data points of the source in batches, without creating {@link DataPoint}s.
+     * Uses the training instance of the calling thread for the buffers.
+     */
+    public double dataPointsCost(DataSource data) {
+        return summedCost(trainingInstances.get(), data, 0, data.size()) / data.size();
+    }
+
+    /**
+     * @param networkTrainingInstance Instance of this network whose buffers are used for the forward passes.
+     * @return The summed up cost of the data points from position from (inclusive) to position to (exclusive) of the source.
+     */
+    private double summedCost(NetworkTrainingInstance networkTrainingInstance, DataSource data, int from, int to) {
+        int nodesOut = data.getOutputSize();
+
+        MiniBatch batch = data.createBatch(Math.min(COST_BATCH_SIZE, to - from));
+
+        double cost = 0;
+        for (int start = from; start < to; start += COST_BATCH_SIZE) {
+            data.fillBatch(start, Math.min(start + COST_BATCH_SIZE, to), batch);
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(saveDirectoryPath + "/epoch-" + epoch + ".ser"))) {
-            oos.writeObject(this);
-            System.out.println("Saved trained neural network of epoch " + epoch + " to file path: " + saveDirectoryPath + "/epoch-" + epoch + ".ser");
+            double[] outputs = networkTrainingInstance.calculateOutputs(batch.getInputs(), batch.getSize());
+            for (int i = 0; i < batch.getSize(); i++) {
+                cost += costFunction.dataPointCost(outputs, batch.getExpectedOutputs(), i * nodesOut, nodesOut);
+            }
         }
+
+        return cost;
+    }
+
+    public void save(int epoch) throws IOException {
+        String filePath = saveDirectoryPath + "/epoch-" + epoch + NetworkCheckpoint.FILE_EXTENSION;
+
+        save(filePath);
+        System.out.println("Saved trained neural network of epoch " + epoch + " to file path: " + filePath);
     }
 
+    /**
+     * Saves the network in the binary checkpoint format, see {@link NetworkCheckpoint}.
+     */
+    public void save(String filePath) throws IOException {
+        NetworkCheckpoint.write(this, filePath);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        // Netze, die vor Einführung der Trainingsmodi gespeichert wurden
+        if (trainingMode == null) trainingMode = TrainingMode.ASYNCHRONOUS;
+        if (workerCount <= 0) workerCount = Runtime.getRuntime().availableProcessors();
+        if (prefetchThreads <= 0) prefetchThreads = 1;
+        if (optimizer == null) optimizer = new SgdOptimizer();
+
+        trainingInstances = ThreadLocal.withInitial(() -> new NetworkTrainingInstance(this));
+        hogwildStatistics = new HogwildStatistics();
+        trainingMetrics = new TrainingMetrics();
+        trainingListeners = createDefaultListeners();
+    }
+
+    private static List<TrainingListener> createDefaultListeners() {
+        return new CopyOnWriteArrayList<>(List.of(new ConsoleTrainingListener()));
+    }
+
+    /**
+     * Loads a network from a binary checkpoint or, if the file starts with the Java serialization header, from a legacy ".ser" file.
+     */
     public static NeuralNetwork load(String filePath) throws IOException, ClassNotFoundException {
+        if (isSerialized(filePath)) {
+            return loadSerialized(filePath);
+        }
+        return NetworkCheckpoint.read(filePath);
+    }
+
+    /**
+     * Loads a network saved with Java serialization by older versions. Only use this for trusted files.
+     */
+    public static NeuralNetwork loadSerialized(String filePath) throws IOException, ClassNotFoundException {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filePath))) {
             return (NeuralNetwork) ois.readObject();
         }
     }
 
+    private static boolean isSerialized(String filePath) throws IOException {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(filePath))) {
+            return input.available() >= 2 && input.readShort() == ObjectStreamConstants.STREAM_MAGIC;
+        }
+    }
+
 
 
 
+    /**
+     * Converts the network, e.g. a loaded double checkpoint, to another precision. The returned network is a copy
+     * that saves into the same directory, this network is not changed.
+     */
+    public NeuralNetwork convertToPrecision(Precision precision) {
+        Layer[] convertedLayers = new Layer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            convertedLayers[i] = layers[i].convertToPrecision(precision);
+        }
+
+        return new NeuralNetwork(this, convertedLayers);
+    }
+
+    /**
+     * @return A deep copy of the network with the current weights, which saves into the same directory.
+     */
+    public NeuralNetwork snapshot() {
+        Layer[] copiedLayers = new Layer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            copiedLayers[i] = layers[i].convertToPrecision(layers[i].getPrecision());
+        }
+
+        return new NeuralNetwork(this, copiedLayers);
+    }
+
+    /**
+     * @return {@link Precision#FLOAT} if the weights of any layer are stored as floats, convolutions always use doubles.
+     */
+    public Precision getPrecision() {
+        for (Layer layer : layers) {
+            if (layer.getPrecision() == Precision.FLOAT) {
+                return Precision.FLOAT;
+            }
+        }
+        return Precision.DOUBLE;
+    }
+
     public Layer[] getLayers() {
         return layers;
     }
@@ -109,112 +372,441 @@ public class NeuralNetwork implements Serializable {
         return numLayers;
     }
 
+    /**
+     * @return The activation function of the hidden layers.
+     */
     public ActivationFunction getActivationFunction() {
         return activationFunction;
     }
 
+    public ActivationFunction getOutputActivationFunction() {
+        return layers[layers.length - 1].getActivationFunction();
+    }
+
     public CostFunction getCostFunction() {
         return costFunction;
     }
 
+    public String getSaveDirectoryPath() {
+        return saveDirectoryPath;
+    }
 
-    public double train(DataPoint[] dataPoints, double learningRate) {
-        NetworkTrainingInstance networkTrainingInstance = new NetworkTrainingInstance(this);
+    public int getTrainedEpochs() {
+        return trainedEpochs;
+    }
 
-        double totalError = 0;
+    void setTrainedEpochs(int trainedEpochs) {
+        this.trainedEpochs = trainedEpochs;
+    }
+
+    public boolean isEarlyStopping() {
+        return earlyStopping;
+    }
+
+    public void setEarlyStopping(boolean earlyStopping) {
+        this.earlyStopping = earlyStopping;
+    }
+
+    public int getEarlyStoppingPatience() {
+        return earlyStoppingPatience;
+    }
+
+    /**
+     * @param earlyStoppingPatience Number of epochs without a lower validation error after which training stops.
+     */
+    public void setEarlyStoppingPatience(int earlyStoppingPatience) {
+        this.earlyStoppingPatience = earlyStoppingPatience;
+    }
+
+    public TrainingMode getTrainingMode() {
+        return trainingMode;
+    }
+
+    public void setTrainingMode(TrainingMode trainingMode) {
+        this.trainingMode = trainingMode;
+    }
+
+    /**
+     * @return The optimizer the updates of all layers are applied with.
+     */
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
+    /**
+     * @param optimizer Optimizer all following updates are applied with, the layers start with a fresh state for it.
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (optimizer == null) {
+            throw new IllegalArgumentException("Optimizer must not be null!");
+        }
+        this.optimizer = optimizer;
+    }
 
-        for (DataPoint datapoint : dataPoints) {
-            totalError += networkTrainingInstance.trainOnDatapoint(datapoint);
+    /**
+     * @return The timings and counters of the current or last training run, reset when a training run starts.
+     */
+    public TrainingMetrics getTrainingMetrics() {
+        return trainingMetrics;
+    }
+
+    /**
+     * Adds a listener for the progress of the training. Every network starts with a {@link ConsoleTrainingListener},
+     * remove it to train without console output.
+     */
+    public void addTrainingListener(TrainingListener listener) {
+        trainingListeners.add(listener);
+    }
+
+    public void removeTrainingListener(TrainingListener listener) {
+        trainingListeners.remove(listener);
+    }
+
+    public List<TrainingListener> getTrainingListeners() {
+        return List.copyOf(trainingListeners);
+    }
+
+    private void notifyListeners(Consumer<TrainingListener> notification) {
+        for (TrainingListener listener : trainingListeners) {
+            notification.accept(listener);
         }
+    }
+
+    /**
+     * @return The update concurrency and staleness of the current or last epoch trained in {@link TrainingMode#HOGWILD}.
+     */
+    public HogwildStatistics getHogwildStatistics() {
+        return hogwildStatistics;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * @param workerCount Number of threads used for training. In synchronous mode each mini batch is split into this many parts.
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * @param prefetchDepth Number of batch buffers that are filled ahead of and trained on at the same time, 0 for twice the number of workers.
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    public int getPrefetchThreads() {
+        return prefetchThreads;
+    }
+
+    /**
+     * @param prefetchThreads Number of background threads that fill and augment the upcoming batches.
+     */
+    public void setPrefetchThreads(int prefetchThreads) {
+        this.prefetchThreads = prefetchThreads;
+    }
+
+    public int getValidationLag() {
+        return validationLag;
+    }
+
+    /**
+     * @param validationLag Number of epochs that may be trained before the validation result of an earlier epoch is applied.
+     *                      0 waits for the validation after every epoch, with 1 the validation overlaps with the next epoch.
+     *                      Early stopping then happens up to this many epochs later.
+     */
+    public void setValidationLag(int validationLag) {
+        this.validationLag = validationLag;
+    }
+
+    public int getValidationThreads() {
+        return validationThreads;
+    }
+
+    /**
+     * @param validationThreads Number of threads that validate epochs in the background, 0 for the processors that are
+     *                          not used by the training workers but at least one, so a validation overlapping with the
+     *                          next epoch does not take threads from the training.
+     */
+    public void setValidationThreads(int validationThreads) {
+        this.validationThreads = validationThreads;
+    }
+
+    public int getKeptCheckpoints() {
+        return keptCheckpoints;
+    }
+
+    /**
+     * @param keptCheckpoints Number of checkpoints with the lowest validation errors that are kept during training,
+     *                        in addition to the checkpoint of the latest epoch.
+     */
+    public void setKeptCheckpoints(int keptCheckpoints) {
+        this.keptCheckpoints = keptCheckpoints;
+    }
+
+
+    public double train(DataPoint[] dataPoints, double learningRate) {
+        return train(dataPoints, 0, dataPoints.length, learningRate);
+    }
+
+    /**
+     * Trains on the data points from index from (inclusive) to index to (exclusive) as one mini batch.
+     * Uses the training instance of the calling thread, so no gradient buffers are allocated per batch.
+     *
+     * @return The average cost of the data points before the update.
+     */
+    public double train(DataPoint[] dataPoints, int from, int to, double learningRate) {
+        NetworkTrainingInstance networkTrainingInstance = trainingInstances.get();
+        long startNanos = System.nanoTime();
+
+        double totalError = networkTrainingInstance.trainOnBatch(dataPoints, from, to);
+
+        networkTrainingInstance.applyAllGradients(learningRate, 1.0 / (to - from));
+        networkTrainingInstance.clearAllGradients();
+        trainingMetrics.recordBatch(to - from, System.nanoTime() - startNanos);
+
+        return totalError / (to - from);
+    }
+
+    /**
+     * Trains on all data points of the mini batch, e.g. filled from a {@link de.jonathanebeling.neuralnetwork.data.CompactDataSet}.
+     *
+     * @return The average cost of the data points before the update.
+     */
+    public double train(MiniBatch batch, double learningRate) {
+        NetworkTrainingInstance networkTrainingInstance = trainingInstances.get();
+        long startNanos = System.nanoTime();
+
+        double totalError = networkTrainingInstance.trainOnBatch(batch);
+
+        networkTrainingInstance.applyAllGradients(learningRate, 1.0 / batch.getSize());
+        networkTrainingInstance.clearAllGradients();
+        trainingMetrics.recordBatch(batch.getSize(), System.nanoTime() - startNanos);
+
+        return totalError / batch.getSize();
+    }
 
-        networkTrainingInstance.applyAllGradients(learningRate / dataPoints.length);
+    /**
+     * Like {@link #train(MiniBatch, double)}, but applies the gradients row by row without locking whole layers
+     * and records the update in the Hogwild statistics.
+     */
+    private double trainHogwild(MiniBatch batch, double learningRate) {
+        NetworkTrainingInstance networkTrainingInstance = trainingInstances.get();
+        long startNanos = System.nanoTime();
 
-        return totalError / dataPoints.length;
+        long readVersion = hogwildStatistics.readVersion();
+        double totalError = networkTrainingInstance.trainOnBatch(batch);
+
+        hogwildStatistics.beginUpdate(readVersion);
+        int updatedRows = networkTrainingInstance.applyAllGradientsByRow(learningRate, 1.0 / batch.getSize());
+        hogwildStatistics.endUpdate(updatedRows);
+
+        networkTrainingInstance.clearAllGradients();
+        trainingMetrics.recordBatch(batch.getSize(), System.nanoTime() - startNanos);
+
+        return totalError / batch.getSize();
     }
 
 
 
 
     public void trainMiniBatchAsync(TrainingDataManager dataManager, double learningRate, int minibatchSize, int epochs) {
+        trainMiniBatchAsync(dataManager, dataManager.getValidationSource(), learningRate, minibatchSize, epochs);
+    }
+
+    /**
+     * Trains on mini batches streamed from the training data source. Only a bounded number of batch buffers is kept,
+     * so the data itself never has to be held in the heap at once.
+     *
+     * @param validationData Data to compute the validation error on after each epoch, or null for no cross validation.
+     */
+    public void trainMiniBatchAsync(DataSource trainingData, DataSource validationData, double learningRate, int minibatchSize, int epochs) {
 
         minValidationError = Double.MAX_VALUE;
         patienceCounter = 0;
 
-        DataPoint[] trainingData = dataManager.getTrainingData();
-        DataPoint[] validationData = dataManager.getValidationData();
+        boolean validating = validationData != null && validationData.size() > 0;
+
+        if (!validating && earlyStopping)
+            notifyListeners(listener -> listener.warning("Can't use early stopping if there is no validation data set!"));
 
-        if (!dataManager.hasValidationData() && earlyStopping)
-            System.out.println("Can't use early stopping if there is no validation data set!");
+        int validationSize = validating ? validationData.size() : 0;
+        notifyListeners(listener -> listener.trainingStarted(this, trainingData.size(), validationSize, learningRate, minibatchSize, epochs));
 
-        System.out.println("===== BEGINNING TRAINING OF NEURAL NETWORK =====");
-        System.out.println("Training data points: " + trainingData.length);
-        System.out.println("Cross validation data points: " + validationData.length);
-        System.out.println("Learning rate: " + learningRate);
-        System.out.println("Mini Batch Size: " + minibatchSize);
-        System.out.println("Epochs: " + epochs);
+        trainingMetrics.reset();
 
-        // Thread-Pool erstellen
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        try (ExecutorService executor = Executors.newFixedThreadPool(availableProcessors)) {
+        // Validierung im Hintergrund, damit die nächste Epoche nicht darauf warten muss
+        Deque<PendingValidation> pendingValidations = new ArrayDeque<>();
 
-            for (int epoch = 0; epoch < epochs; epoch++) {
+        int validationThreadCount = validationThreads > 0 ? validationThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - workerCount);
 
+        // Thread-Pools erstellen
+        try (ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+             ExecutorService validationExecutor = Executors.newFixedThreadPool(validationThreadCount);
+             CheckpointWriter checkpointWriter = new CheckpointWriter(saveDirectoryPath, keptCheckpoints, trainingMetrics,
+                     new CheckpointListener())) {
 
-                System.out.println("===== EPOCH " + trainedEpochs + " STARTING =====");
+            SynchronousTrainer synchronousTrainer = trainingMode == TrainingMode.SYNCHRONOUS
+                    ? new SynchronousTrainer(this, workerCount, executor) : null;
 
-                dataManager.resetTrainingsData();
-                trainingData = dataManager.getTrainingData();
+            int depth = prefetchDepth > 0 ? prefetchDepth : 2 * workerCount;
 
-                long startMillis = System.currentTimeMillis();
-                int batchCount = trainingData.length / minibatchSize;
-                double totalError = 0;
+            // Die nächsten Batches werden im Hintergrund gefüllt und augmentiert, während trainiert wird
+            try (BatchPrefetcher prefetcher = new BatchPrefetcher(trainingData, minibatchSize, depth, prefetchThreads, trainingMetrics)) {
 
-                try {
-                    // Liste von Futures für parallele Berechnungen
-                    Future<Double>[] futures = new Future[batchCount];
+                for (int epoch = 0; epoch < epochs; epoch++) {
 
-                    for (int batch = 0; batch < batchCount; batch++) {
-                        int startPos = batch * minibatchSize;
-                        int endPos = Math.min((batch + 1) * minibatchSize, trainingData.length);
 
-                        DataPoint[] batchData = Arrays.copyOfRange(trainingData, startPos, endPos);
+                    int currentEpoch = trainedEpochs;
+                    notifyListeners(listener -> listener.epochStarted(currentEpoch));
 
+                    // Producer der letzten Epoche lesen sonst noch die Reihenfolge, die startEpoch neu mischt
+                    prefetcher.stopEpoch();
+                    trainingData.startEpoch();
 
-                        // Übergebe die Berechnung an einen Thread
-                        futures[batch] = executor.submit(() -> train(batchData, learningRate));
+                    hogwildStatistics.reset();
+                    long startNanos = System.nanoTime();
+                    long startSamples = trainingMetrics.getSamples();
+                    long startAllocatedBytes = TrainingMetrics.getTotalAllocatedBytes();
+                    int batchCount = trainingData.size() / minibatchSize;
+                    double totalError = 0;
+                    boolean failed = false;
 
+                    prefetcher.startEpoch(batchCount);
 
+                    try {
+                        if (synchronousTrainer != null) {
+                            totalError = trainEpochSynchronous(synchronousTrainer, prefetcher, learningRate);
+                        } else {
+                            totalError = trainEpochAsync(executor, prefetcher, learningRate, batchCount);
+                        }
+                    } catch (Exception e) {
+                        // Die übrigen Batches der Epoche werden nicht mehr gefüllt, die nächste Epoche startet neu
+                        prefetcher.abortEpoch();
+                        failed = true;
+                        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                        notifyListeners(listener -> listener.warning("Epoch " + currentEpoch + " failed: " + cause));
                     }
 
-                    // Sammle die Ergebnisse aus den Threads
-                    for (Future<Double> future : futures) {
-                        totalError += future.get(); // Blockiert, bis das Ergebnis verfügbar ist
+                    long allocatedBytes = TrainingMetrics.getTotalAllocatedBytes();
+                    EpochSummary summary = new EpochSummary(currentEpoch, trainingMetrics.getSamples() - startSamples,
+                            failed ? Double.NaN : totalError / batchCount, (System.nanoTime() - startNanos) / 1_000_000.0,
+                            prefetcher.getWaitMillis(), allocatedBytes < 0 || startAllocatedBytes < 0 ? -1 : allocatedBytes - startAllocatedBytes,
+                            trainingMode == TrainingMode.HOGWILD ? hogwildStatistics : null, failed);
+                    trainingMetrics.recordEpoch(summary);
+                    notifyListeners(listener -> listener.epochFinished(summary));
+
+                    // Ein halb trainiertes Netz wird weder validiert noch gespeichert
+                    boolean stop = false;
+                    if (!failed && !validating) {
+                        checkpointWriter.submit(snapshot(), trainedEpochs, Double.NaN);
+                    } else if (!failed) {
+                        pendingValidations.add(startValidation(validationData, validationExecutor, validationThreadCount));
+
+                        // Höchstens validationLag Epochen dürfen auf ihr Ergebnis warten
+                        while (pendingValidations.size() > validationLag && !stop) {
+                            stop = finishValidation(pendingValidations.poll(), checkpointWriter, true);
+                        }
                     }
 
+                    trainedEpochs += 1;
+                    if (stop) {
+                        break;
+                    }
 
-                } catch (Exception e) {
-                    e.printStackTrace();
                 }
+            }
 
-                System.out.println("Finished in " + (System.currentTimeMillis() - startMillis) + "ms ");
-                System.out.println("Training error rate of epoch: " + MathUtils.roundDecimalPoints(totalError / batchCount, 4));
+            // Ergebnisse der letzten Epochen abwarten, damit das beste Netz gespeichert wird; das Training ist schon vorbei
+            while (!pendingValidations.isEmpty()) {
+                finishValidation(pendingValidations.poll(), checkpointWriter, false);
+            }
 
+            // Executor-Service herunterfahren
+            executor.shutdown();
+        }
 
+        notifyListeners(listener -> listener.trainingFinished(trainingMetrics));
+    }
 
+    /**
+     * Passes the checkpoints written during training on to the training listeners.
+     */
+    private class CheckpointListener implements TrainingListener {
+        @Override
+        public void checkpointSaved(int epoch, Path path) {
+            notifyListeners(listener -> listener.checkpointSaved(epoch, path));
+        }
 
+        @Override
+        public void warning(String message) {
+            notifyListeners(listener -> listener.warning(message));
+        }
+    }
 
+    private double trainEpochAsync(ExecutorService executor, BatchPrefetcher prefetcher, double learningRate, int batchCount) throws Exception {
+        double totalError = 0;
 
-                boolean stop = validateEpochTraining(dataManager);
-                trainedEpochs += 1;
-                if (stop) {
-                    break;
-                }
+        // Liste von Futures für parallele Berechnungen
+        Future<Double>[] futures = new Future[batchCount];
+        int submitted = 0;
+        Exception failure = null;
+
+        try {
+            for (int batch = 0; batch < batchCount; batch++) {
+                // Wartet, bis der Batch gefüllt ist; es sind nie mehr Batches unterwegs als Puffer im Prefetcher
+                MiniBatch miniBatch = prefetcher.take();
+
+                // Übergebe die Berechnung an einen Thread
+                futures[batch] = executor.submit(() -> {
+                    try {
+                        return trainingMode == TrainingMode.HOGWILD ? trainHogwild(miniBatch, learningRate) : train(miniBatch, learningRate);
+                    } finally {
+                        prefetcher.release(miniBatch);
+                    }
+                });
+                submitted++;
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
 
+        // Sammle die Ergebnisse aus den Threads, auch nach einem Fehler: Alle Batches müssen zurückgegeben sein,
+        // bevor die nächste Epoche startet
+        for (int batch = 0; batch < submitted; batch++) {
+            try {
+                totalError += futures[batch].get(); // Blockiert, bis das Ergebnis verfügbar ist
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e;
             }
+        }
 
-            // Executor-Service herunterfahren
-            executor.shutdown();
+        if (failure != null) throw failure;
+        return totalError;
+    }
+
+    private double trainEpochSynchronous(SynchronousTrainer trainer, BatchPrefetcher prefetcher, double learningRate) throws Exception {
+        double totalError = 0;
+
+        // Jeder Schritt verteilt einen Mini-Batch auf alle Worker und wendet die Gradienten einmal an
+        MiniBatch miniBatch;
+        while ((miniBatch = prefetcher.take()) != null) {
+            try {
+                totalError += trainer.trainStep(miniBatch, learningRate);
+            } finally {
+                prefetcher.release(miniBatch);
+            }
         }
+
+        return totalError;
     }
 
     public void test(DataPoint[] testData){
@@ -224,44 +816,92 @@ public class NeuralNetwork implements Serializable {
             return;
         }
 
-        double error = dataPointsCost(testData);
-
-        DisplayHelper printer = new DisplayHelper();
+        // Ein paralleler Durchlauf für Fehler, Genauigkeit und Konfusionsmatrix
+        EvaluationResult result = new Evaluator(this).evaluate(testData);
 
         System.out.println(" ");
-        System.out.println("Total error rate of test set: " + error);
-        printer.printNumberOfWrongs(this, testData);
+        System.out.println(result);
 
     }
 
-    private boolean validateEpochTraining(TrainingDataManager dataManager){
-        if (dataManager.hasValidationData()) {
-                    double crossValidationError = dataPointsCost(dataManager.getValidationData());
-                    System.out.println("Validation error of epoch: " + MathUtils.roundDecimalPoints(crossValidationError, 4));
+    /**
+     * Validation of one epoch that runs in the background on a snapshot of the weights taken at the end of the epoch.
+     */
+    private static class PendingValidation {
+        private final int epoch;
+        private final NeuralNetwork snapshot;
+        private final List<Future<Double>> parts;
+        private final int size;
+
+        private PendingValidation(int epoch, NeuralNetwork snapshot, List<Future<Double>> parts, int size) {
+            this.epoch = epoch;
+            this.snapshot = snapshot;
+            this.parts = parts;
+            this.size = size;
+        }
+    }
 
-                    if (crossValidationError < minValidationError) {
-                        minValidationError = crossValidationError;
-                        patienceCounter = 0;
+    /**
+     * @param partCount Number of parts the validation data is split into, one per validation thread.
+     */
+    private PendingValidation startValidation(DataSource validationData, ExecutorService validationExecutor, int partCount) {
+        // Alle Batches der Epoche sind fertig, die Gewichte ändern sich während der Kopie also nicht
+        NeuralNetwork snapshot = snapshot();
+        int size = validationData.size();
+
+        List<Future<Double>> parts = new ArrayList<>(partCount);
+        for (int part = 0; part < partCount; part++) {
+            int from = (int) ((long) size * part / partCount);
+            int to = (int) ((long) size * (part + 1) / partCount);
+            parts.add(validationExecutor.submit(() -> {
+                long startNanos = System.nanoTime();
+                // Eigene Instanz statt der ThreadLocal des Snapshots, sonst bliebe pro Thread und Epoche eine Kopie im Speicher
+                double cost = snapshot.summedCost(new NetworkTrainingInstance(snapshot), validationData, from, to);
+                trainingMetrics.record(TrainingPhase.VALIDATION, System.nanoTime() - startNanos);
+                return cost;
+            }));
+        }
 
-                        System.out.println("Lowest cross validation error until now: " + minValidationError);
-                        try {
-                            System.out.println("Saving neural network of this epoch due to lowest cross validation error rate");
-                            save(trainedEpochs);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    } else {
-                        patienceCounter++;
-                        System.out.println("Not beaten lowest cross validation error since " + patienceCounter + " epochs!");
-                    }
+        return new PendingValidation(trainedEpochs, snapshot, parts, size);
+    }
 
-                    if (patienceCounter >= earlyStoppingPatience) {
-                        System.out.println("Stopping training in epoch " + trainedEpochs + " due to lack of cross validation error rate improvement!");
-                        return true;
-                    }
-                }
+    /**
+     * Waits for the validation error of an epoch and applies the early stopping rules to it.
+     *
+     * @param canStop False for validations that are only finished after the training loop, they are recorded and
+     *                checkpointed but never report early stopping.
+     * @return True if training should stop.
+     */
+    private boolean finishValidation(PendingValidation validation, CheckpointWriter checkpointWriter, boolean canStop) {
+        double crossValidationError = 0;
+        try {
+            // Summe immer in derselben Reihenfolge bilden, damit das Ergebnis reproduzierbar bleibt
+            for (Future<Double> part : validation.parts) {
+                crossValidationError += part.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        double validationError = crossValidationError / validation.size;
 
-        System.out.println(" ");
+        trainingMetrics.recordValidation(validation.epoch, validationError);
+
+        // Jede Epoche wird gespeichert, der Writer behält nur die besten und die neueste
+        checkpointWriter.submit(validation.snapshot, validation.epoch, validationError);
+
+        if (validationError < minValidationError) {
+            minValidationError = validationError;
+            patienceCounter = 0;
+        } else {
+            patienceCounter++;
+        }
+
+        notifyListeners(listener -> listener.validationFinished(validation.epoch, validationError, minValidationError, patienceCounter));
+
+        if (canStop && patienceCounter >= earlyStoppingPatience) {
+            notifyListeners(listener -> listener.earlyStopping(validation.epoch));
+            return true;
+        }
 
         return false;
     }
@@ -0,0 +1,236 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.IdentityActivation;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.Arrays;
+
+/**
+ * Max or average pooling over square windows of every channel, for images stored channel by channel like in
+ * {@link Conv2DLayer}. The layer has no parameters and passes its results on unchanged, apply the activation
+ * function in the convolution before it.
+ */
+public class PoolingLayer extends Layer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final PoolingType type;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int channels;
+    private final int poolSize;
+    private final int stride;
+
+    private final int outputWidth;
+    private final int outputHeight;
+
+    // Index des größten Inputs jedes Fensters aus dem letzten Forward-Pass des Threads, nur bei Max-Pooling
+    private transient ThreadLocal<MaxIndices> maxIndices = ThreadLocal.withInitial(MaxIndices::new);
+
+    private static final class MaxIndices {
+        private int[] indices = new int[0];
+
+        private int[] indices(int size) {
+            if (indices.length < size) indices = new int[size];
+            return indices;
+        }
+    }
+
+    /**
+     * @param poolSize Width and height of the windows.
+     * @param stride   Distance between two windows, usually the pool size.
+     */
+    public PoolingLayer(PoolingType type, int inputWidth, int inputHeight, int channels, int poolSize, int stride) {
+        super(inputWidth * inputHeight * channels,
+                Conv2DLayer.outputSize(inputWidth, poolSize, stride, 0) * Conv2DLayer.outputSize(inputHeight, poolSize, stride, 0) * channels,
+                new double[0], new double[0], new IdentityActivation(), null);
+
+        if (type == null || channels <= 0) {
+            throw new IllegalArgumentException("Pooling needs a type and a positive number of channels!");
+        }
+
+        this.type = type;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.channels = channels;
+        this.poolSize = poolSize;
+        this.stride = stride;
+
+        outputWidth = Conv2DLayer.outputSize(inputWidth, poolSize, stride, 0);
+        outputHeight = Conv2DLayer.outputSize(inputHeight, poolSize, stride, 0);
+    }
+
+    /**
+     * Pooling over windows that do not overlap, e.g. 2 for halving width and height.
+     */
+    public PoolingLayer(PoolingType type, int inputWidth, int inputHeight, int channels, int poolSize) {
+        this(type, inputWidth, inputHeight, channels, poolSize, poolSize);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        maxIndices = ThreadLocal.withInitial(MaxIndices::new);
+    }
+
+
+    @Override
+    public void calculateWeightedInputs(double[] inputs, double[] weightedInputs, int batchSize) {
+        double scale = 1.0 / (poolSize * poolSize);
+        int[] indices = type == PoolingType.MAX ? maxIndices.get().indices(batchSize * getNodesOut()) : null;
+        int target = 0;
+
+        for (int plane = 0; plane < batchSize * channels; plane++) {
+            int planeOffset = plane * inputWidth * inputHeight;
+
+            for (int outY = 0; outY < outputHeight; outY++) {
+                for (int outX = 0; outX < outputWidth; outX++, target++) {
+                    int window = planeOffset + outY * stride * inputWidth + outX * stride;
+                    if (indices == null) {
+                        weightedInputs[target] = sum(inputs, window) * scale;
+                        continue;
+                    }
+
+                    int max = findMax(inputs, window);
+                    indices[target] = max;
+                    weightedInputs[target] = inputs[max];
+                }
+            }
+        }
+    }
+
+    /**
+     * The layer has no parameters.
+     */
+    @Override
+    public void accumulateGradients(double[] inputs, double[] nodeValues, double[] costGradientW, double[] costGradientB, int batchSize) {
+    }
+
+    /**
+     * Max pooling routes the gradients to the largest inputs found by the last forward pass of the calling thread,
+     * which has to be the forward pass of the same batch.
+     */
+    @Override
+    public void backpropagateNodeValues(double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        backpropagateNodeValues(null, nodeValues, previousNodeValues, batchSize);
+    }
+
+    /**
+     * @param inputs Inputs of the batch to find the largest value of every window in, or null to use the indices of
+     *               the last forward pass of the calling thread.
+     */
+    @Override
+    public void backpropagateNodeValues(double[] inputs, double[] nodeValues, double[] previousNodeValues, int batchSize) {
+        double scale = 1.0 / (poolSize * poolSize);
+        int[] indices = type == PoolingType.MAX && inputs == null ? maxIndices.get().indices(batchSize * getNodesOut()) : null;
+        int source = 0;
+
+        Arrays.fill(previousNodeValues, 0, batchSize * getNodesIn(), 0);
+
+        for (int plane = 0; plane < batchSize * channels; plane++) {
+            int planeOffset = plane * inputWidth * inputHeight;
+
+            for (int outY = 0; outY < outputHeight; outY++) {
+                for (int outX = 0; outX < outputWidth; outX++, source++) {
+                    int window = planeOffset + outY * stride * inputWidth + outX * stride;
+
+                    // Bei Max-Pooling bekommt nur der größte Wert des Fensters den Gradienten
+                    if (type == PoolingType.MAX) {
+                        int max = indices != null ? indices[source] : findMax(inputs, window);
+                        previousNodeValues[max] += nodeValues[source];
+                        continue;
+                    }
+
+                    double value = nodeValues[source] * scale;
+                    for (int poolY = 0; poolY < poolSize; poolY++) {
+                        int row = window + poolY * inputWidth;
+                        for (int poolX = 0; poolX < poolSize; poolX++) {
+                            previousNodeValues[row + poolX] += value;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private double sum(double[] inputs, int first) {
+        double sum = 0;
+        for (int poolY = 0; poolY < poolSize; poolY++) {
+            int row = first + poolY * inputWidth;
+            for (int poolX = 0; poolX < poolSize; poolX++) {
+                sum += inputs[row + poolX];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return The index of the first largest input of the window that starts at index first.
+     */
+    private int findMax(double[] inputs, int first) {
+        int max = first;
+        for (int poolY = 0; poolY < poolSize; poolY++) {
+            int row = first + poolY * inputWidth;
+            for (int poolX = 0; poolX < poolSize; poolX++) {
+                if (inputs[row + poolX] > inputs[max]) max = row + poolX;
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Pooling layers have no weights, the precision is ignored.
+     *
+     * @return A copy of this layer.
+     */
+    @Override
+    public Layer convertToPrecision(Precision precision) {
+        return new PoolingLayer(type, inputWidth, inputHeight, channels, poolSize, stride);
+    }
+
+    @Override
+    public int getWeightRows() {
+        return 0;
+    }
+
+    @Override
+    public int getWeightRowLength() {
+        return 0;
+    }
+
+    public PoolingType getType() {
+        return type;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+}
@@ -0,0 +1,14 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+/**
+ * How a {@link PoolingLayer} combines the values of a window.
+ */
+public enum PoolingType {
+
+    /**
+     * The largest value of the window. Only the first input with that value gets the node value in backpropagation.
+     */
+    MAX,
+
+    AVERAGE
+}
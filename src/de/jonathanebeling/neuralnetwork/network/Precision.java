@@ -0,0 +1,15 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+/**
+ * Precision the weights of a network are stored with. Activations, node values and accumulated gradients are always
+ * calculated with double precision.
+ */
+public enum Precision {
+
+    DOUBLE,
+
+    /**
+     * Weights are stored as floats, which halves the memory and the memory bandwidth needed by the weight kernels.
+     */
+    FLOAT
+}
@@ -0,0 +1,95 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.data.MiniBatch;
+import de.jonathanebeling.neuralnetwork.metrics.TrainingPhase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Data parallel training with synchronous updates. Each step splits the mini batch into one contiguous slice per worker,
+ * every worker accumulates the gradients of its slice in its own training instance, the gradients are combined by a
+ * parallel tree reduction and the sum is applied to the layers once.
+ */
+class SynchronousTrainer {
+
+    private final NeuralNetwork network;
+    private final NetworkTrainingInstance[] workers;
+    private final ExecutorService executor;
+
+    SynchronousTrainer(NeuralNetwork network, int workerCount, ExecutorService executor) {
+        this.network = network;
+        this.executor = executor;
+
+        workers = new NetworkTrainingInstance[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new NetworkTrainingInstance(network);
+        }
+    }
+
+    /**
+     * Trains on all data points of the mini batch as one step.
+     *
+     * @return The average cost of the data points before the update.
+     */
+    double trainStep(MiniBatch batch, double learningRate) throws InterruptedException, ExecutionException {
+        int batchSize = batch.getSize();
+        long startNanos = System.nanoTime();
+
+        // Gradienten jedes Workers für seinen Abschnitt berechnen
+        List<Callable<Double>> tasks = new ArrayList<>(workers.length);
+        for (int worker = 0; worker < workers.length; worker++) {
+            NetworkTrainingInstance instance = workers[worker];
+            int start = (int) ((long) batchSize * worker / workers.length);
+            int end = (int) ((long) batchSize * (worker + 1) / workers.length);
+
+            tasks.add(() -> {
+                instance.clearAllGradients();
+                return start < end ? instance.trainOnBatch(batch, start, end) : 0.0;
+            });
+        }
+
+        // Summe immer in derselben Reihenfolge bilden, damit das Ergebnis reproduzierbar bleibt
+        double totalError = 0;
+        for (Future<Double> future : executor.invokeAll(tasks)) {
+            totalError += future.get();
+        }
+
+        long reductionNanos = System.nanoTime();
+        reduceGradients();
+        network.getTrainingMetrics().record(TrainingPhase.GRADIENT_REDUCTION, System.nanoTime() - reductionNanos);
+
+        workers[0].applyAllGradients(learningRate, 1.0 / batchSize);
+        network.getTrainingMetrics().recordBatch(batchSize, System.nanoTime() - startNanos);
+
+        return totalError / batchSize;
+    }
+
+    /**
+     * Sums up the gradients of all workers in the first worker. In every round worker i adds the gradients of
+     * worker i + stride, all additions of a round run in parallel.
+     */
+    private void reduceGradients() throws InterruptedException, ExecutionException {
+        for (int stride = 1; stride < workers.length; stride *= 2) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+
+            for (int worker = 0; worker + stride < workers.length; worker += 2 * stride) {
+                NetworkTrainingInstance target = workers[worker];
+                NetworkTrainingInstance source = workers[worker + stride];
+
+                tasks.add(() -> {
+                    target.addAllGradients(source);
+                    return null;
+                });
+            }
+
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+public enum TrainingMode {
+
+    /**
+     * Every mini batch is trained by one thread of the pool and applied to the shared layers as soon as it is done.
+     */
+    ASYNCHRONOUS,
+
+    /**
+     * Every mini batch is split across all workers, their gradients are summed up and applied once per step.
+     * Results are reproducible for a fixed seed and worker count.
+     */
+    SYNCHRONOUS,
+
+    /**
+     * Every mini batch is trained by one thread of the pool, like {@link #ASYNCHRONOUS}, but gradients are applied row by row
+     * without a lock on the whole layer while other threads keep reading the weights. Reports update concurrency
+     * and gradient staleness through {@link HogwildStatistics}.
+     */
+    HOGWILD
+}
@@ -0,0 +1,114 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serial;
+
+/**
+ * Adam: keeps moving averages of the gradient and of its square, corrects their bias towards zero in the first updates
+ * and moves every parameter by learning rate * mean / (sqrt(meanSquare) + epsilon). The bias corrections only depend
+ * on the step and are computed once per update, the loop itself is a single pass over the range.
+ */
+public class AdamOptimizer implements Optimizer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+    private final double weightDecay;
+
+    public AdamOptimizer() {
+        this(0.9, 0.999, 1e-8);
+    }
+
+    /**
+     * @param beta1   Decay of the average of the gradients, between 0 (inclusive) and 1 (exclusive).
+     * @param beta2   Decay of the average of the squared gradients, between 0 (inclusive) and 1 (exclusive).
+     * @param epsilon Small positive value that keeps the division stable.
+     */
+    public AdamOptimizer(double beta1, double beta2, double epsilon) {
+        this(beta1, beta2, epsilon, 0);
+    }
+
+    /**
+     * @param weightDecay Decoupled weight decay per unit of learning rate, see {@link AdamWOptimizer}.
+     */
+    protected AdamOptimizer(double beta1, double beta2, double epsilon, double weightDecay) {
+        if (!(beta1 >= 0 && beta1 < 1) || !(beta2 >= 0 && beta2 < 1)) {
+            throw new IllegalArgumentException("Betas must be in [0, 1)!");
+        }
+        if (!(epsilon > 0) || !(weightDecay >= 0)) {
+            throw new IllegalArgumentException("Epsilon must be positive and weight decay must not be negative!");
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+        this.weightDecay = weightDecay;
+    }
+
+    @Override
+    public int getBufferCount() {
+        return 2;
+    }
+
+    @Override
+    public void update(double[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] means = buffers[0];
+        double[] meanSquares = buffers[1];
+
+        // Bias-Korrektur: mean / (1 - beta1^t) und sqrt(meanSquare / (1 - beta2^t))
+        double stepSize = learningRate / (1 - Math.pow(beta1, step));
+        double squareCorrection = 1 / Math.sqrt(1 - Math.pow(beta2, step));
+        double decayFactor = 1 - learningRate * weightDecay;
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double mean = beta1 * means[i] + (1 - beta1) * gradient;
+            double meanSquare = beta2 * meanSquares[i] + (1 - beta2) * gradient * gradient;
+            means[i] = mean;
+            meanSquares[i] = meanSquare;
+            parameters[i] = parameters[i] * decayFactor - stepSize * mean / (Math.sqrt(meanSquare) * squareCorrection + epsilon);
+        }
+    }
+
+    @Override
+    public void update(float[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] means = buffers[0];
+        double[] meanSquares = buffers[1];
+
+        double stepSize = learningRate / (1 - Math.pow(beta1, step));
+        double squareCorrection = 1 / Math.sqrt(1 - Math.pow(beta2, step));
+        double decayFactor = 1 - learningRate * weightDecay;
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double mean = beta1 * means[i] + (1 - beta1) * gradient;
+            double meanSquare = beta2 * meanSquares[i] + (1 - beta2) * gradient * gradient;
+            means[i] = mean;
+            meanSquares[i] = meanSquare;
+            parameters[i] = (float) (parameters[i] * decayFactor - stepSize * mean / (Math.sqrt(meanSquare) * squareCorrection + epsilon));
+        }
+    }
+
+    public double getBeta1() {
+        return beta1;
+    }
+
+    public double getBeta2() {
+        return beta2;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getWeightDecay() {
+        return weightDecay;
+    }
+
+    @Override
+    public String toString() {
+        return "Adam (beta1 " + beta1 + ", beta2 " + beta2 + ")";
+    }
+}
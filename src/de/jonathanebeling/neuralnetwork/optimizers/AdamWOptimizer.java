@@ -0,0 +1,29 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serial;
+
+/**
+ * Adam with decoupled weight decay: every parameter additionally shrinks by learning rate * weight decay per update,
+ * independent of the adaptive step. Like in most implementations the biases decay as well.
+ */
+public class AdamWOptimizer extends AdamOptimizer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public AdamWOptimizer() {
+        this(0.01);
+    }
+
+    public AdamWOptimizer(double weightDecay) {
+        this(0.9, 0.999, 1e-8, weightDecay);
+    }
+
+    public AdamWOptimizer(double beta1, double beta2, double epsilon, double weightDecay) {
+        super(beta1, beta2, epsilon, weightDecay);
+    }
+
+    @Override
+    public String toString() {
+        return "AdamW (beta1 " + getBeta1() + ", beta2 " + getBeta2() + ", weight decay " + getWeightDecay() + ")";
+    }
+}
@@ -0,0 +1,81 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serial;
+
+/**
+ * Gradient descent with momentum: velocity = momentum * velocity + gradient, parameter -= learning rate * velocity.
+ * With Nesterov momentum the parameter moves by the gradient plus the momentum of the new velocity instead,
+ * i.e. it looks one step ahead.
+ */
+public class MomentumOptimizer implements Optimizer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final double momentum;
+    private final boolean nesterov;
+
+    public MomentumOptimizer() {
+        this(0.9, false);
+    }
+
+    /**
+     * @param momentum Fraction of the velocity that is kept per update, between 0 (inclusive) and 1 (exclusive).
+     */
+    public MomentumOptimizer(double momentum, boolean nesterov) {
+        if (!(momentum >= 0 && momentum < 1)) {
+            throw new IllegalArgumentException("Momentum must be in [0, 1)!");
+        }
+        this.momentum = momentum;
+        this.nesterov = nesterov;
+    }
+
+    @Override
+    public int getBufferCount() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] velocities = buffers[0];
+        // Nesterov: gradient + momentum * velocity, sonst nur velocity, ohne Verzweigung in der Schleife
+        double gradientWeight = nesterov ? 1 : 0;
+        double velocityWeight = nesterov ? momentum : 1;
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double velocity = momentum * velocities[i] + gradient;
+            velocities[i] = velocity;
+            parameters[i] -= learningRate * (gradientWeight * gradient + velocityWeight * velocity);
+        }
+    }
+
+    @Override
+    public void update(float[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] velocities = buffers[0];
+        // Nesterov: gradient + momentum * velocity, sonst nur velocity, ohne Verzweigung in der Schleife
+        double gradientWeight = nesterov ? 1 : 0;
+        double velocityWeight = nesterov ? momentum : 1;
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double velocity = momentum * velocities[i] + gradient;
+            velocities[i] = velocity;
+            parameters[i] = (float) (parameters[i] - learningRate * (gradientWeight * gradient + velocityWeight * velocity));
+        }
+    }
+
+    public double getMomentum() {
+        return momentum;
+    }
+
+    public boolean isNesterov() {
+        return nesterov;
+    }
+
+    @Override
+    public String toString() {
+        return (nesterov ? "Nesterov momentum " : "Momentum ") + momentum;
+    }
+}
@@ -0,0 +1,41 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serializable;
+
+/**
+ * Update rule that turns the accumulated gradients of a layer into a change of its parameters. An optimizer only holds
+ * its hyperparameters, the per parameter state lives in an {@link OptimizerState} of each layer. Every update is a
+ * single pass over a range of the parameters, the gradients and the state buffers, which share the same layout, and
+ * does not allocate.
+ */
+public interface Optimizer extends Serializable {
+
+    /**
+     * @return The number of state values the optimizer keeps per parameter, e.g. 2 for the moments of Adam.
+     */
+    int getBufferCount();
+
+    /**
+     * Updates parameters[offset .. offset + length) with the gradients in the same range.
+     *
+     * @param buffers       The state buffers of the parameters, {@link #getBufferCount()} arrays as long as the parameters.
+     * @param gradientScale Factor the gradients are multiplied with first, e.g. 1 / batch size for summed up gradients.
+     * @param step          Number of the update of the layer, starting at 1.
+     */
+    void update(double[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                double learningRate, double gradientScale, long step);
+
+    /**
+     * Like {@link #update(double[], double[], double[][], int, int, double, double, long)} for single precision
+     * parameters, the arithmetic and the state stay double.
+     */
+    void update(float[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                double learningRate, double gradientScale, long step);
+
+    /**
+     * @return A new state with zeroed buffers for a layer with weightCount weights and biasCount biases.
+     */
+    default OptimizerState createState(int weightCount, int biasCount) {
+        return new OptimizerState(this, weightCount, biasCount);
+    }
+}
@@ -0,0 +1,75 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of an {@link Optimizer} for one layer: the number of updates so far and the state buffers of the weights and
+ * of the biases, which have the same flat layout as the weights and biases themselves.
+ */
+public final class OptimizerState implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Optimizer optimizer;
+    private final AtomicLong steps = new AtomicLong();
+
+    private final double[][] weightBuffers;
+    private final double[][] biasBuffers;
+
+    OptimizerState(Optimizer optimizer, int weightCount, int biasCount) {
+        this.optimizer = optimizer;
+
+        weightBuffers = new double[optimizer.getBufferCount()][weightCount];
+        biasBuffers = new double[optimizer.getBufferCount()][biasCount];
+    }
+
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
+    /**
+     * Counts an update of the layer. Threads updating rows of the same layer at once each get their own step.
+     *
+     * @return The number of this update, starting at 1.
+     */
+    public long nextStep() {
+        return steps.incrementAndGet();
+    }
+
+    public long getSteps() {
+        return steps.get();
+    }
+
+    public void setSteps(long steps) {
+        this.steps.set(steps);
+    }
+
+    /**
+     * @return The buffers of the weights, {@link Optimizer#getBufferCount()} arrays as long as the weights.
+     */
+    public double[][] getWeightBuffers() {
+        return weightBuffers;
+    }
+
+    /**
+     * @return The buffers of the biases, {@link Optimizer#getBufferCount()} arrays as long as the biases.
+     */
+    public double[][] getBiasBuffers() {
+        return biasBuffers;
+    }
+
+    /**
+     * @return A deep copy, e.g. for a snapshot of the network.
+     */
+    public OptimizerState copy() {
+        OptimizerState copy = new OptimizerState(optimizer, 0, 0);
+        copy.setSteps(getSteps());
+        for (int i = 0; i < weightBuffers.length; i++) {
+            copy.weightBuffers[i] = weightBuffers[i].clone();
+            copy.biasBuffers[i] = biasBuffers[i].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,75 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import java.io.Serial;
+
+/**
+ * RMSProp: divides the gradient by a moving average of its magnitude, so every parameter gets its own step size.
+ * meanSquare = decay * meanSquare + (1 - decay) * gradient^2, parameter -= learning rate * gradient / (sqrt(meanSquare) + epsilon).
+ */
+public class RmsPropOptimizer implements Optimizer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final double decay;
+    private final double epsilon;
+
+    public RmsPropOptimizer() {
+        this(0.9, 1e-8);
+    }
+
+    /**
+     * @param decay   Fraction of the moving average that is kept per update, between 0 (inclusive) and 1 (exclusive).
+     * @param epsilon Small positive value that keeps the division stable.
+     */
+    public RmsPropOptimizer(double decay, double epsilon) {
+        if (!(decay >= 0 && decay < 1) || !(epsilon > 0)) {
+            throw new IllegalArgumentException("Decay must be in [0, 1) and epsilon must be positive!");
+        }
+        this.decay = decay;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int getBufferCount() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] meanSquares = buffers[0];
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double meanSquare = decay * meanSquares[i] + (1 - decay) * gradient * gradient;
+            meanSquares[i] = meanSquare;
+            parameters[i] -= learningRate * gradient / (Math.sqrt(meanSquare) + epsilon);
+        }
+    }
+
+    @Override
+    public void update(float[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        double[] meanSquares = buffers[0];
+
+        for (int i = offset; i < offset + length; i++) {
+            double gradient = gradients[i] * gradientScale;
+            double meanSquare = decay * meanSquares[i] + (1 - decay) * gradient * gradient;
+            meanSquares[i] = meanSquare;
+            parameters[i] = (float) (parameters[i] - learningRate * gradient / (Math.sqrt(meanSquare) + epsilon));
+        }
+    }
+
+    public double getDecay() {
+        return decay;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    @Override
+    public String toString() {
+        return "RMSProp (decay " + decay + ")";
+    }
+}
@@ -0,0 +1,35 @@
+package de.jonathanebeling.neuralnetwork.optimizers;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.io.Serial;
+
+/**
+ * Plain stochastic gradient descent without any state: parameter -= learning rate * gradient.
+ */
+public class SgdOptimizer implements Optimizer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int getBufferCount() {
+        return 0;
+    }
+
+    @Override
+    public void update(double[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        MathUtils.getKernels().axpy(-learningRate * gradientScale, gradients, offset, parameters, offset, length);
+    }
+
+    @Override
+    public void update(float[] parameters, double[] gradients, double[][] buffers, int offset, int length,
+                       double learningRate, double gradientScale, long step) {
+        MathUtils.getKernels().axpy(-learningRate * gradientScale, gradients, offset, parameters, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "SGD";
+    }
+}
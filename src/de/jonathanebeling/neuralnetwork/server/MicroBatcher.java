@@ -0,0 +1,201 @@
+package de.jonathanebeling.neuralnetwork.server;
+
+import de.jonathanebeling.neuralnetwork.inference.Predictor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects single predictions of concurrent callers into batches that are run through the model with one batched
+ * forward pass on a dedicated thread. A batch starts as soon as it holds max batch size requests or its oldest request
+ * has waited max wait, so a single caller waits at most max wait plus one forward pass, while many callers share the
+ * passes over the weights.
+ */
+public class MicroBatcher implements AutoCloseable {
+
+    private final Predictor predictor;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<Request> queue;
+    private final Thread worker;
+    private final ServingStatistics statistics = new ServingStatistics();
+
+    // Nur unter dem Lock geändert, damit nach dem Schließen keine Anfrage mehr in die Warteschlange gelangt
+    private volatile boolean closed = false;
+
+    private static final class Request {
+        private final double[] input;
+        private final long submittedNanos = System.nanoTime();
+        private final CompletableFuture<double[]> result = new CompletableFuture<>();
+
+        private Request(double[] input) {
+            this.input = input;
+        }
+    }
+
+    /**
+     * @param maxBatchSize  Largest number of requests that are predicted together.
+     * @param maxWaitMicros Longest time the oldest request of a batch waits for further requests.
+     * @param queueCapacity Number of waiting requests above which new requests are rejected.
+     */
+    public MicroBatcher(Predictor predictor, int maxBatchSize, long maxWaitMicros, int queueCapacity) {
+        if (maxBatchSize <= 0 || maxWaitMicros < 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be positive, the wait must not be negative!");
+        }
+
+        this.predictor = predictor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        worker = new Thread(this::run, "micro-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a prediction. The input must not be changed until the result is complete.
+     *
+     * @return The outputs, completed exceptionally with a {@link RejectedExecutionException} if the queue is full or the
+     * batcher is closed.
+     */
+    public CompletableFuture<double[]> submit(double[] input) {
+        if (input.length != predictor.getInputSize()) {
+            throw new IllegalArgumentException("Expected " + predictor.getInputSize() + " input values but got " + input.length + "!");
+        }
+
+        Request request = new Request(input);
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Micro batcher is closed"));
+            }
+            if (!queue.offer(request)) {
+                statistics.recordRejected();
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Prediction queue is full"));
+            }
+        }
+        return request.result;
+    }
+
+    /**
+     * Queues a prediction and waits for its outputs, meant for virtual threads.
+     */
+    public double[] predict(double[] input) throws InterruptedException, ExecutionException {
+        return submit(input).get();
+    }
+
+    private void run() {
+        double[] inputs = new double[maxBatchSize * predictor.getInputSize()];
+        double[] outputs = new double[maxBatchSize * predictor.getOutputSize()];
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Weitere Anfragen sammeln, bis der Batch voll ist oder die älteste lange genug gewartet hat
+                long deadline = first.submittedNanos + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    Request next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) break;
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                    }
+                    batch.add(next);
+                }
+
+                runBatch(batch, inputs, outputs);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Nach einem Abbruch nicht bearbeitete Anfragen nicht ewig warten lassen
+        RejectedExecutionException exception = new RejectedExecutionException("Micro batcher is closed");
+        for (Request request : batch) {
+            request.result.completeExceptionally(exception);
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(exception);
+        }
+    }
+
+    private void runBatch(List<Request> batch, double[] inputs, double[] outputs) {
+        int inputSize = predictor.getInputSize();
+        int outputSize = predictor.getOutputSize();
+        int size = batch.size();
+
+        long start = System.nanoTime();
+        try {
+            long queueNanos = 0;
+            long maxQueueNanos = 0;
+            for (int i = 0; i < size; i++) {
+                Request request = batch.get(i);
+                System.arraycopy(request.input, 0, inputs, i * inputSize, inputSize);
+
+                long waited = start - request.submittedNanos;
+                queueNanos += waited;
+                maxQueueNanos = Math.max(maxQueueNanos, waited);
+            }
+
+            predictor.predict(inputs, outputs, size);
+            statistics.recordBatch(size, queueNanos, maxQueueNanos, System.nanoTime() - start);
+
+            for (int i = 0; i < size; i++) {
+                double[] output = new double[outputSize];
+                System.arraycopy(outputs, i * outputSize, output, 0, outputSize);
+                batch.get(i).result.complete(output);
+            }
+        } catch (Throwable e) {
+            // Auch Errors nur an die Anfragen des Batches melden, der Worker muss für die übrigen weiterlaufen
+            statistics.recordFailed(size);
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    public Predictor getPredictor() {
+        return predictor;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+    }
+
+    public ServingStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Stops accepting requests and waits until all queued requests are answered.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
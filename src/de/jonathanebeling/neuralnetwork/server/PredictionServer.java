@@ -0,0 +1,159 @@
+package de.jonathanebeling.neuralnetwork.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.jonathanebeling.neuralnetwork.utils.HttpResponses;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HTTP server for predictions that only listens on the loopback address. Every request is handled on its own virtual
+ * thread, which waits for its predictions from a shared {@link MicroBatcher}, so concurrent clients are answered with
+ * batched forward passes.
+ * <pre>
+ * POST /predict  one input per line, values separated by commas or whitespace
+ *                answers with one line of comma separated outputs per input, in the same order
+ * GET  /metrics  counters of the micro batcher, one "name value" pair per line
+ * </pre>
+ */
+public class PredictionServer implements AutoCloseable {
+
+    private final MicroBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param batcher Batcher the predictions are run with, closed together with the server.
+     * @param port    Port on the loopback address, 0 for any free port.
+     */
+    public PredictionServer(MicroBatcher batcher, int port) throws IOException {
+        this.batcher = batcher;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/predict", this::handlePredict);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public ServingStatistics getStatistics() {
+        return batcher.getStatistics();
+    }
+
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                HttpResponses.sendText(exchange, 405, "Use POST\n");
+                return;
+            }
+
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                HttpResponses.sendText(exchange, 200, predict(body));
+            } catch (IllegalArgumentException e) {
+                HttpResponses.sendText(exchange, 400, e.getMessage() + "\n");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    HttpResponses.sendText(exchange, 503, e.getCause().getMessage() + "\n");
+                } else {
+                    HttpResponses.sendText(exchange, 500, "Prediction failed\n");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                HttpResponses.sendText(exchange, 503, "Interrupted\n");
+            }
+        }
+    }
+
+    /**
+     * @return One line of outputs per line of inputs.
+     */
+    private String predict(String body) throws ExecutionException, InterruptedException {
+        List<double[]> inputs = parseInputs(body);
+
+        int inputSize = batcher.getPredictor().getInputSize();
+        for (double[] input : inputs) {
+            if (input.length != inputSize) {
+                throw new IllegalArgumentException("Expected " + inputSize + " values per line but got " + input.length);
+            }
+        }
+
+        // Alle Zeilen zuerst abgeben, damit sie im selben Batch landen können
+        List<CompletableFuture<double[]>> results = new ArrayList<>(inputs.size());
+        for (double[] input : inputs) {
+            results.add(batcher.submit(input));
+        }
+
+        StringBuilder response = new StringBuilder();
+        for (CompletableFuture<double[]> result : results) {
+            appendOutputs(response, result.get());
+        }
+        return response.toString();
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                HttpResponses.sendText(exchange, 405, "Use GET\n");
+                return;
+            }
+            HttpResponses.sendText(exchange, 200, batcher.getStatistics().toMetricsText());
+        }
+    }
+
+    /**
+     * @throws NumberFormatException If a value is not a number.
+     */
+    private static List<double[]> parseInputs(String body) {
+        List<double[]> inputs = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) continue;
+
+            String[] values = trimmed.split("[,\\s]+");
+            double[] input = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                input[i] = Double.parseDouble(values[i]);
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+
+    private static void appendOutputs(StringBuilder builder, double[] outputs) {
+        for (int i = 0; i < outputs.length; i++) {
+            if (i > 0) builder.append(',');
+            builder.append(outputs[i]);
+        }
+        builder.append('\n');
+    }
+
+    /**
+     * Stops the server, answers all queued predictions and closes the batcher.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        batcher.close();
+        executor.close();
+    }
+}
@@ -0,0 +1,116 @@
+package de.jonathanebeling.neuralnetwork.server;
+
+import de.jonathanebeling.neuralnetwork.utils.MathUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link MicroBatcher}. The queue latency of a request is the time from its submission until the batch
+ * containing it starts, the compute time of a batch is the time of its forward pass.
+ */
+public class ServingStatistics {
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder queueNanosSum = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final LongAdder computeNanosSum = new LongAdder();
+
+    void recordBatch(int size, long queueNanos, long batchMaxQueueNanos, long computeNanos) {
+        requests.add(size);
+        batches.increment();
+        queueNanosSum.add(queueNanos);
+        maxQueueNanos.accumulateAndGet(batchMaxQueueNanos, Math::max);
+        computeNanosSum.add(computeNanos);
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordFailed(int size) {
+        failed.add(size);
+    }
+
+    /**
+     * @return The number of requests that were answered.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return The number of requests that were refused because the queue was full.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of requests whose batch failed.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) requests.sum() / count;
+    }
+
+    public double getAverageQueueMicros() {
+        long count = requests.sum();
+        return count == 0 ? 0 : queueNanosSum.sum() / 1000.0 / count;
+    }
+
+    public double getMaxQueueMicros() {
+        return maxQueueNanos.get() / 1000.0;
+    }
+
+    public double getAverageComputeMicros() {
+        long count = batches.sum();
+        return count == 0 ? 0 : computeNanosSum.sum() / 1000.0 / count;
+    }
+
+    /**
+     * @return Answered requests per second since the statistics were created.
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds == 0 ? 0 : requests.sum() / seconds;
+    }
+
+    /**
+     * @return All counters as lines of name and value, e.g. for a metrics endpoint.
+     */
+    public String toMetricsText() {
+        return "requests_total " + getRequests() + "\n"
+                + "batches_total " + getBatches() + "\n"
+                + "rejected_total " + getRejected() + "\n"
+                + "failed_total " + getFailed() + "\n"
+                + "batch_size_average " + MathUtils.roundDecimalPoints(getAverageBatchSize(), 3) + "\n"
+                + "queue_latency_average_micros " + MathUtils.roundDecimalPoints(getAverageQueueMicros(), 1) + "\n"
+                + "queue_latency_max_micros " + MathUtils.roundDecimalPoints(getMaxQueueMicros(), 1) + "\n"
+                + "batch_compute_average_micros " + MathUtils.roundDecimalPoints(getAverageComputeMicros(), 1) + "\n"
+                + "throughput_per_second " + MathUtils.roundDecimalPoints(getThroughput(), 1) + "\n";
+    }
+
+    @Override
+    public String toString() {
+        return "Requests: " + getRequests() + ", batches: " + getBatches()
+                + ", batch size avg: " + MathUtils.roundDecimalPoints(getAverageBatchSize(), 2)
+                + ", queue latency avg/max: " + MathUtils.roundDecimalPoints(getAverageQueueMicros(), 1) + "/"
+                + MathUtils.roundDecimalPoints(getMaxQueueMicros(), 1) + " us"
+                + ", throughput: " + MathUtils.roundDecimalPoints(getThroughput(), 1) + "/s";
+    }
+}
@@ -0,0 +1,67 @@
+package de.jonathanebeling.neuralnetwork.utils;
+
+/**
+ * Innermost loops of training and inference. All matrix kernels in {@link MathUtils} are built on these methods,
+ * the implementation is selected once at startup, see {@link MathUtils#getKernels()}.
+ * Float arrays are always read and written through double arithmetic, byte arrays through int arithmetic.
+ */
+public interface ArrayKernels {
+
+    /**
+     * @return The dot product of a[offsetA .. offsetA + length) and b[offsetB .. offsetB + length).
+     */
+    double dot(double[] a, int offsetA, double[] b, int offsetB, int length);
+
+    double dot(double[] a, int offsetA, float[] b, int offsetB, int length);
+
+    /**
+     * @return The exact dot product of two int8 ranges, accumulated with ints. Does not overflow for lengths up to 2^17.
+     */
+    int dot(byte[] a, int offsetA, byte[] b, int offsetB, int length);
+
+    /**
+     * Adds the dot products of a[offsetA ..] with the four rows of b starting at offsetB, offsetB + stride,
+     * offsetB + 2 * stride and offsetB + 3 * stride to output[outputOffset .. outputOffset + 4).
+     */
+    void addDot4(double[] a, int offsetA, double[] b, int offsetB, int stride, int length, double[] output, int outputOffset);
+
+    void addDot4(double[] a, int offsetA, float[] b, int offsetB, int stride, int length, double[] output, int outputOffset);
+
+    void addDot4(byte[] a, int offsetA, byte[] b, int offsetB, int stride, int length, int[] output, int outputOffset);
+
+    /**
+     * y[offsetY + i] += alpha * x[offsetX + i] for all i lower than length.
+     */
+    void axpy(double alpha, double[] x, int offsetX, double[] y, int offsetY, int length);
+
+    void axpy(double alpha, float[] x, int offsetX, double[] y, int offsetY, int length);
+
+    void axpy(double alpha, double[] x, int offsetX, float[] y, int offsetY, int length);
+
+    /**
+     * output[i] = input[i] > 0 ? input[i] : slope * input[i] for all i in [offset, offset + length).
+     */
+    void leakyReLu(double[] input, double[] output, int offset, int length, double slope);
+
+    /**
+     * output[i] = 1 / (1 + exp(-input[i])) for all i in [offset, offset + length).
+     */
+    void sigmoid(double[] input, double[] output, int offset, int length);
+
+    /**
+     * gradients[i] *= input[i] > 0 ? 1 : slope for all i in [offset, offset + length), the derivative of leakyReLu.
+     */
+    void multiplyLeakyReLuDerivative(double[] input, double[] gradients, int offset, int length, double slope);
+
+    /**
+     * gradients[i] *= activations[i] * (1 - activations[i]) for all i in [offset, offset + length), the derivative of
+     * sigmoid computed from its outputs.
+     */
+    void multiplySigmoidDerivative(double[] activations, double[] gradients, int offset, int length);
+
+    /**
+     * Normalizes input[offset .. offset + length) to probabilities exp(input[i]) / sum(exp(input[j])) in the same range
+     * of output. The maximum is subtracted before exp, so large inputs do not overflow. Both arrays may be the same.
+     */
+    void softmax(double[] input, double[] output, int offset, int length);
+}
@@ -1,6 +1,10 @@
 package de.jonathanebeling.neuralnetwork.utils;
 
 import de.jonathanebeling.neuralnetwork.data.DataPoint;
+import de.jonathanebeling.neuralnetwork.evaluation.EvaluationResult;
+import de.jonathanebeling.neuralnetwork.evaluation.Evaluator;
+import de.jonathanebeling.neuralnetwork.inference.InferenceModel;
+import de.jonathanebeling.neuralnetwork.inference.Predictor;
 import de.jonathanebeling.neuralnetwork.network.NeuralNetwork;
 
 public class DisplayHelper {
@@ -18,12 +22,17 @@ public class DisplayHelper {
 
 
     public void printWrongDigits(NeuralNetwork network, DataPoint[] dataPoints) {
+        printWrongDigits(InferenceModel.compile(network), dataPoints);
+    }
+
+    public void printWrongDigits(Predictor predictor, DataPoint[] dataPoints) {
         int wrongs = 0;
+        double[] output = new double[predictor.getOutputSize()];
 
         for (int i = 0; i < dataPoints.length; i++) {
-            double[] output = network.calculateOutputs(dataPoints[i].getInputActivation());
+            predictor.predict(dataPoints[i].getInputActivation(), output);
 
-            if (MathUtils.getSortedIndices(output)[0] != MathUtils.getSortedIndices(dataPoints[i].getExpectedOutputActivation())[0]) {
+            if (MathUtils.argMax(output) != MathUtils.argMax(dataPoints[i].getExpectedOutputActivation())) {
                 wrongs++;
 
                 System.out.println("============================");
@@ -39,23 +48,16 @@ public class DisplayHelper {
         System.out.println("Number of wrong identifications: " + wrongs + "/" + dataPoints.length);
     }
     public void printNumberOfWrongs(NeuralNetwork network, DataPoint[] dataPoints) {
-        int wrongs = 0;
-
-        for (int i = 0; i < dataPoints.length; i++) {
-            double[] output = network.calculateOutputs(dataPoints[i].getInputActivation());
+        EvaluationResult result = new Evaluator(network).evaluate(dataPoints);
 
-            if (MathUtils.getSortedIndices(output)[0] != MathUtils.getSortedIndices(dataPoints[i].getExpectedOutputActivation())[0]) {
-                wrongs++;
-            }
-        }
-
-        System.out.println("Number of wrong identifications: " + wrongs + "/" + dataPoints.length);
-        System.out.println("Correct percentage: " + MathUtils.roundDecimalPoints((100-((double) wrongs /dataPoints.length)*100), 3) + "%");
+        System.out.println("Number of wrong identifications: " + result.getWrong() + "/" + result.getCount());
+        System.out.println("Correct percentage: " + MathUtils.roundDecimalPoints(result.getAccuracy() * 100, 3) + "%");
     }
 
     public void printTop3Outputs(double[] output) {
-        int[] sortedIndices = MathUtils.getSortedIndices(output);
-        for (int i = 0; i < 3; i++) {
+        int[] sortedIndices = new int[Math.min(3, output.length)];
+        MathUtils.topK(output, 0, output.length, sortedIndices.length, sortedIndices);
+        for (int i = 0; i < sortedIndices.length; i++) {
             System.out.println(sortedIndices[i] + ": " + Math.round(output[sortedIndices[i]] * 100.0) / 100.0);
         }
     }
@@ -0,0 +1,29 @@
+package de.jonathanebeling.neuralnetwork.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Responses of the loopback HTTP servers, {@link de.jonathanebeling.neuralnetwork.server.PredictionServer} and
+ * {@link de.jonathanebeling.neuralnetwork.metrics.MetricsEndpoint}.
+ */
+public class HttpResponses {
+
+    private HttpResponses() {
+    }
+
+    /**
+     * Sends the body as UTF-8 plain text with its length and closes the response body.
+     */
+    public static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(bytes);
+        }
+    }
+}
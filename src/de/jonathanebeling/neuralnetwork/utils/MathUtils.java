@@ -5,11 +5,92 @@ import java.util.Comparator;
 
 public class MathUtils {
 
+    public static final int ROW_BLOCK = 4;
+    public static final int COLUMN_TILE = 1024;
+
+    /**
+     * Set this system property to "scalar" to disable the Vector API kernels.
+     */
+    public static final String KERNELS_PROPERTY = "neuralnetwork.kernels";
+
+    private static final ArrayKernels KERNELS = selectKernels();
+
+    /**
+     * Uses the Vector API kernels if the module jdk.incubator.vector is available (JVM option
+     * {@code --add-modules jdk.incubator.vector}) and not disabled, otherwise the scalar kernels.
+     */
+    private static ArrayKernels selectKernels() {
+        if ("scalar".equalsIgnoreCase(System.getProperty(KERNELS_PROPERTY))) return new ScalarArrayKernels();
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return new ScalarArrayKernels();
+
+        try {
+            return (ArrayKernels) Class.forName("de.jonathanebeling.neuralnetwork.utils.VectorApiArrayKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarArrayKernels();
+        }
+    }
+
+    public static ArrayKernels getKernels() {
+        return KERNELS;
+    }
+
     public static double roundDecimalPoints(double input, int decimalPoints){
         double i = Math.pow(10, decimalPoints);
         return Math.round(input * i) / i;
     }
 
+    /**
+     * @return The index of the largest value in array[offset .. offset + length) relative to offset, the first one if several are equal.
+     */
+    public static int argMax(double[] array, int offset, int length) {
+        int best = 0;
+        for (int i = 1; i < length; i++) {
+            if (array[offset + i] > array[offset + best]) best = i;
+        }
+        return best;
+    }
+
+    public static int argMax(double[] array) {
+        return argMax(array, 0, array.length);
+    }
+
+    /**
+     * Writes the indices of the k largest values in array[offset .. offset + length), relative to offset, in descending
+     * order to result[0 .. k). Selects by insertion into the result, which is fast for small k and does not allocate.
+     */
+    public static void topK(double[] array, int offset, int length, int k, int[] result) {
+        int found = 0;
+        for (int i = 0; i < length; i++) {
+            double value = array[offset + i];
+            if (found == k && value <= array[offset + result[k - 1]]) continue;
+
+            int position = Math.min(found, k - 1);
+            while (position > 0 && array[offset + result[position - 1]] < value) {
+                result[position] = result[position - 1];
+                position--;
+            }
+            result[position] = i;
+            if (found < k) found++;
+        }
+    }
+
+    /**
+     * @return Whether the value at index (relative to offset) is among the k largest of array[offset .. offset + length).
+     * Values equal to it only count as larger if they come first.
+     */
+    public static boolean isInTopK(double[] array, int offset, int length, int index, int k) {
+        double value = array[offset + index];
+        int larger = 0;
+        for (int i = 0; i < length; i++) {
+            double other = array[offset + i];
+            if (other > value || (other == value && i < index)) {
+                if (++larger >= k) return false;
+            }
+        }
+        return true;
+    }
+
     public static int[] getSortedIndices(double[] array) {
         // Paare von Index und Wert erstellen
         Integer[] indices = new Integer[array.length];
@@ -89,14 +170,177 @@ public class MathUtils {
     public static double sumMultipliedArrays(double[] array1, double[] array2){
         if (array1.length != array2.length) throw new IllegalArgumentException("Arrays have to be of same length");
 
-        double output = 0;
+        return KERNELS.dot(array1, 0, array2, 0, array1.length);
+    }
 
-        for (int index = 0; index < array1.length; index++) {
-            output += array1[index] * array2[index];
+    /**
+     * Computes output = matrix * vector + bias for a flat, row-major matrix.
+     *
+     * @param matrix The matrix with rows * cols entries, row r starts at index r * cols.
+     * @param vector The vector with cols entries.
+     * @param bias The vector with rows entries that is added to the result.
+     * @param output The target array with at least rows entries.
+     */
+    public static void matrixVectorProduct(double[] matrix, double[] vector, double[] bias, double[] output, int rows, int cols) {
+        matrixMultiplyTransposed(vector, matrix, bias, output, 1, rows, cols);
+    }
+
+    /**
+     * Computes output = a * transpose(b) + bias for flat, row-major matrices, i.e. output[i][j] = dot(a[i], b[j]) + bias[j].
+     * {@link #ROW_BLOCK} rows of b are multiplied together with every row of a over a column tile of at most
+     * {@link #COLUMN_TILE} entries before moving on, so each row of b is read from memory only once per call,
+     * no matter how many rows a has, and the partial sums stay in registers.
+     *
+     * @param a The left matrix with rowsA * cols entries.
+     * @param b The right matrix with rowsB * cols entries, used transposed.
+     * @param bias The vector with rowsB entries that is added to every row of the result.
+     * @param output The target matrix with rowsA * rowsB entries.
+     */
+    public static void matrixMultiplyTransposed(double[] a, double[] b, double[] bias, double[] output, int rowsA, int rowsB, int cols) {
+        for (int rowA = 0; rowA < rowsA; rowA++) {
+            System.arraycopy(bias, 0, output, rowA * rowsB, rowsB);
+        }
+
+        addMatrixMultiplyTransposed(a, 0, b, output, rowsA, rowsB, cols);
+    }
+
+    /**
+     * Accumulates output += a * transpose(b) like {@link #matrixMultiplyTransposed(double[], double[], double[], double[], int, int, int)},
+     * with the left matrix starting at index offsetA of a.
+     */
+    public static void addMatrixMultiplyTransposed(double[] a, int offsetA, double[] b, double[] output, int rowsA, int rowsB, int cols) {
+        for (int colStart = 0; colStart < cols; colStart += COLUMN_TILE) {
+            int tileLength = Math.min(COLUMN_TILE, cols - colStart);
+
+            int rowB = 0;
+            for (; rowB + ROW_BLOCK <= rowsB; rowB += ROW_BLOCK) {
+                for (int rowA = 0; rowA < rowsA; rowA++) {
+                    KERNELS.addDot4(a, offsetA + rowA * cols + colStart, b, rowB * cols + colStart, cols, tileLength, output, rowA * rowsB + rowB);
+                }
+            }
+
+            // Restliche Zeilen von b, die keinen vollen Block mehr ergeben
+            for (; rowB < rowsB; rowB++) {
+                for (int rowA = 0; rowA < rowsA; rowA++) {
+                    output[rowA * rowsB + rowB] += KERNELS.dot(a, offsetA + rowA * cols + colStart, b, rowB * cols + colStart, tileLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes output = a * b for flat, row-major matrices.
+     * Every row of b is read once and added, scaled, to all rows of the output.
+     *
+     * @param a The left matrix with rowsA * inner entries.
+     * @param b The right matrix with inner * cols entries.
+     * @param output The target matrix with rowsA * cols entries.
+     */
+    public static void matrixMultiply(double[] a, double[] b, double[] output, int rowsA, int inner, int cols) {
+        matrixMultiply(a, b, output, 0, rowsA, inner, cols);
+    }
+
+    /**
+     * Same as {@link #matrixMultiply(double[], double[], double[], int, int, int)}, but writes the result to output
+     * starting at index outputOffset, e.g. into the row of one data point of a batch.
+     */
+    public static void matrixMultiply(double[] a, double[] b, double[] output, int outputOffset, int rowsA, int inner, int cols) {
+        Arrays.fill(output, outputOffset, outputOffset + rowsA * cols, 0);
+
+        for (int k = 0; k < inner; k++) {
+            for (int rowA = 0; rowA < rowsA; rowA++) {
+                KERNELS.axpy(a[rowA * inner + k], b, k * cols, output, outputOffset + rowA * cols, cols);
+            }
         }
+    }
 
+    /**
+     * Accumulates output += transpose(a) * b for flat, row-major matrices, i.e. the sum of the outer products of
+     * the rows of a and b. Each row of the output is finished before moving on to the next one.
+     *
+     * @param a The matrix with rows * colsA entries.
+     * @param b The matrix with rows * colsB entries.
+     * @param output The matrix with colsA * colsB entries the result is added to.
+     */
+    public static void addTransposedMatrixMultiply(double[] a, double[] b, double[] output, int rows, int colsA, int colsB) {
+        addTransposedMatrixMultiply(a, b, 0, output, rows, colsA, colsB);
+    }
+
+    /**
+     * Same as {@link #addTransposedMatrixMultiply(double[], double[], double[], int, int, int)} with the matrix b
+     * starting at index offsetB.
+     */
+    public static void addTransposedMatrixMultiply(double[] a, double[] b, int offsetB, double[] output, int rows, int colsA, int colsB) {
+        for (int colA = 0; colA < colsA; colA++) {
+            for (int row = 0; row < rows; row++) {
+                KERNELS.axpy(a[row * colsA + colA], b, offsetB + row * colsB, output, colA * colsB, colsB);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #matrixVectorProduct(double[], double[], double[], double[], int, int)} for a float matrix,
+     * the sums are accumulated with double precision.
+     */
+    public static void matrixVectorProduct(float[] matrix, double[] vector, double[] bias, double[] output, int rows, int cols) {
+        matrixMultiplyTransposed(vector, matrix, bias, output, 1, rows, cols);
+    }
+
+    /**
+     * Same as {@link #matrixMultiplyTransposed(double[], double[], double[], double[], int, int, int)} for a float matrix b,
+     * the sums are accumulated with double precision.
+     */
+    public static void matrixMultiplyTransposed(double[] a, float[] b, double[] bias, double[] output, int rowsA, int rowsB, int cols) {
+        for (int rowA = 0; rowA < rowsA; rowA++) {
+            System.arraycopy(bias, 0, output, rowA * rowsB, rowsB);
+        }
+
+        for (int colStart = 0; colStart < cols; colStart += COLUMN_TILE) {
+            int tileLength = Math.min(COLUMN_TILE, cols - colStart);
+
+            int rowB = 0;
+            for (; rowB + ROW_BLOCK <= rowsB; rowB += ROW_BLOCK) {
+                for (int rowA = 0; rowA < rowsA; rowA++) {
+                    KERNELS.addDot4(a, rowA * cols + colStart, b, rowB * cols + colStart, cols, tileLength, output, rowA * rowsB + rowB);
+                }
+            }
+
+            // Restliche Zeilen von b, die keinen vollen Block mehr ergeben
+            for (; rowB < rowsB; rowB++) {
+                for (int rowA = 0; rowA < rowsA; rowA++) {
+                    output[rowA * rowsB + rowB] += KERNELS.dot(a, rowA * cols + colStart, b, rowB * cols + colStart, tileLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #matrixMultiply(double[], double[], double[], int, int, int)} for a float matrix b,
+     * the sums are accumulated with double precision.
+     */
+    public static void matrixMultiply(double[] a, float[] b, double[] output, int rowsA, int inner, int cols) {
+        Arrays.fill(output, 0, rowsA * cols, 0);
+
+        for (int k = 0; k < inner; k++) {
+            for (int rowA = 0; rowA < rowsA; rowA++) {
+                KERNELS.axpy(a[rowA * inner + k], b, k * cols, output, rowA * cols, cols);
+            }
+        }
+    }
+
+    public static float[] toFloatArray(double[] array) {
+        float[] output = new float[array.length];
+        for (int i = 0; i < array.length; i++) {
+            output[i] = (float) array[i];
+        }
         return output;
     }
 
-    
+    public static double[] toDoubleArray(float[] array) {
+        double[] output = new double[array.length];
+        for (int i = 0; i < array.length; i++) {
+            output[i] = array[i];
+        }
+        return output;
+    }
 }
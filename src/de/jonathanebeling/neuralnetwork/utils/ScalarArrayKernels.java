@@ -0,0 +1,186 @@
+package de.jonathanebeling.neuralnetwork.utils;
+
+/**
+ * Plain Java loops, used when the Vector API is not available.
+ */
+public class ScalarArrayKernels implements ArrayKernels {
+
+    @Override
+    public double dot(double[] a, int offsetA, double[] b, int offsetB, int length) {
+        double sum0 = 0, sum1 = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+            sum1 += a[offsetA + i + 1] * b[offsetB + i + 1];
+        }
+        for (; i < length; i++) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+        }
+        return sum0 + sum1;
+    }
+
+    @Override
+    public double dot(double[] a, int offsetA, float[] b, int offsetB, int length) {
+        double sum0 = 0, sum1 = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+            sum1 += a[offsetA + i + 1] * b[offsetB + i + 1];
+        }
+        for (; i < length; i++) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+        }
+        return sum0 + sum1;
+    }
+
+    @Override
+    public int dot(byte[] a, int offsetA, byte[] b, int offsetB, int length) {
+        int sum0 = 0, sum1 = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+            sum1 += a[offsetA + i + 1] * b[offsetB + i + 1];
+        }
+        for (; i < length; i++) {
+            sum0 += a[offsetA + i] * b[offsetB + i];
+        }
+        return sum0 + sum1;
+    }
+
+    @Override
+    public void addDot4(double[] a, int offsetA, double[] b, int offsetB, int stride, int length, double[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        for (int i = 0; i < length; i++) {
+            double value = a[offsetA + i];
+            sum0 += b[offset0 + i] * value;
+            sum1 += b[offset1 + i] * value;
+            sum2 += b[offset2 + i] * value;
+            sum3 += b[offset3 + i] * value;
+        }
+
+        output[outputOffset] += sum0;
+        output[outputOffset + 1] += sum1;
+        output[outputOffset + 2] += sum2;
+        output[outputOffset + 3] += sum3;
+    }
+
+    @Override
+    public void addDot4(double[] a, int offsetA, float[] b, int offsetB, int stride, int length, double[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        for (int i = 0; i < length; i++) {
+            double value = a[offsetA + i];
+            sum0 += b[offset0 + i] * value;
+            sum1 += b[offset1 + i] * value;
+            sum2 += b[offset2 + i] * value;
+            sum3 += b[offset3 + i] * value;
+        }
+
+        output[outputOffset] += sum0;
+        output[outputOffset + 1] += sum1;
+        output[outputOffset + 2] += sum2;
+        output[outputOffset + 3] += sum3;
+    }
+
+    @Override
+    public void addDot4(byte[] a, int offsetA, byte[] b, int offsetB, int stride, int length, int[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        int sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        for (int i = 0; i < length; i++) {
+            int value = a[offsetA + i];
+            sum0 += b[offset0 + i] * value;
+            sum1 += b[offset1 + i] * value;
+            sum2 += b[offset2 + i] * value;
+            sum3 += b[offset3 + i] * value;
+        }
+
+        output[outputOffset] += sum0;
+        output[outputOffset + 1] += sum1;
+        output[outputOffset + 2] += sum2;
+        output[outputOffset + 3] += sum3;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int offsetX, double[] y, int offsetY, int length) {
+        for (int i = 0; i < length; i++) {
+            y[offsetY + i] += alpha * x[offsetX + i];
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, float[] x, int offsetX, double[] y, int offsetY, int length) {
+        for (int i = 0; i < length; i++) {
+            y[offsetY + i] += alpha * x[offsetX + i];
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int offsetX, float[] y, int offsetY, int length) {
+        for (int i = 0; i < length; i++) {
+            y[offsetY + i] = (float) (y[offsetY + i] + alpha * x[offsetX + i]);
+        }
+    }
+
+    @Override
+    public void leakyReLu(double[] input, double[] output, int offset, int length, double slope) {
+        for (int i = offset; i < offset + length; i++) {
+            double value = input[i];
+            output[i] = value > 0 ? value : slope * value;
+        }
+    }
+
+    @Override
+    public void sigmoid(double[] input, double[] output, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            output[i] = 1 / (1 + Math.exp(-input[i]));
+        }
+    }
+
+    @Override
+    public void multiplyLeakyReLuDerivative(double[] input, double[] gradients, int offset, int length, double slope) {
+        for (int i = offset; i < offset + length; i++) {
+            gradients[i] *= input[i] > 0 ? 1 : slope;
+        }
+    }
+
+    @Override
+    public void multiplySigmoidDerivative(double[] activations, double[] gradients, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            double activation = activations[i];
+            gradients[i] *= activation * (1 - activation);
+        }
+    }
+
+    @Override
+    public void softmax(double[] input, double[] output, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++) {
+            max = Math.max(max, input[i]);
+        }
+
+        double sum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            double value = Math.exp(input[i] - max);
+            output[i] = value;
+            sum += value;
+        }
+
+        double scale = 1 / sum;
+        for (int i = offset; i < offset + length; i++) {
+            output[i] *= scale;
+        }
+    }
+}
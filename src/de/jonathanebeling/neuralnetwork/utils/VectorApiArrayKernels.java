@@ -0,0 +1,328 @@
+package de.jonathanebeling.neuralnetwork.utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Explicit SIMD loops using the incubating Vector API with the preferred vector size of the CPU, e.g. 4 doubles
+ * on AVX2 and 8 doubles on AVX-512. Float arrays are loaded with a float species of the same lane count and converted,
+ * so one float vector covers one double vector. Bytes are widened to ints of the preferred int size, the smallest
+ * byte vector has 64 bits, so on narrow CPUs one byte vector is widened in several parts. Requires the JVM option {@code --add-modules jdk.incubator.vector}.
+ */
+public class VectorApiArrayKernels implements ArrayKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+    private static final int LANES = SPECIES.length();
+
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, INT_SPECIES.vectorBitSize() / 4)));
+    private static final int BYTE_PARTS = BYTE_SPECIES.length() / INT_SPECIES.length();
+
+    private final ScalarArrayKernels scalar = new ScalarArrayKernels();
+
+    private static DoubleVector loadFloats(float[] array, int offset) {
+        return (DoubleVector) FloatVector.fromArray(FLOAT_SPECIES, array, offset).convertShape(VectorOperators.F2D, SPECIES, 0);
+    }
+
+    @Override
+    public double dot(double[] a, int offsetA, double[] b, int offsetB, int length) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, offsetA + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, offsetB + i);
+            sum = va.fma(vb, sum);
+        }
+
+        return sum.reduceLanes(VectorOperators.ADD) + scalar.dot(a, offsetA + i, b, offsetB + i, length - i);
+    }
+
+    @Override
+    public double dot(double[] a, int offsetA, float[] b, int offsetB, int length) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, offsetA + i);
+            sum = va.fma(loadFloats(b, offsetB + i), sum);
+        }
+
+        return sum.reduceLanes(VectorOperators.ADD) + scalar.dot(a, offsetA + i, b, offsetB + i, length - i);
+    }
+
+    @Override
+    public int dot(byte[] a, int offsetA, byte[] b, int offsetB, int length) {
+        IntVector sum = IntVector.zero(INT_SPECIES);
+        int upperBound = BYTE_SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += BYTE_SPECIES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTE_SPECIES, a, offsetA + i);
+            ByteVector vb = ByteVector.fromArray(BYTE_SPECIES, b, offsetB + i);
+            for (int part = 0; part < BYTE_PARTS; part++) {
+                IntVector ia = (IntVector) va.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                IntVector ib = (IntVector) vb.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                sum = ia.mul(ib).add(sum);
+            }
+        }
+
+        return sum.reduceLanes(VectorOperators.ADD) + scalar.dot(a, offsetA + i, b, offsetB + i, length - i);
+    }
+
+    @Override
+    public void addDot4(double[] a, int offsetA, double[] b, int offsetB, int stride, int length, double[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        DoubleVector sum0 = DoubleVector.zero(SPECIES);
+        DoubleVector sum1 = DoubleVector.zero(SPECIES);
+        DoubleVector sum2 = DoubleVector.zero(SPECIES);
+        DoubleVector sum3 = DoubleVector.zero(SPECIES);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, a, offsetA + i);
+            sum0 = DoubleVector.fromArray(SPECIES, b, offset0 + i).fma(value, sum0);
+            sum1 = DoubleVector.fromArray(SPECIES, b, offset1 + i).fma(value, sum1);
+            sum2 = DoubleVector.fromArray(SPECIES, b, offset2 + i).fma(value, sum2);
+            sum3 = DoubleVector.fromArray(SPECIES, b, offset3 + i).fma(value, sum3);
+        }
+
+        output[outputOffset] += sum0.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 1] += sum1.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 2] += sum2.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 3] += sum3.reduceLanes(VectorOperators.ADD);
+
+        if (i < length) {
+            scalar.addDot4(a, offsetA + i, b, offsetB + i, stride, length - i, output, outputOffset);
+        }
+    }
+
+    @Override
+    public void addDot4(double[] a, int offsetA, float[] b, int offsetB, int stride, int length, double[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        DoubleVector sum0 = DoubleVector.zero(SPECIES);
+        DoubleVector sum1 = DoubleVector.zero(SPECIES);
+        DoubleVector sum2 = DoubleVector.zero(SPECIES);
+        DoubleVector sum3 = DoubleVector.zero(SPECIES);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, a, offsetA + i);
+            sum0 = loadFloats(b, offset0 + i).fma(value, sum0);
+            sum1 = loadFloats(b, offset1 + i).fma(value, sum1);
+            sum2 = loadFloats(b, offset2 + i).fma(value, sum2);
+            sum3 = loadFloats(b, offset3 + i).fma(value, sum3);
+        }
+
+        output[outputOffset] += sum0.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 1] += sum1.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 2] += sum2.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 3] += sum3.reduceLanes(VectorOperators.ADD);
+
+        if (i < length) {
+            scalar.addDot4(a, offsetA + i, b, offsetB + i, stride, length - i, output, outputOffset);
+        }
+    }
+
+    @Override
+    public void addDot4(byte[] a, int offsetA, byte[] b, int offsetB, int stride, int length, int[] output, int outputOffset) {
+        int offset0 = offsetB;
+        int offset1 = offset0 + stride;
+        int offset2 = offset1 + stride;
+        int offset3 = offset2 + stride;
+
+        IntVector sum0 = IntVector.zero(INT_SPECIES);
+        IntVector sum1 = IntVector.zero(INT_SPECIES);
+        IntVector sum2 = IntVector.zero(INT_SPECIES);
+        IntVector sum3 = IntVector.zero(INT_SPECIES);
+        int upperBound = BYTE_SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += BYTE_SPECIES.length()) {
+            ByteVector value = ByteVector.fromArray(BYTE_SPECIES, a, offsetA + i);
+            ByteVector row0 = ByteVector.fromArray(BYTE_SPECIES, b, offset0 + i);
+            ByteVector row1 = ByteVector.fromArray(BYTE_SPECIES, b, offset1 + i);
+            ByteVector row2 = ByteVector.fromArray(BYTE_SPECIES, b, offset2 + i);
+            ByteVector row3 = ByteVector.fromArray(BYTE_SPECIES, b, offset3 + i);
+
+            for (int part = 0; part < BYTE_PARTS; part++) {
+                IntVector widened = (IntVector) value.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                sum0 = ((IntVector) row0.convertShape(VectorOperators.B2I, INT_SPECIES, part)).mul(widened).add(sum0);
+                sum1 = ((IntVector) row1.convertShape(VectorOperators.B2I, INT_SPECIES, part)).mul(widened).add(sum1);
+                sum2 = ((IntVector) row2.convertShape(VectorOperators.B2I, INT_SPECIES, part)).mul(widened).add(sum2);
+                sum3 = ((IntVector) row3.convertShape(VectorOperators.B2I, INT_SPECIES, part)).mul(widened).add(sum3);
+            }
+        }
+
+        output[outputOffset] += sum0.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 1] += sum1.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 2] += sum2.reduceLanes(VectorOperators.ADD);
+        output[outputOffset + 3] += sum3.reduceLanes(VectorOperators.ADD);
+
+        if (i < length) {
+            scalar.addDot4(a, offsetA + i, b, offsetB + i, stride, length - i, output, outputOffset);
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int offsetX, double[] y, int offsetY, int length) {
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, offsetX + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, offsetY + i);
+            vx.fma(factor, vy).intoArray(y, offsetY + i);
+        }
+
+        scalar.axpy(alpha, x, offsetX + i, y, offsetY + i, length - i);
+    }
+
+    @Override
+    public void axpy(double alpha, float[] x, int offsetX, double[] y, int offsetY, int length) {
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, offsetY + i);
+            loadFloats(x, offsetX + i).fma(factor, vy).intoArray(y, offsetY + i);
+        }
+
+        scalar.axpy(alpha, x, offsetX + i, y, offsetY + i, length - i);
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int offsetX, float[] y, int offsetY, int length) {
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+        int upperBound = SPECIES.loopBound(length);
+
+        int i = 0;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, offsetX + i);
+            DoubleVector result = vx.fma(factor, loadFloats(y, offsetY + i));
+            ((FloatVector) result.convertShape(VectorOperators.D2F, FLOAT_SPECIES, 0)).intoArray(y, offsetY + i);
+        }
+
+        scalar.axpy(alpha, x, offsetX + i, y, offsetY + i, length - i);
+    }
+
+    @Override
+    public void leakyReLu(double[] input, double[] output, int offset, int length, double slope) {
+        int upperBound = offset + SPECIES.loopBound(length);
+
+        int i = offset;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, input, i);
+            VectorMask<Double> positive = value.compare(VectorOperators.GT, 0);
+            value.mul(slope).blend(value, positive).intoArray(output, i);
+        }
+
+        scalar.leakyReLu(input, output, i, offset + length - i, slope);
+    }
+
+    @Override
+    public void sigmoid(double[] input, double[] output, int offset, int length) {
+        int upperBound = offset + SPECIES.loopBound(length);
+
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+
+        int i = offset;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, input, i);
+            one.div(value.neg().lanewise(VectorOperators.EXP).add(one)).intoArray(output, i);
+        }
+
+        scalar.sigmoid(input, output, i, offset + length - i);
+    }
+
+    @Override
+    public void multiplyLeakyReLuDerivative(double[] input, double[] gradients, int offset, int length, double slope) {
+        int upperBound = offset + SPECIES.loopBound(length);
+
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+        DoubleVector slopes = DoubleVector.broadcast(SPECIES, slope);
+
+        int i = offset;
+        for (; i < upperBound; i += LANES) {
+            VectorMask<Double> positive = DoubleVector.fromArray(SPECIES, input, i).compare(VectorOperators.GT, 0);
+            DoubleVector.fromArray(SPECIES, gradients, i).mul(slopes.blend(one, positive)).intoArray(gradients, i);
+        }
+
+        scalar.multiplyLeakyReLuDerivative(input, gradients, i, offset + length - i, slope);
+    }
+
+    @Override
+    public void multiplySigmoidDerivative(double[] activations, double[] gradients, int offset, int length) {
+        int upperBound = offset + SPECIES.loopBound(length);
+
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+
+        int i = offset;
+        for (; i < upperBound; i += LANES) {
+            DoubleVector activation = DoubleVector.fromArray(SPECIES, activations, i);
+            DoubleVector derivative = activation.mul(one.sub(activation));
+            DoubleVector.fromArray(SPECIES, gradients, i).mul(derivative).intoArray(gradients, i);
+        }
+
+        scalar.multiplySigmoidDerivative(activations, gradients, i, offset + length - i);
+    }
+
+    @Override
+    public void softmax(double[] input, double[] output, int offset, int length) {
+        int upperBound = offset + SPECIES.loopBound(length);
+
+        DoubleVector maxVector = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int i = offset;
+        for (; i < upperBound; i += LANES) {
+            maxVector = maxVector.max(DoubleVector.fromArray(SPECIES, input, i));
+        }
+        double max = maxVector.reduceLanes(VectorOperators.MAX);
+        for (; i < offset + length; i++) {
+            max = Math.max(max, input[i]);
+        }
+
+        DoubleVector sumVector = DoubleVector.zero(SPECIES);
+        for (i = offset; i < upperBound; i += LANES) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, input, i).sub(max).lanewise(VectorOperators.EXP);
+            value.intoArray(output, i);
+            sumVector = sumVector.add(value);
+        }
+        double sum = sumVector.reduceLanes(VectorOperators.ADD);
+        for (; i < offset + length; i++) {
+            double value = Math.exp(input[i] - max);
+            output[i] = value;
+            sum += value;
+        }
+
+        double scale = 1 / sum;
+        for (i = offset; i < upperBound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, output, i).mul(scale).intoArray(output, i);
+        }
+        for (; i < offset + length; i++) {
+            output[i] *= scale;
+        }
+    }
+}
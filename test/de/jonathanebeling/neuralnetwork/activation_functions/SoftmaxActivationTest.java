@@ -0,0 +1,104 @@
+package de.jonathanebeling.neuralnetwork.activation_functions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the backpropagation through softmax with central finite differences of the activations of one row, which
+ * starts behind other values of the arrays.
+ */
+class SoftmaxActivationTest {
+
+    private static final int OFFSET = 3;
+    private static final int LENGTH = 7;
+    private static final double STEP = 1e-6;
+
+    private final SoftmaxActivation softmax = new SoftmaxActivation();
+    private final Random random = new Random(5);
+
+    private double[] randomDoubles(int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian() * 2;
+        }
+        return array;
+    }
+
+    /**
+     * @return d activations[OFFSET + i] / d weightedInputs[OFFSET + j] of the row.
+     */
+    private double[][] numericJacobian(double[] weightedInputs) {
+        double[][] jacobian = new double[LENGTH][LENGTH];
+        double[] plus = new double[weightedInputs.length];
+        double[] minus = new double[weightedInputs.length];
+
+        for (int j = 0; j < LENGTH; j++) {
+            double original = weightedInputs[OFFSET + j];
+            weightedInputs[OFFSET + j] = original + STEP;
+            softmax.activate(weightedInputs, plus, OFFSET, LENGTH);
+            weightedInputs[OFFSET + j] = original - STEP;
+            softmax.activate(weightedInputs, minus, OFFSET, LENGTH);
+            weightedInputs[OFFSET + j] = original;
+
+            for (int i = 0; i < LENGTH; i++) {
+                jacobian[i][j] = (plus[OFFSET + i] - minus[OFFSET + i]) / (2 * STEP);
+            }
+        }
+        return jacobian;
+    }
+
+
+    @Test
+    void multiplyDerivativesMatchesFiniteDifferences() {
+        double[] weightedInputs = randomDoubles(OFFSET + LENGTH + 2);
+        double[] activations = new double[weightedInputs.length];
+        softmax.activate(weightedInputs, activations, OFFSET, LENGTH);
+        double[][] jacobian = numericJacobian(weightedInputs);
+
+        double[] gradients = randomDoubles(weightedInputs.length);
+        double[] expected = gradients.clone();
+        for (int j = 0; j < LENGTH; j++) {
+            double sum = 0;
+            for (int i = 0; i < LENGTH; i++) {
+                sum += gradients[OFFSET + i] * jacobian[i][j];
+            }
+            expected[OFFSET + j] = sum;
+        }
+
+        softmax.multiplyDerivatives(weightedInputs, activations, gradients, OFFSET, LENGTH);
+        assertArrayEquals(expected, gradients, 1e-8);
+    }
+
+    @Test
+    void derivativesAreTheDiagonalOfTheJacobian() {
+        double[] weightedInputs = randomDoubles(OFFSET + LENGTH);
+        double[] activations = new double[weightedInputs.length];
+        softmax.activate(weightedInputs, activations, OFFSET, LENGTH);
+        double[][] jacobian = numericJacobian(weightedInputs);
+
+        double[] derivatives = new double[weightedInputs.length];
+        softmax.derivatives(weightedInputs, activations, derivatives, OFFSET, LENGTH);
+        for (int i = 0; i < LENGTH; i++) {
+            assertEquals(jacobian[i][i], derivatives[OFFSET + i], 1e-8, "index " + i);
+        }
+    }
+
+    /**
+     * The element-wise methods are those of a row with a single value.
+     */
+    @Test
+    void elementWiseMethodsMatchASingleValueRow() {
+        double[] weightedInput = {1.7};
+        double[] activation = new double[1];
+        double[] derivative = new double[1];
+        softmax.activate(weightedInput, activation, 0, 1);
+        softmax.derivatives(weightedInput, activation, derivative, 0, 1);
+
+        assertEquals(activation[0], softmax.activation(weightedInput[0]));
+        assertEquals(derivative[0], softmax.derivative(weightedInput[0]));
+    }
+}
@@ -0,0 +1,145 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.SigmoidActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CostFunction;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the gradients of stacked convolution and pooling layers with central finite differences of the cost.
+ * Sigmoid activations keep the cost smooth, the inputs are random so max pooling has no ties.
+ */
+class ConvolutionGradientTest {
+
+    private static final int BATCH_SIZE = 4;
+    private static final int CLASSES = 3;
+    private static final double STEP = 1e-6;
+
+    private final Random random = new Random(11);
+
+    private Layer[] createLayers(PoolingType type, int stride) {
+        Conv2DLayer first = new Conv2DLayer(7, 6, 2, 3, 3, stride, 1, random, new SigmoidActivation());
+        PoolingLayer pooling = new PoolingLayer(type, first.getOutputWidth(), first.getOutputHeight(), 3, 2, 1);
+        Conv2DLayer second = new Conv2DLayer(pooling.getOutputWidth(), pooling.getOutputHeight(), 3, 2, 2, 1, 0,
+                random, new SigmoidActivation());
+        Layer output = new Layer(second.getNodesOut(), CLASSES, random, new SoftmaxActivation(), new CrossEntropyCost());
+
+        for (Layer layer : new Layer[]{first, second, output}) {
+            for (int i = 0; i < layer.getBiasCount(); i++) {
+                layer.getBiases()[i] = random.nextGaussian() * 0.1;
+            }
+        }
+        return new Layer[]{first, pooling, second, output};
+    }
+
+    /**
+     * One forward and backward pass over the batch with fresh training instances, the same steps as a training batch.
+     *
+     * @return The summed up cost of the batch.
+     */
+    private static double forwardAndBackward(LayerTrainingInstance[] instances, double[] inputs, double[] expectedOutputs) {
+        double[] activations = inputs;
+        for (LayerTrainingInstance instance : instances) {
+            activations = instance.calculateOutputActivations(activations, BATCH_SIZE);
+        }
+
+        LayerTrainingInstance outputLayer = instances[instances.length - 1];
+        outputLayer.updateOutputLayerNodeValues(expectedOutputs, BATCH_SIZE);
+        outputLayer.updateGradients(BATCH_SIZE);
+        for (int i = instances.length - 2; i >= 0; i--) {
+            instances[i].updateHiddenLayerNodeValues(instances[i + 1], BATCH_SIZE);
+            instances[i].updateGradients(BATCH_SIZE);
+        }
+
+        CostFunction cost = outputLayer.getLayer().getCostFunction();
+        double sum = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sum += cost.dataPointCost(activations, expectedOutputs, i * CLASSES, CLASSES);
+        }
+        return sum;
+    }
+
+    private static LayerTrainingInstance[] createInstances(Layer[] layers) {
+        LayerTrainingInstance[] instances = new LayerTrainingInstance[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            instances[i] = new LayerTrainingInstance(layers[i]);
+        }
+        return instances;
+    }
+
+    private double[] randomInputs(int length) {
+        double[] inputs = new double[length];
+        for (int i = 0; i < length; i++) {
+            inputs[i] = random.nextGaussian();
+        }
+        return inputs;
+    }
+
+    private double[] randomLabels() {
+        double[] expectedOutputs = new double[BATCH_SIZE * CLASSES];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            expectedOutputs[i * CLASSES + random.nextInt(CLASSES)] = 1;
+        }
+        return expectedOutputs;
+    }
+
+
+    @ParameterizedTest
+    @CsvSource({"MAX, 1", "MAX, 2", "AVERAGE, 1", "AVERAGE, 2"})
+    void gradientsMatchFiniteDifferences(PoolingType type, int stride) {
+        Layer[] layers = createLayers(type, stride);
+        double[] inputs = randomInputs(BATCH_SIZE * layers[0].getNodesIn());
+        double[] expectedOutputs = randomLabels();
+
+        LayerTrainingInstance[] instances = createInstances(layers);
+        forwardAndBackward(instances, inputs, expectedOutputs);
+
+        for (int l = 0; l < layers.length; l++) {
+            for (int pass = 0; pass < 2; pass++) {
+                double[] parameters = pass == 0 ? layers[l].getWeights() : layers[l].getBiases();
+                double[] gradients = pass == 0 ? instances[l].getCostGradientW() : instances[l].getCostGradientB();
+
+                for (int k = 0; k < parameters.length; k++) {
+                    double original = parameters[k];
+                    parameters[k] = original + STEP;
+                    double costPlus = forwardAndBackward(createInstances(layers), inputs, expectedOutputs);
+                    parameters[k] = original - STEP;
+                    double costMinus = forwardAndBackward(createInstances(layers), inputs, expectedOutputs);
+                    parameters[k] = original;
+
+                    double numeric = (costPlus - costMinus) / (2 * STEP);
+                    double error = Math.abs(numeric - gradients[k]);
+                    assertTrue(error <= 1e-6 + 1e-4 * Math.abs(numeric), "layer " + l + (pass == 0 ? " weight " : " bias ")
+                            + k + ": numeric " + numeric + ", backpropagated " + gradients[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Backpropagation without the inputs has to use the windows found by the forward pass of the same thread.
+     */
+    @ParameterizedTest
+    @EnumSource(PoolingType.class)
+    void poolingBackpropagatesWithoutInputs(PoolingType type) {
+        PoolingLayer pooling = new PoolingLayer(type, 6, 5, 3, 2, 1);
+        double[] inputs = randomInputs(BATCH_SIZE * pooling.getNodesIn());
+        pooling.calculateWeightedInputs(inputs, new double[BATCH_SIZE * pooling.getNodesOut()], BATCH_SIZE);
+
+        double[] nodeValues = randomInputs(BATCH_SIZE * pooling.getNodesOut());
+        double[] expected = new double[inputs.length];
+        double[] actual = new double[inputs.length];
+        pooling.backpropagateNodeValues(inputs, nodeValues, expected, BATCH_SIZE);
+        pooling.backpropagateNodeValues(nodeValues, actual, BATCH_SIZE);
+
+        assertArrayEquals(expected, actual);
+    }
+}
@@ -0,0 +1,263 @@
+package de.jonathanebeling.neuralnetwork.network;
+
+import de.jonathanebeling.neuralnetwork.activation_functions.ReLuActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SigmoidActivation;
+import de.jonathanebeling.neuralnetwork.activation_functions.SoftmaxActivation;
+import de.jonathanebeling.neuralnetwork.cost_functions.CrossEntropyCost;
+import de.jonathanebeling.neuralnetwork.cost_functions.SumOfSquaredErrorsCost;
+import de.jonathanebeling.neuralnetwork.optimizers.AdamOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.MomentumOptimizer;
+import de.jonathanebeling.neuralnetwork.optimizers.OptimizerState;
+import de.jonathanebeling.neuralnetwork.optimizers.SgdOptimizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips of the current checkpoint format and loading of version 1 and 2 files, which are written byte by byte
+ * here the way the older versions of {@link NetworkCheckpoint} wrote them.
+ */
+class NetworkCheckpointTest {
+
+    private static final int MAGIC = 0x4B434E4E;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(7);
+
+    private void randomizeBiases(NeuralNetwork network) {
+        for (Layer layer : network.getLayers()) {
+            for (int i = 0; i < layer.getBiasCount(); i++) {
+                layer.getBiases()[i] = random.nextGaussian();
+            }
+        }
+    }
+
+    private OptimizerState randomState(NeuralNetwork network, Layer layer, long steps) {
+        OptimizerState state = network.getOptimizer().createState(layer.getWeightCount(), layer.getBiasCount());
+        state.setSteps(steps);
+        for (double[] buffer : state.getWeightBuffers()) {
+            Arrays.setAll(buffer, i -> random.nextGaussian());
+        }
+        for (double[] buffer : state.getBiasBuffers()) {
+            Arrays.setAll(buffer, i -> random.nextGaussian());
+        }
+        return state;
+    }
+
+    private static void assertSameLayers(NeuralNetwork expected, NeuralNetwork actual) {
+        assertEquals(expected.getLayers().length, actual.getLayers().length);
+        for (int i = 0; i < expected.getLayers().length; i++) {
+            Layer expectedLayer = expected.getLayers()[i];
+            Layer actualLayer = actual.getLayers()[i];
+
+            assertEquals(expectedLayer.getClass(), actualLayer.getClass(), "layer " + i);
+            assertEquals(expectedLayer.getActivationFunction().getClass(), actualLayer.getActivationFunction().getClass(), "layer " + i);
+            assertEquals(expectedLayer.getNodesIn(), actualLayer.getNodesIn(), "layer " + i);
+            assertEquals(expectedLayer.getNodesOut(), actualLayer.getNodesOut(), "layer " + i);
+            assertArrayEquals(expectedLayer.getBiases(), actualLayer.getBiases(), "layer " + i);
+            assertArrayEquals(expectedLayer.getWeights(), actualLayer.getWeights(), "layer " + i);
+        }
+    }
+
+    private String file(String name) {
+        return directory.resolve(name + NetworkCheckpoint.FILE_EXTENSION).toString();
+    }
+
+
+    @Test
+    void denseNetworkWithOptimizerStateRoundTrips() throws IOException {
+        NeuralNetwork network = new NeuralNetwork(new int[]{6, 5, 3}, new ReLuActivation(), new SoftmaxActivation(),
+                new CrossEntropyCost(), directory.resolve("dense").toString(), 1, Precision.DOUBLE);
+        randomizeBiases(network);
+        network.setOptimizer(new AdamOptimizer(0.8, 0.95, 1e-7));
+        network.setTrainedEpochs(4);
+        network.setEarlyStopping(true);
+        network.setEarlyStoppingPatience(9);
+        for (Layer layer : network.getLayers()) {
+            layer.setOptimizerState(randomState(network, layer, 123));
+        }
+
+        NetworkCheckpoint.write(network, file("dense"));
+        NeuralNetwork loaded = NetworkCheckpoint.read(file("dense"));
+
+        assertSameLayers(network, loaded);
+        assertInstanceOf(CrossEntropyCost.class, loaded.getCostFunction());
+        assertEquals(4, loaded.getTrainedEpochs());
+        assertTrue(loaded.isEarlyStopping());
+        assertEquals(9, loaded.getEarlyStoppingPatience());
+        assertEquals(network.getSaveDirectoryPath(), loaded.getSaveDirectoryPath());
+
+        AdamOptimizer optimizer = assertInstanceOf(AdamOptimizer.class, loaded.getOptimizer());
+        assertEquals(0.8, optimizer.getBeta1());
+        assertEquals(0.95, optimizer.getBeta2());
+        assertEquals(1e-7, optimizer.getEpsilon());
+
+        for (int i = 0; i < network.getLayers().length; i++) {
+            OptimizerState expected = network.getLayers()[i].getOptimizerState();
+            OptimizerState actual = loaded.getLayers()[i].getOptimizerState();
+            assertEquals(123, actual.getSteps());
+            assertArrayEquals(expected.getWeightBuffers(), actual.getWeightBuffers());
+            assertArrayEquals(expected.getBiasBuffers(), actual.getBiasBuffers());
+        }
+    }
+
+    @Test
+    void floatNetworkRoundTrips() throws IOException {
+        NeuralNetwork network = new NeuralNetwork(new int[]{7, 3, 2}, new SigmoidActivation(), new SumOfSquaredErrorsCost(),
+                directory.resolve("float").toString(), 2, Precision.FLOAT);
+        randomizeBiases(network);
+
+        NetworkCheckpoint.write(network, file("float"));
+        NeuralNetwork loaded = NetworkCheckpoint.read(file("float"));
+
+        assertSameLayers(network, loaded);
+        assertEquals(Precision.FLOAT, loaded.getPrecision());
+        assertInstanceOf(SgdOptimizer.class, loaded.getOptimizer());
+    }
+
+    @Test
+    void convolutionalNetworkRoundTrips() throws IOException {
+        Random layerRandom = new Random(3);
+        NeuralNetwork network = new NeuralNetwork(new Layer[]{
+                new Conv2DLayer(6, 6, 2, 3, 3, 1, 1, layerRandom, new ReLuActivation()),
+                new PoolingLayer(PoolingType.MAX, 6, 6, 3, 2),
+                new PoolingLayer(PoolingType.AVERAGE, 3, 3, 3, 2, 1),
+                new FloatLayer(2 * 2 * 3, 4, layerRandom, new SoftmaxActivation(), new CrossEntropyCost())
+        }, directory.resolve("conv").toString());
+        randomizeBiases(network);
+
+        NetworkCheckpoint.write(network, file("conv"));
+        NeuralNetwork loaded = NetworkCheckpoint.read(file("conv"));
+
+        assertSameLayers(network, loaded);
+        Conv2DLayer convolution = assertInstanceOf(Conv2DLayer.class, loaded.getLayers()[0]);
+        assertEquals(3, convolution.getFilters());
+        assertEquals(1, convolution.getPadding());
+        assertEquals(PoolingType.MAX, ((PoolingLayer) loaded.getLayers()[1]).getType());
+        assertEquals(1, ((PoolingLayer) loaded.getLayers()[2]).getStride());
+
+        double[] input = new double[network.getLayers()[0].getNodesIn()];
+        Arrays.setAll(input, i -> random.nextDouble());
+        assertArrayEquals(network.calculateOutputs(input), loaded.calculateOutputs(input));
+    }
+
+
+    /**
+     * Writes a checkpoint of dense double layers in the format of version 1 or 2: four ints per layer header, and
+     * since version 2 the optimizer section.
+     */
+    private void writeLegacy(String filePath, int version, NeuralNetwork network, int optimizerId, double[] hyperparameters,
+                             OptimizerState[] states) throws IOException {
+        Layer[] layers = network.getLayers();
+        byte[] path = network.getSaveDirectoryPath().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(version);
+        buffer.put((byte) 0).put((byte) 0).putInt(5);
+        buffer.putInt(0).putInt(2).putInt(layers.length);
+        buffer.putInt(path.length).put(path);
+        buffer.position((buffer.position() + 7) & ~7);
+
+        for (Layer layer : layers) {
+            buffer.putInt(0).putInt(0).putInt(layer.getNodesIn()).putInt(layer.getNodesOut());
+        }
+        for (Layer layer : layers) {
+            for (double bias : layer.getBiases()) buffer.putDouble(bias);
+            for (double weight : layer.getWeights()) buffer.putDouble(weight);
+        }
+
+        if (version >= 2) {
+            buffer.putInt(optimizerId).putInt(hyperparameters.length);
+            for (double hyperparameter : hyperparameters) buffer.putDouble(hyperparameter);
+
+            for (OptimizerState state : states) {
+                int bufferCount = state == null ? 0 : state.getWeightBuffers().length;
+                buffer.putLong(state == null ? 0 : state.getSteps()).putInt(bufferCount).putInt(0);
+                for (int i = 0; i < bufferCount; i++) {
+                    for (double value : state.getWeightBuffers()[i]) buffer.putDouble(value);
+                    for (double value : state.getBiasBuffers()[i]) buffer.putDouble(value);
+                }
+            }
+        }
+
+        Files.write(Path.of(filePath), Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    private NeuralNetwork legacyNetwork(String name) {
+        NeuralNetwork network = new NeuralNetwork(new int[]{4, 6, 2}, new ReLuActivation(), new SumOfSquaredErrorsCost(),
+                directory.resolve(name).toString(), 5);
+        randomizeBiases(network);
+        return network;
+    }
+
+    @Test
+    void readsVersion1() throws IOException {
+        NeuralNetwork network = legacyNetwork("v1");
+        writeLegacy(file("v1"), 1, network, 0, new double[0], null);
+
+        NeuralNetwork loaded = NetworkCheckpoint.read(file("v1"));
+
+        assertSameLayers(network, loaded);
+        assertEquals(2, loaded.getTrainedEpochs());
+        assertEquals(5, loaded.getEarlyStoppingPatience());
+        assertInstanceOf(SgdOptimizer.class, loaded.getOptimizer());
+    }
+
+    @Test
+    void readsVersion2WithOptimizerState() throws IOException {
+        NeuralNetwork network = legacyNetwork("v2");
+        network.setOptimizer(new MomentumOptimizer(0.7, true));
+        OptimizerState[] states = {randomState(network, network.getLayers()[0], 11), null};
+        writeLegacy(file("v2"), 2, network, 1, new double[]{0.7, 1}, states);
+
+        NeuralNetwork loaded = NetworkCheckpoint.read(file("v2"));
+
+        assertSameLayers(network, loaded);
+        MomentumOptimizer optimizer = assertInstanceOf(MomentumOptimizer.class, loaded.getOptimizer());
+        assertEquals(0.7, optimizer.getMomentum());
+        assertTrue(optimizer.isNesterov());
+
+        OptimizerState state = loaded.getLayers()[0].getOptimizerState();
+        assertEquals(11, state.getSteps());
+        assertArrayEquals(states[0].getWeightBuffers(), state.getWeightBuffers());
+        assertArrayEquals(states[0].getBiasBuffers(), state.getBiasBuffers());
+        assertNull(loaded.getLayers()[1].getOptimizerState());
+    }
+
+    @Test
+    void rejectsBrokenFiles() throws IOException {
+        NeuralNetwork network = legacyNetwork("broken");
+        NetworkCheckpoint.write(network, file("broken"));
+        byte[] bytes = Files.readAllBytes(Path.of(file("broken")));
+
+        Files.write(Path.of(file("truncated")), Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> NetworkCheckpoint.read(file("truncated")));
+
+        byte[] foreign = bytes.clone();
+        foreign[0] = 'X';
+        Files.write(Path.of(file("foreign")), foreign);
+        assertThrows(IOException.class, () -> NetworkCheckpoint.read(file("foreign")));
+
+        byte[] future = bytes.clone();
+        future[4] = 99;
+        Files.write(Path.of(file("future")), future);
+        assertThrows(IOException.class, () -> NetworkCheckpoint.read(file("future")));
+    }
+}
@@ -0,0 +1,229 @@
+package de.jonathanebeling.neuralnetwork.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the Vector API kernels with the scalar reference. The lengths cover every tail that is not a multiple of
+ * the vector width, the offsets ranges that do not start at the beginning of an array.
+ */
+class ArrayKernelsTest {
+
+    private static final int[] OFFSETS = {0, 3};
+
+    private final ArrayKernels scalar = new ScalarArrayKernels();
+    private final ArrayKernels vector = new VectorApiArrayKernels();
+    private final Random random = new Random(42);
+
+    private static int[] lengths() {
+        return IntStream.concat(IntStream.rangeClosed(0, 67), IntStream.of(255, 1000, 1027)).toArray();
+    }
+
+    private double[] randomDoubles(int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian();
+        }
+        return array;
+    }
+
+    private float[] randomFloats(int length) {
+        float[] array = new float[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = (float) random.nextGaussian();
+        }
+        return array;
+    }
+
+    /**
+     * Rounding differs with the order of the additions, so sums are compared relative to the sum of absolute products.
+     */
+    private static double tolerance(double[] a, int offsetA, double[] b, int offsetB, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += Math.abs(a[offsetA + i] * b[offsetB + i]);
+        }
+        return 1e-12 * (sum + 1);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] array = new byte[length];
+        random.nextBytes(array);
+        return array;
+    }
+
+    private static double[] toDoubles(float[] array) {
+        double[] doubles = new double[array.length];
+        for (int i = 0; i < array.length; i++) {
+            doubles[i] = array[i];
+        }
+        return doubles;
+    }
+
+
+    @Test
+    void dotMatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                double[] a = randomDoubles(offset + length);
+                double[] b = randomDoubles(offset + length + 1);
+
+                assertEquals(scalar.dot(a, offset, b, offset + 1, length), vector.dot(a, offset, b, offset + 1, length),
+                        tolerance(a, offset, b, offset + 1, length), "length " + length + ", offset " + offset);
+            }
+        }
+    }
+
+    @Test
+    void dotWithFloatsMatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                double[] a = randomDoubles(offset + length);
+                float[] b = randomFloats(offset + length);
+
+                assertEquals(scalar.dot(a, offset, b, offset, length), vector.dot(a, offset, b, offset, length),
+                        tolerance(a, offset, toDoubles(b), offset, length), "length " + length + ", offset " + offset);
+            }
+        }
+    }
+
+    @Test
+    void addDot4MatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                int stride = length + 2;
+                double[] a = randomDoubles(offset + length);
+                double[] b = randomDoubles(offset + 4 * stride);
+                float[] floats = randomFloats(offset + 4 * stride);
+
+                double[] expected = randomDoubles(5);
+                double[] actual = expected.clone();
+                scalar.addDot4(a, offset, b, offset, stride, length, expected, 1);
+                vector.addDot4(a, offset, b, offset, stride, length, actual, 1);
+                assertArrayEquals(expected, actual, tolerance(a, offset, b, offset, length) * 4, "length " + length);
+
+                expected = randomDoubles(5);
+                actual = expected.clone();
+                scalar.addDot4(a, offset, floats, offset, stride, length, expected, 1);
+                vector.addDot4(a, offset, floats, offset, stride, length, actual, 1);
+                assertArrayEquals(expected, actual, tolerance(a, offset, toDoubles(floats), offset, length) * 4, "length " + length);
+            }
+        }
+    }
+
+    /**
+     * Int8 dot products are exact, including the extreme values -128 and 127.
+     */
+    @Test
+    void byteDotMatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                byte[] a = randomBytes(offset + length);
+                byte[] b = randomBytes(offset + length + 1);
+
+                assertEquals(scalar.dot(a, offset, b, offset + 1, length), vector.dot(a, offset, b, offset + 1, length),
+                        "length " + length + ", offset " + offset);
+            }
+        }
+
+        byte[] minimum = new byte[1027];
+        Arrays.fill(minimum, Byte.MIN_VALUE);
+        assertEquals(1027 * 128 * 128, vector.dot(minimum, 0, minimum, 0, minimum.length));
+    }
+
+    @Test
+    void byteAddDot4MatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                int stride = length + 2;
+                byte[] a = randomBytes(offset + length);
+                byte[] b = randomBytes(offset + 4 * stride);
+
+                int[] expected = {7, -3, 11, 0, 5};
+                int[] actual = expected.clone();
+                scalar.addDot4(a, offset, b, offset, stride, length, expected, 1);
+                vector.addDot4(a, offset, b, offset, stride, length, actual, 1);
+                assertArrayEquals(expected, actual, "length " + length + ", offset " + offset);
+            }
+        }
+    }
+
+    /**
+     * The vector kernels may fuse multiply and add, so the results differ in the last bits.
+     */
+    @Test
+    void axpyMatchesScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                double alpha = random.nextGaussian();
+                double[] x = randomDoubles(offset + length);
+                float[] floats = randomFloats(offset + length);
+
+                double[] expected = randomDoubles(offset + length);
+                double[] actual = expected.clone();
+                scalar.axpy(alpha, x, offset, expected, offset, length);
+                vector.axpy(alpha, x, offset, actual, offset, length);
+                assertArrayEquals(expected, actual, 1e-12, "length " + length);
+
+                scalar.axpy(alpha, floats, offset, expected, offset, length);
+                vector.axpy(alpha, floats, offset, actual, offset, length);
+                assertArrayEquals(expected, actual, 1e-12, "length " + length);
+
+                float[] expectedFloats = randomFloats(offset + length);
+                float[] actualFloats = expectedFloats.clone();
+                scalar.axpy(alpha, x, offset, expectedFloats, offset, length);
+                vector.axpy(alpha, x, offset, actualFloats, offset, length);
+                assertArrayEquals(expectedFloats, actualFloats, 1e-6f, "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void activationsMatchScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                double[] input = randomDoubles(offset + length);
+                // Das Element vor dem Bereich darf nicht verändert werden
+                double[] expected = new double[offset + length];
+                double[] actual = new double[offset + length];
+
+                scalar.leakyReLu(input, expected, offset, length, 0.01);
+                vector.leakyReLu(input, actual, offset, length, 0.01);
+                assertArrayEquals(expected, actual, 0, "leakyReLu, length " + length);
+
+                scalar.sigmoid(input, expected, offset, length);
+                vector.sigmoid(input, actual, offset, length);
+                assertArrayEquals(expected, actual, 1e-14, "sigmoid, length " + length);
+
+                scalar.softmax(input, expected, offset, length);
+                vector.softmax(input, actual, offset, length);
+                assertArrayEquals(expected, actual, 1e-14, "softmax, length " + length);
+            }
+        }
+    }
+
+    @Test
+    void derivativesMatchScalar() {
+        for (int length : lengths()) {
+            for (int offset : OFFSETS) {
+                double[] input = randomDoubles(offset + length);
+                double[] expected = randomDoubles(offset + length);
+                double[] actual = expected.clone();
+
+                scalar.multiplyLeakyReLuDerivative(input, expected, offset, length, 0.01);
+                vector.multiplyLeakyReLuDerivative(input, actual, offset, length, 0.01);
+                assertArrayEquals(expected, actual, 0, "leakyReLu, length " + length);
+
+                scalar.multiplySigmoidDerivative(input, expected, offset, length);
+                vector.multiplySigmoidDerivative(input, actual, offset, length);
+                assertArrayEquals(expected, actual, 1e-14, "sigmoid, length " + length);
+            }
+        }
+    }
+}